@@ -18,10 +18,14 @@ package com.example.composedemos.routes
 
 import com.google.android.gms.maps.model.LatLng
 import com.google.maps.android.compose3d.utils.GeoMathUtils
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.PackedPath
+import com.google.maps.android.compose3d.utils.RouteCursor
 import com.google.maps.android.compose3d.utils.calculateHeading
-import com.google.maps.android.compose3d.utils.haversineDistance
+import com.google.maps.android.compose3d.utils.toPackedPath
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.map
 
 data class PositionAndHeading(
     val position: LatLng,
@@ -51,21 +55,58 @@ object RouteEngine {
         return PositionAndHeading(targetPos, heading)
     }
 
+    /**
+     * Tracks the position and heading at [progressFlow] along the latest route.
+     *
+     * Each route is packed once when it is emitted. Progress updates then move two cursors, one
+     * for the position and one for the look-ahead point, so scrubbing or playing back does not
+     * search the whole route again.
+     */
     fun getRouteTrackingFlow(
         routeFlow: Flow<List<LatLng>>,
         progressFlow: Flow<Float>,
         lookaheadDistance: Double = 1000.0
-    ): Flow<PositionAndHeading> = combine(routeFlow, progressFlow) { route, progress ->
-        if (route.size < 2) return@combine PositionAndHeading(LatLng(0.0, 0.0), 0f)
-        
-        val cumulativeDistances = DoubleArray(route.size)
-        cumulativeDistances[0] = 0.0
-        for (i in 1 until route.size) {
-            cumulativeDistances[i] = cumulativeDistances[i - 1] + haversineDistance(route[i - 1], route[i])
+    ): Flow<PositionAndHeading> {
+        val trackers = routeFlow.map { route -> if (route.size < 2) null else RouteTracker(route.toPackedPath()) }
+        return combine(trackers, progressFlow) { tracker, progress ->
+            tracker?.positionAndHeading(progress.toDouble(), lookaheadDistance)
+                ?: PositionAndHeading(LatLng(0.0, 0.0), 0f)
+        }
+    }
+
+    private class RouteTracker(private val path: PackedPath) {
+        private val target = RouteCursor(path)
+        private val lookahead = RouteCursor(path)
+        private val targetPoint = MutableGeoPoint()
+        private val lookaheadPoint = MutableGeoPoint()
+
+        fun positionAndHeading(progress: Double, lookaheadDistance: Double): PositionAndHeading {
+            val distance = path.lengthMeters * progress
+            target.moveTo(distance, targetPoint)
+            lookahead.moveTo(distance + lookaheadDistance, lookaheadPoint)
+
+            val heading = if (
+                targetPoint.latitude == lookaheadPoint.latitude &&
+                targetPoint.longitude == lookaheadPoint.longitude &&
+                distance > 0.0
+            ) {
+                // If at the end, look back 1 meter to determine heading
+                path.pointAt(distance - 1.0, lookaheadPoint)
+                calculateHeading(
+                    lookaheadPoint.latitude,
+                    lookaheadPoint.longitude,
+                    targetPoint.latitude,
+                    targetPoint.longitude,
+                )
+            } else {
+                calculateHeading(
+                    targetPoint.latitude,
+                    targetPoint.longitude,
+                    lookaheadPoint.latitude,
+                    lookaheadPoint.longitude,
+                )
+            }
+            return PositionAndHeading(targetPoint.toLatLng(), heading.toFloat())
         }
-        val totalDistance = cumulativeDistances.last()
-        val distance = totalDistance * progress.toDouble()
-        
-        calculatePositionAndHeading(route, cumulativeDistances, distance, lookaheadDistance)
     }
 }
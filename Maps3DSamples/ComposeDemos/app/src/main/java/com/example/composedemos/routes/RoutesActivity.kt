@@ -109,8 +109,8 @@ import com.google.maps.android.compose3d.ModelConfig
 import com.google.maps.android.compose3d.ModelScale
 import com.google.maps.android.compose3d.PolylineConfig
 import com.google.maps.android.compose3d.PopoverConfig
-import com.google.maps.android.compose3d.utils.haversineDistance
 import com.google.maps.android.compose3d.utils.toHeading
+import com.google.maps.android.compose3d.utils.toPackedPath
 import com.google.maps.android.compose3d.utils.toValidCamera
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -248,12 +248,7 @@ fun RouteSampleScreen(viewModel: RouteViewModel) {
             // Calculate total distance for progress calculation
             val rawPath = state.decodedPolyline
             if (rawPath.size >= 2) {
-                val cumulativeDistances = DoubleArray(rawPath.size)
-                cumulativeDistances[0] = 0.0
-                for (i in 1 until rawPath.size) {
-                    cumulativeDistances[i] = cumulativeDistances[i - 1] + haversineDistance(rawPath[i - 1], rawPath[i])
-                }
-                totalDistance = cumulativeDistances.last().toFloat()
+                totalDistance = rawPath.toPackedPath().lengthMeters.toFloat()
             }
 
             // Draw polyline
@@ -107,6 +107,7 @@ import com.google.android.gms.maps3d.model.modelOptions
 import com.google.android.gms.maps3d.model.orientation
 import com.google.android.gms.maps3d.model.polylineOptions
 import com.example.advancedmaps3dsamples.utils.GeoMathUtils
+import com.example.advancedmaps3dsamples.utils.RouteCursor
 import com.google.android.gms.maps3d.model.vector3D
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.delay
@@ -401,6 +402,9 @@ private fun RouteFlightEngine(
                 cumulativeDistances[i - 1] + haversineDistance(rawPath[i - 1], rawPath[i])
         }
 
+        val targetCursor = RouteCursor(rawPath, cumulativeDistances)
+        val lookaheadCursor = RouteCursor(rawPath, cumulativeDistances)
+
         val lookaheadSeconds = 8.0
         val lerpFactor = 0.05f
 
@@ -447,11 +451,11 @@ private fun RouteFlightEngine(
                 }
 
                 val doubleElapsed = internalDistance.toDouble()
-                val targetPos = GeoMathUtils.getInterpolatedPoint(doubleElapsed, rawPath, cumulativeDistances)
+                val targetPos = targetCursor.pointAt(doubleElapsed)
                 val lookaheadSpeed =
                     if (abs(cfg.baseSpeedMps) < 1f) 150.0 else abs(cfg.baseSpeedMps).toDouble()
                 val lookaheadDist = doubleElapsed + (lookaheadSpeed * lookaheadSeconds)
-                val lookaheadPos = GeoMathUtils.getInterpolatedPoint(lookaheadDist, rawPath, cumulativeDistances)
+                val lookaheadPos = lookaheadCursor.pointAt(lookaheadDist)
                 val mathHeading = calculateHeading(targetPos, lookaheadPos).toFloat()
 
                 currentLat += (targetPos.latitude - currentLat) * lerpFactor
@@ -45,3 +45,56 @@ object GeoMathUtils {
         return current + dh * factor
     }
 }
+
+/**
+ * Stateful version of [GeoMathUtils.getInterpolatedPoint] for a distance that moves a little every
+ * frame. It resumes from the segment of the previous call and walks from there, so playback costs
+ * O(1) per frame; jumps of more than a few segments (seeks, scrubs) fall back to a binary search.
+ * Use one cursor per moving distance, e.g. one for the target and one for the look-ahead point.
+ */
+class RouteCursor(
+    private val path: List<LatLng>,
+    private val cumulativeDistances: DoubleArray,
+) {
+    private var segment = 0
+
+    fun pointAt(distance: Double): LatLng {
+        if (distance <= 0.0) return path.first()
+        if (distance >= cumulativeDistances.last()) return path.last()
+
+        val last = cumulativeDistances.size - 2
+        var idx = segment
+        var steps = 0
+        while (idx < last && cumulativeDistances[idx + 1] <= distance && steps <= MAX_WALK) {
+            idx++
+            steps++
+        }
+        while (idx > 0 && cumulativeDistances[idx] > distance && steps <= MAX_WALK) {
+            idx--
+            steps++
+        }
+        if (steps > MAX_WALK) {
+            idx = cumulativeDistances.binarySearch(distance)
+            if (idx < 0) idx = -(idx + 1) - 1
+            idx = idx.coerceIn(0, last)
+        }
+        segment = idx
+
+        val p1 = path[idx]
+        val p2 = path[idx + 1]
+        val d1 = cumulativeDistances[idx]
+        val d2 = cumulativeDistances[idx + 1]
+
+        val fraction = (distance - d1) / (d2 - d1)
+        if (fraction <= 0.0) return p1
+        if (fraction >= 1.0) return p2
+
+        val lat = p1.latitude + (p2.latitude - p1.latitude) * fraction
+        val lng = p1.longitude + (p2.longitude - p1.longitude) * fraction
+        return LatLng(lat, lng)
+    }
+
+    private companion object {
+        const val MAX_WALK = 16
+    }
+}
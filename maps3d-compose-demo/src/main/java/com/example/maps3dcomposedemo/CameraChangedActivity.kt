@@ -40,7 +40,7 @@ import com.google.android.gms.maps3d.model.Map3DMode
 import com.google.android.gms.maps3d.model.camera
 import com.google.android.gms.maps3d.model.latLngAltitude
 import com.google.maps.android.compose3d.GoogleMap3D
-import kotlinx.coroutines.flow.MutableStateFlow
+import com.google.maps.android.compose3d.rememberCameraState
 
 class CameraChangedActivity : ComponentActivity() {
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -76,18 +76,16 @@ fun CameraChangedScreen() {
         }
     }
 
-    // Use a flow to hold the camera state, as requested
-    val cameraFlow = remember { MutableStateFlow(initialCamera) }
-    val currentCamera by cameraFlow.collectAsState()
+    // The overlays only recompose for meaningful camera changes, not on every native frame
+    val cameraState = rememberCameraState(initialCamera)
+    val currentCamera by cameraState.camera.collectAsState()
 
     Box(modifier = Modifier.fillMaxSize()) {
         GoogleMap3D(
             camera = initialCamera,
             mapMode = Map3DMode.HYBRID,
             modifier = Modifier.fillMaxSize(),
-            onCameraChanged = { camera ->
-                cameraFlow.value = camera
-            },
+            cameraState = cameraState,
         )
 
         val heading = currentCamera.heading?.toFloat() ?: 0f
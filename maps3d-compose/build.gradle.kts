@@ -51,11 +51,27 @@ android {
     buildFeatures {
         compose = true
     }
+    testOptions {
+        unitTests.all {
+            // Host micro-benchmarks are opt-in: ./gradlew :maps3d-compose:testDebugUnitTest -Pbenchmarks
+            val benchmarks = providers.gradleProperty("benchmarks").isPresent
+            if (benchmarks) {
+                it.filter.includeTestsMatching("com.google.maps.android.compose3d.benchmark.*")
+                it.testLogging.showStandardStreams = true
+                it.outputs.upToDateWhen { false }
+            } else {
+                it.exclude("**/benchmark/**")
+            }
+        }
+    }
 }
 
 dependencies {
     implementation(libs.androidx.core.ktx)
     implementation(libs.androidx.lifecycle.runtime.ktx)
+    implementation(libs.androidx.lifecycle.runtime.compose)
+    implementation(libs.androidx.lifecycle.viewmodel.compose)
+    implementation(libs.androidx.tracing.ktx)
     
     // Compose
     implementation(platform(libs.androidx.compose.bom))
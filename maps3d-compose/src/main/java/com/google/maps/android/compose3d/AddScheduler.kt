@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlin.math.abs
+import kotlin.math.cos
+
+/**
+ * Limits how much of each frame is spent adding new objects to the map.
+ *
+ * Only brand-new keys are budgeted. Removals, in-place updates, re-adds of changed objects and
+ * the camera are applied in full every frame, so they never wait behind a backlog of adds.
+ *
+ * @property frameBudgetMillis Time per frame after which no further adds are started.
+ * @property minAddsPerFrame Adds made every frame regardless of the budget, so a backlog always
+ * drains even when the rest of the frame is slow.
+ */
+data class AddBudget(
+    val frameBudgetMillis: Double = 4.0,
+    val minAddsPerFrame: Int = 1,
+) {
+    init {
+        require(frameBudgetMillis >= 0.0) { "frameBudgetMillis must not be negative" }
+        require(minAddsPerFrame >= 1) { "minAddsPerFrame must be at least 1" }
+    }
+}
+
+/**
+ * Progress of adding objects under an [AddBudget].
+ *
+ * @property pending New objects still waiting for a later frame.
+ * @property added New objects added since the backlog was last empty.
+ */
+data class LoadProgress(
+    val pending: Int = 0,
+    val added: Int = 0,
+) {
+    /**
+     * True while some objects have not been added yet.
+     */
+    val isLoading: Boolean
+        get() = pending > 0
+
+    /**
+     * Share of the current load that is on the map, from 0 to 1; 1 when nothing is loading.
+     */
+    val fraction: Float
+        get() = if (pending == 0) 1f else added.toFloat() / (added + pending)
+}
+
+/**
+ * Hands out the per-frame add budget to the reconcilers of a [Map3DState].
+ *
+ * The frame loop calls [beginFrame] with the camera center, the reconcilers ask [admit] before
+ * each add, in order of [distanceSquared] from that center, and report what they could not add
+ * through [defer]. [endFrame] publishes [progress] and tells the loop whether another frame is
+ * needed. With no [budget], reconcilers add everything inline and never consult the scheduler.
+ *
+ * Main thread only, except for reading [progress].
+ *
+ * @param clock Monotonic time in nanoseconds; replaceable in tests.
+ */
+internal class AddScheduler(
+    private val clock: () -> Long = System::nanoTime,
+) {
+    private val _progress = MutableStateFlow(LoadProgress())
+    private var deadline = Long.MAX_VALUE
+    private var addsThisFrame = 0
+    private var pendingThisFrame = 0
+    private var addedThisLoad = 0
+    private var originLatitude = 0.0
+    private var originLongitude = 0.0
+    private var longitudeScale = 1.0
+
+    /**
+     * The active budget, or null to add everything as soon as it is synced.
+     */
+    var budget: AddBudget? = null
+        set(value) {
+            field = value
+            if (value == null) reset()
+        }
+
+    /**
+     * The latest [LoadProgress]. Updated at most once per frame.
+     */
+    val progress: StateFlow<LoadProgress> = _progress.asStateFlow()
+
+    /**
+     * Starts a frame's budget and centers the add order on [origin], when known.
+     */
+    fun beginFrame(origin: LatLngAltitude?) {
+        val budget = budget
+        deadline = if (budget == null) Long.MAX_VALUE else clock() + (budget.frameBudgetMillis * 1e6).toLong()
+        addsThisFrame = 0
+        pendingThisFrame = 0
+        if (origin != null) {
+            originLatitude = origin.latitude
+            originLongitude = origin.longitude
+            longitudeScale = cos(Math.toRadians(origin.latitude))
+        }
+    }
+
+    /**
+     * Squared equirectangular distance, in degrees, from the frame's origin. Only used to order
+     * adds, so the projection error away from the origin does not matter.
+     */
+    fun distanceSquared(position: LatLngAltitude): Double {
+        val dLatitude = position.latitude - originLatitude
+        var dLongitude = abs(position.longitude - originLongitude)
+        if (dLongitude > 180.0) dLongitude = 360.0 - dLongitude
+        dLongitude *= longitudeScale
+        return dLatitude * dLatitude + dLongitude * dLongitude
+    }
+
+    /**
+     * Returns true, and counts the add, if one more add fits in this frame.
+     */
+    fun admit(): Boolean {
+        val budget = budget ?: return true
+        if (addsThisFrame >= budget.minAddsPerFrame && clock() >= deadline) return false
+        addsThisFrame++
+        return true
+    }
+
+    /**
+     * Records [count] adds that were pushed to a later frame.
+     */
+    fun defer(count: Int) {
+        pendingThisFrame += count
+    }
+
+    /**
+     * Publishes this frame's progress.
+     *
+     * @return True if adds are still pending and the caller should schedule another frame.
+     */
+    fun endFrame(): Boolean {
+        if (budget == null) return false
+        val wasLoading = _progress.value.isLoading
+        if (addsThisFrame == 0 && pendingThisFrame == 0 && !wasLoading) return false
+        addedThisLoad += addsThisFrame
+        _progress.value = LoadProgress(pending = pendingThisFrame, added = addedThisLoad)
+        if (pendingThisFrame == 0) addedThisLoad = 0
+        return pendingThisFrame > 0
+    }
+
+    /**
+     * Forgets the current load, e.g. after every object was removed.
+     */
+    fun reset() {
+        addsThisFrame = 0
+        pendingThisFrame = 0
+        addedThisLoad = 0
+        _progress.value = LoadProgress()
+    }
+}
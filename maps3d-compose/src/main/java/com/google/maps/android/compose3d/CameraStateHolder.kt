@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.DisposableEffect
+import androidx.compose.runtime.remember
+import com.google.android.gms.maps3d.model.Camera
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * Filter applied by [CameraStateHolder] to the raw per-frame camera callback.
+ *
+ * @property epsilon Changes within these tolerances of the last emitted camera are dropped. The
+ * defaults are coarser than [CameraEpsilon]'s, which is tuned for deciding whether to call the
+ * SDK, not for driving UI.
+ * @property minIntervalMillis Minimum time between two emissions. A change that arrives sooner is
+ * held and emitted once the interval has passed, so the latest camera is never lost.
+ * @property settleAfterMillis How long the camera must stay quiet before [CameraStateHolder.isSettled]
+ * becomes true. The exact resting camera is emitted at that point even if it is within [epsilon].
+ */
+data class CameraFilter(
+    val epsilon: CameraEpsilon = CameraEpsilon(
+        degrees = 1e-6,
+        altitudeMeters = 0.5,
+        headingDegrees = 0.1,
+        tiltDegrees = 0.1,
+        rollDegrees = 0.1,
+        rangeMeters = 0.5,
+    ),
+    val minIntervalMillis: Long = 33,
+    val settleAfterMillis: Long = 300,
+)
+
+/**
+ * Turns the SDK's per-frame camera callback into a conflated, thresholded [StateFlow].
+ *
+ * Pass the holder to `GoogleMap3D(cameraState = ...)` and collect [camera] for overlays, or
+ * [isSettled] for work that should only run once the user stops moving the map. The unfiltered
+ * callback stays available through `GoogleMap3D(onCameraChanged = ...)`.
+ *
+ * [onCameraChanged] may be called from any thread. Deferred emissions run on the main thread.
+ *
+ * @param initialCamera The camera to emit before the first callback.
+ * @param filter Emission thresholds.
+ */
+class CameraStateHolder(
+    initialCamera: Camera,
+    val filter: CameraFilter = CameraFilter(),
+) {
+    private val handler = Handler(Looper.getMainLooper())
+    private val lock = Any()
+    private val emitted = MutableStateFlow(initialCamera)
+    private val settled = MutableStateFlow(true)
+
+    private var latest: Camera = initialCamera
+    private var lastEmitMillis = Long.MIN_VALUE / 2
+    private var trailingPosted = false
+
+    private val emitTrailing = Runnable {
+        synchronized(lock) {
+            trailingPosted = false
+            emitIfMeaningful(SystemClock.uptimeMillis())
+        }
+    }
+
+    private val settle = Runnable {
+        synchronized(lock) {
+            if (latest !== emitted.value) emit(SystemClock.uptimeMillis())
+            settled.value = true
+        }
+    }
+
+    /**
+     * The last meaningful camera.
+     */
+    val camera: StateFlow<Camera> = emitted.asStateFlow()
+
+    /**
+     * True once the camera has been quiet for [CameraFilter.settleAfterMillis].
+     */
+    val isSettled: StateFlow<Boolean> = settled.asStateFlow()
+
+    /**
+     * Raw callbacks received.
+     */
+    @Volatile
+    var received: Long = 0
+        private set
+
+    /**
+     * Cameras emitted on [camera].
+     */
+    @Volatile
+    var emissions: Long = 0
+        private set
+
+    /**
+     * Feeds one raw camera callback.
+     */
+    fun onCameraChanged(camera: Camera) {
+        synchronized(lock) {
+            latest = camera
+            received++
+            settled.value = false
+            handler.removeCallbacks(settle)
+            handler.postDelayed(settle, filter.settleAfterMillis)
+
+            val now = SystemClock.uptimeMillis()
+            if (now - lastEmitMillis >= filter.minIntervalMillis) {
+                emitIfMeaningful(now)
+            } else if (!trailingPosted) {
+                trailingPosted = true
+                handler.postAtTime(emitTrailing, lastEmitMillis + filter.minIntervalMillis)
+            }
+        }
+    }
+
+    /**
+     * Cancels pending deferred emissions.
+     */
+    fun dispose() {
+        handler.removeCallbacks(settle)
+        handler.removeCallbacks(emitTrailing)
+        synchronized(lock) { trailingPosted = false }
+    }
+
+    private fun emitIfMeaningful(now: Long) {
+        if (!filter.epsilon.isSame(emitted.value, latest)) emit(now)
+    }
+
+    private fun emit(now: Long) {
+        emitted.value = latest
+        lastEmitMillis = now
+        emissions++
+    }
+}
+
+/**
+ * Remembers a [CameraStateHolder] for the lifetime of the composition.
+ *
+ * @param initialCamera The camera to emit before the first callback.
+ * @param filter Emission thresholds. Changing it creates a new holder.
+ */
+@Composable
+fun rememberCameraState(initialCamera: Camera, filter: CameraFilter = CameraFilter()): CameraStateHolder {
+    val holder = remember(filter) { CameraStateHolder(initialCamera, filter) }
+    DisposableEffect(holder) {
+        onDispose { holder.dispose() }
+    }
+    return holder
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+/**
+ * Key-indexed store of click handlers for one object type.
+ *
+ * Click lambdas are not part of config identity, so a caller that writes `onClick = { ... }`
+ * inline does not cause a native re-add on every recomposition. Instead, the newest lambda for a
+ * key is stored here, and the native listener attached to the SDK object looks it up by key at
+ * click time. The native listener is attached once per SDK object and only when a handler exists.
+ *
+ * The registry also remembers which SDK object currently backs each key. Clicks arrive through a
+ * [ClickQueue], possibly after the object was removed or replaced; [dispatch] drops those. All
+ * methods must be called on the main thread.
+ *
+ * @param T The SDK object type passed to the handler, e.g. [com.google.android.gms.maps3d.model.Marker].
+ */
+internal class ClickHandlerRegistry<T : Any> {
+    private val handlers = HashMap<String, (T) -> Unit>()
+    private val attached = HashMap<String, T>()
+
+    /**
+     * Records [handler] as the current handler for [key], whose SDK object is [target].
+     *
+     * @return True if the caller must attach a native listener to [target], i.e. a handler is
+     * present and no listener has been attached to that object yet.
+     */
+    fun bind(key: String, target: T, handler: ((T) -> Unit)?): Boolean {
+        if (handler == null) {
+            handlers.remove(key)
+            return false
+        }
+        handlers[key] = handler
+        if (attached[key] === target) return false
+        attached[key] = target
+        return true
+    }
+
+    /**
+     * Invokes the current handler for [key] if [target] is still the object tracked for it.
+     *
+     * @return True if a handler ran.
+     */
+    fun dispatch(key: String, target: T): Boolean {
+        if (attached[key] !== target) return false
+        val handler = handlers[key] ?: return false
+        handler(target)
+        return true
+    }
+
+    /**
+     * Forgets the object attached for [key]. Call this when the SDK object for [key] is
+     * replaced, since the new object starts without a listener.
+     */
+    fun detach(key: String) {
+        attached.remove(key)
+    }
+
+    /**
+     * Drops the handler and listener bookkeeping for [key].
+     */
+    fun remove(key: String) {
+        handlers.remove(key)
+        attached.remove(key)
+    }
+
+    /**
+     * Drops all handlers.
+     */
+    fun clear() {
+        handlers.clear()
+        attached.clear()
+    }
+}
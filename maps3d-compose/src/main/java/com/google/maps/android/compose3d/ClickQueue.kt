@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.os.Handler
+import android.os.Looper
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Hands SDK click events from whatever thread they fire on to the main thread.
+ *
+ * Listeners only [enqueue], which is lock-free and never touches [ClickHandlerRegistry]. At most
+ * one drain message is pending on the main thread at a time, so a burst of clicks costs one
+ * message, and the drain looks up each handler by key and object identity there. Clicks are
+ * delivered in the order they were enqueued; none are dropped or merged.
+ *
+ * @param post Schedules the drain on the main thread; replaceable in tests.
+ */
+internal class ClickQueue(
+    private val post: (Runnable) -> Unit = Handler(Looper.getMainLooper())::post,
+) {
+    private class Pending<T : Any>(
+        val registry: ClickHandlerRegistry<T>,
+        val key: String,
+        val target: T,
+    ) {
+        fun dispatch(): Boolean = registry.dispatch(key, target)
+    }
+
+    private val queue = ConcurrentLinkedQueue<Pending<*>>()
+    private val drainPosted = AtomicBoolean(false)
+    private val drainRunnable = Runnable { drain() }
+    private val enqueuedCount = AtomicLong()
+    private var dispatchedCount = 0L
+    private var staleCount = 0L
+
+    /**
+     * Clicks accepted so far. Safe to read from any thread.
+     */
+    val enqueued: Long
+        get() = enqueuedCount.get()
+
+    /**
+     * Clicks that reached a handler. Main thread only.
+     */
+    val dispatched: Long
+        get() = dispatchedCount
+
+    /**
+     * Clicks dropped because their object was removed or replaced, or had no handler, by the time
+     * the queue drained. Main thread only.
+     */
+    val stale: Long
+        get() = staleCount
+
+    /**
+     * Queues a click on [target], the object tracked for [key] in [registry]. Safe to call from
+     * any thread.
+     */
+    fun <T : Any> enqueue(registry: ClickHandlerRegistry<T>, key: String, target: T) {
+        queue.add(Pending(registry, key, target))
+        enqueuedCount.incrementAndGet()
+        if (drainPosted.compareAndSet(false, true)) post(drainRunnable)
+    }
+
+    /**
+     * Dispatches every queued click. Must be called on the main thread.
+     */
+    fun drain() {
+        // Reset before polling: a click enqueued after this point posts a new drain, and every
+        // click enqueued before it is polled below.
+        drainPosted.set(false)
+        while (true) {
+            val pending = queue.poll() ?: break
+            if (pending.dispatch()) dispatchedCount++ else staleCount++
+        }
+    }
+
+    /**
+     * Drops every queued click.
+     */
+    fun clear() {
+        queue.clear()
+    }
+}
@@ -16,7 +16,7 @@
 
 package com.google.maps.android.compose3d
 
-import androidx.annotation.WorkerThread
+import androidx.annotation.MainThread
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.Immutable
 import com.google.android.gms.maps3d.model.AltitudeMode
@@ -51,6 +51,11 @@ data class PinConfig(
 
 /**
  * Data class representing a Marker to be added to the 3D map.
+ *
+ * [onClick] is deliberately excluded from [equals] and [hashCode]. An inline lambda is a new
+ * instance on every recomposition; if it took part in equality, every recomposition would
+ * re-add the marker to the native map. The newest lambda is kept in a key-indexed registry
+ * instead, so only visual properties cause the SDK object to be re-issued.
  */
 @Immutable
 data class MarkerConfig(
@@ -65,10 +70,49 @@ data class MarkerConfig(
     val collisionBehavior: Int = CollisionBehavior.REQUIRED,
     val pinConfig: PinConfig? = null,
     val onClick: ((Marker) -> Unit)? = null,
-)
+) {
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is MarkerConfig) return false
+        return key == other.key &&
+            position == other.position &&
+            altitudeMode == other.altitudeMode &&
+            styleView == other.styleView &&
+            label == other.label &&
+            zIndex == other.zIndex &&
+            isExtruded == other.isExtruded &&
+            isDrawnWhenOccluded == other.isDrawnWhenOccluded &&
+            collisionBehavior == other.collisionBehavior &&
+            pinConfig == other.pinConfig
+    }
+
+    override fun hashCode(): Int {
+        var result = key.hashCode()
+        result = 31 * result + position.hashCode()
+        result = 31 * result + altitudeMode
+        result = 31 * result + (styleView?.hashCode() ?: 0)
+        result = 31 * result + label.hashCode()
+        result = 31 * result + zIndex
+        result = 31 * result + isExtruded.hashCode()
+        result = 31 * result + isDrawnWhenOccluded.hashCode()
+        result = 31 * result + collisionBehavior
+        result = 31 * result + (pinConfig?.hashCode() ?: 0)
+        return result
+    }
+}
 
 /**
  * Data class representing a Polyline to be added to the 3D map.
+ *
+ * [points] is treated as immutable. Its content hash is computed once on first use and carried
+ * by the config. [equals] only uses it once both configs have it cached, to rule out different
+ * paths without a walk; otherwise it compares the lists directly, so equal paths cost one walk.
+ *
+ * [onClick] is not part of equality; see [MarkerConfig]. Like every click handler it runs on the
+ * main thread, whichever thread the SDK reports the click on.
+ *
+ * When [lod] is set, `GoogleMap3D` sends a simplified copy of [points] chosen from the camera
+ * range instead of the full path; see [PolylineLod].
  */
 @Immutable
 data class PolylineConfig(
@@ -81,12 +125,56 @@ data class PolylineConfig(
     val outerColor: Int = 0,
     val outerWidth: Float = 0f,
     val drawsOccludedSegments: Boolean = false,
-    @get:WorkerThread
+    @get:MainThread
     val onClick: ((Polyline) -> Unit)? = null,
-)
+    val lod: PolylineLod? = null,
+) {
+    /**
+     * 64-bit content hash of [points].
+     */
+    val pointsFingerprint: Long get() = pointsFingerprintCache.value
+
+    private val pointsFingerprintCache = lazy(LazyThreadSafetyMode.PUBLICATION) { points.contentFingerprint() }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is PolylineConfig) return false
+        return key == other.key &&
+            color == other.color &&
+            width == other.width &&
+            altitudeMode == other.altitudeMode &&
+            zIndex == other.zIndex &&
+            outerColor == other.outerColor &&
+            outerWidth == other.outerWidth &&
+            drawsOccludedSegments == other.drawsOccludedSegments &&
+            lod == other.lod &&
+            (points === other.points || (!fingerprintsDiffer(other) && points == other.points))
+    }
+
+    private fun fingerprintsDiffer(other: PolylineConfig): Boolean =
+        pointsFingerprintCache.isInitialized() && other.pointsFingerprintCache.isInitialized() &&
+            pointsFingerprint != other.pointsFingerprint
+
+    override fun hashCode(): Int {
+        var result = key.hashCode()
+        result = 31 * result + Fingerprint.fold(pointsFingerprint)
+        result = 31 * result + color
+        result = 31 * result + width.hashCode()
+        result = 31 * result + altitudeMode
+        result = 31 * result + zIndex
+        result = 31 * result + outerColor
+        result = 31 * result + outerWidth.hashCode()
+        result = 31 * result + drawsOccludedSegments.hashCode()
+        result = 31 * result + (lod?.hashCode() ?: 0)
+        return result
+    }
+}
 
 /**
  * Data class representing a Polygon to be added to the 3D map.
+ *
+ * Like [PolylineConfig], [path] and [innerPaths] are treated as immutable and share one
+ * precomputed content hash used for change detection. [onClick] is not part of equality.
  */
 @Immutable
 data class PolygonConfig(
@@ -98,7 +186,42 @@ data class PolygonConfig(
     val strokeWidth: Float,
     val altitudeMode: Int = AltitudeMode.CLAMP_TO_GROUND,
     val onClick: ((Polygon) -> Unit)? = null,
-)
+) {
+    /**
+     * 64-bit content hash of [path] and [innerPaths].
+     */
+    val pathFingerprint: Long get() = pathFingerprintCache.value
+
+    private val pathFingerprintCache = lazy(LazyThreadSafetyMode.PUBLICATION) { contentFingerprint(path, innerPaths) }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is PolygonConfig) return false
+        return key == other.key &&
+            fillColor == other.fillColor &&
+            strokeColor == other.strokeColor &&
+            strokeWidth == other.strokeWidth &&
+            altitudeMode == other.altitudeMode &&
+            (
+                (path === other.path && innerPaths === other.innerPaths) ||
+                    (!fingerprintsDiffer(other) && path == other.path && innerPaths == other.innerPaths)
+                )
+    }
+
+    private fun fingerprintsDiffer(other: PolygonConfig): Boolean =
+        pathFingerprintCache.isInitialized() && other.pathFingerprintCache.isInitialized() &&
+            pathFingerprint != other.pathFingerprint
+
+    override fun hashCode(): Int {
+        var result = key.hashCode()
+        result = 31 * result + Fingerprint.fold(pathFingerprint)
+        result = 31 * result + fillColor
+        result = 31 * result + strokeColor
+        result = 31 * result + strokeWidth.hashCode()
+        result = 31 * result + altitudeMode
+        return result
+    }
+}
 
 /**
  * Sealed class representing the scale of a 3D model.
@@ -110,6 +233,8 @@ sealed class ModelScale {
 
 /**
  * Data class representing a 3D Model to be added to the 3D map.
+ *
+ * [onClick] is not part of equality; see [MarkerConfig].
  */
 @Immutable
 data class ModelConfig(
@@ -122,10 +247,42 @@ data class ModelConfig(
     val tilt: Double = 0.0,
     val roll: Double = 0.0,
     val onClick: ((Model) -> Unit)? = null,
-)
+) {
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is ModelConfig) return false
+        return key == other.key &&
+            position == other.position &&
+            url == other.url &&
+            altitudeMode == other.altitudeMode &&
+            scale == other.scale &&
+            heading == other.heading &&
+            tilt == other.tilt &&
+            roll == other.roll
+    }
+
+    override fun hashCode(): Int {
+        var result = key.hashCode()
+        result = 31 * result + position.hashCode()
+        result = 31 * result + url.hashCode()
+        result = 31 * result + altitudeMode
+        result = 31 * result + scale.hashCode()
+        result = 31 * result + heading.hashCode()
+        result = 31 * result + tilt.hashCode()
+        result = 31 * result + roll.hashCode()
+        return result
+    }
+}
 
 /**
  * Data class representing a Popover to be added to the 3D map.
+ *
+ * [content] is not part of equality. A new content lambda is swapped into the existing popover's
+ * composition rather than rebuilding the popover and its `ComposeView`.
+ *
+ * [contentType] works like `contentType` in lazy lists: when a popover is recreated, its
+ * `ComposeView` and composition are recycled from popovers with the same type, so give popovers
+ * whose content has the same structure the same type.
  */
 @Immutable
 data class PopoverConfig(
@@ -135,4 +292,26 @@ data class PopoverConfig(
     val altitudeMode: Int = AltitudeMode.CLAMP_TO_GROUND,
     val autoCloseEnabled: Boolean = true,
     val autoPanEnabled: Boolean = true,
-)
+    val contentType: Any? = null,
+) {
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is PopoverConfig) return false
+        return key == other.key &&
+            positionAnchorKey == other.positionAnchorKey &&
+            altitudeMode == other.altitudeMode &&
+            autoCloseEnabled == other.autoCloseEnabled &&
+            autoPanEnabled == other.autoPanEnabled &&
+            contentType == other.contentType
+    }
+
+    override fun hashCode(): Int {
+        var result = key.hashCode()
+        result = 31 * result + positionAnchorKey.hashCode()
+        result = 31 * result + altitudeMode
+        result = 31 * result + autoCloseEnabled.hashCode()
+        result = 31 * result + autoPanEnabled.hashCode()
+        result = 31 * result + (contentType?.hashCode() ?: 0)
+        return result
+    }
+}
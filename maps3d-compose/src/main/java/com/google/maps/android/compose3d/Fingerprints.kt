@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.LatLngAltitude
+
+/**
+ * 64-bit FNV-1a style hashing shared by the config fingerprints and the reconciler.
+ */
+internal object Fingerprint {
+    const val SEED = -0x340d631b7bdddcdbL
+    private const val PRIME = 0x100000001b3L
+
+    fun mix(hash: Long, value: Long): Long = (hash xor value) * PRIME
+
+    fun mix(hash: Long, value: Double): Long = mix(hash, value.toRawBits())
+
+    /**
+     * Folds a 64-bit hash into an [Int] suitable for [Any.hashCode].
+     */
+    fun fold(hash: Long): Int = (hash xor (hash ushr 32)).toInt()
+}
+
+/**
+ * Computes a 64-bit content hash over every vertex of this path.
+ *
+ * Two paths with the same vertices in the same order always produce the same value. Different
+ * paths collide with negligible probability, so configs can compare fingerprints first and only
+ * fall back to a full vertex walk when the fingerprints match.
+ */
+fun List<LatLngAltitude>.contentFingerprint(): Long = Fingerprint.mixPath(Fingerprint.SEED, this)
+
+/**
+ * Computes a combined content hash over an outer path and its holes, as used by [PolygonConfig].
+ */
+fun contentFingerprint(path: List<LatLngAltitude>, innerPaths: List<List<LatLngAltitude>>): Long {
+    var hash = Fingerprint.mixPath(Fingerprint.SEED, path)
+    for (i in innerPaths.indices) {
+        hash = Fingerprint.mixPath(hash, innerPaths[i])
+    }
+    return hash
+}
+
+private fun Fingerprint.mixPath(seed: Long, path: List<LatLngAltitude>): Long {
+    var hash = mix(seed, path.size.toLong())
+    for (i in path.indices) {
+        val point = path[i]
+        hash = mix(hash, point.latitude)
+        hash = mix(hash, point.longitude)
+        hash = mix(hash, point.altitude)
+    }
+    return hash
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.view.Choreographer
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.remember
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.utils.DEFAULT_ROLL
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.RouteCursor
+import com.google.maps.android.compose3d.utils.RouteProfile
+import com.google.maps.android.compose3d.utils.calculateHeading
+import com.google.maps.android.compose3d.utils.haversineDistance
+import com.google.maps.android.compose3d.utils.headingRange
+import com.google.maps.android.compose3d.utils.latitudeRange
+import com.google.maps.android.compose3d.utils.longitudeRange
+import com.google.maps.android.compose3d.utils.rangeRange
+import com.google.maps.android.compose3d.utils.tiltRange
+import com.google.maps.android.compose3d.utils.toPackedPath
+import com.google.maps.android.compose3d.utils.wrapIn
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlin.math.abs
+import kotlin.math.pow
+
+/**
+ * Framing and smoothing for a [FollowCameraController].
+ *
+ * Smoothing factors are the fraction of the remaining distance to the target covered per 60 Hz
+ * frame; they are scaled by the real frame time, so the feel does not change with the refresh
+ * rate. 1 disables smoothing.
+ *
+ * @property range Camera range in meters.
+ * @property tilt Camera tilt in degrees.
+ * @property headingOffset Added to the direction of travel, e.g. 180 to look back at the target.
+ * @property positionSmoothing Smoothing of the camera center.
+ * @property headingSmoothing Smoothing of the heading, which always turns the short way round.
+ * @property lookaheadMeters For route targets without a [RouteProfile], how far ahead along the
+ * route the heading aims.
+ * @property minMoveMeters For map object targets, the minimum movement between two frames for
+ * the direction of travel to be updated; smaller moves are treated as jitter.
+ * @property progressIntervalMillis Minimum time between two [FollowCameraController.progress]
+ * updates while playing.
+ */
+data class FollowCameraOptions(
+    val range: Double = 1500.0,
+    val tilt: Double = 65.0,
+    val headingOffset: Double = 0.0,
+    val positionSmoothing: Double = 0.05,
+    val headingSmoothing: Double = 0.05,
+    val lookaheadMeters: Double = 1200.0,
+    val minMoveMeters: Double = 0.5,
+    val progressIntervalMillis: Long = 250,
+) {
+    init {
+        require(positionSmoothing > 0.0 && positionSmoothing <= 1.0) { "positionSmoothing must be in (0, 1]" }
+        require(headingSmoothing > 0.0 && headingSmoothing <= 1.0) { "headingSmoothing must be in (0, 1]" }
+        require(progressIntervalMillis >= 0) { "progressIntervalMillis must not be negative" }
+    }
+}
+
+/**
+ * What a [FollowCameraController] keeps in frame.
+ */
+sealed interface FollowTarget {
+    /**
+     * Follows the marker or model with [key] as it is moved through `GoogleMap3D`'s lists or
+     * delta streams. The heading follows its direction of travel.
+     */
+    data class MapObject(val key: String) : FollowTarget
+
+    /**
+     * Travels along [path] at [speedMetersPerSecond] while the controller is playing. Negative
+     * speeds travel backwards.
+     *
+     * With a [profile], e.g. from [RouteProfile.build], the heading is interpolated from its
+     * precomputed channel instead of being computed every frame, and the profile's own look-ahead
+     * replaces [FollowCameraOptions.lookaheadMeters].
+     */
+    class Route(
+        val path: List<LatLng>,
+        val speedMetersPerSecond: Double,
+        val profile: RouteProfile? = null,
+    ) : FollowTarget {
+        /**
+         * Follows the route of a [profile], e.g. one read back from a cache.
+         */
+        constructor(profile: RouteProfile, speedMetersPerSecond: Double) :
+            this(profile.path.toLatLngList(), speedMetersPerSecond, profile)
+
+        init {
+            require(path.size >= 2) { "A route needs at least two points" }
+            require(profile == null || profile.path.size == path.size) { "The profile was built for a different path" }
+        }
+
+        internal val packed = profile?.path ?: path.toPackedPath()
+
+        /**
+         * Length of the route in meters.
+         */
+        val lengthMeters: Double
+            get() = packed.lengthMeters
+    }
+}
+
+/**
+ * Progress along a [FollowTarget.Route], published at a throttled rate.
+ *
+ * @property distanceMeters Distance traveled from the start of the route.
+ * @property lengthMeters Length of the route, or 0 when the target is not a route.
+ * @property isPlaying Whether the controller is advancing along the route.
+ */
+data class FollowProgress(
+    val distanceMeters: Double = 0.0,
+    val lengthMeters: Double = 0.0,
+    val isPlaying: Boolean = false,
+) {
+    /**
+     * Progress as a fraction in [0, 1].
+     */
+    val fraction: Double
+        get() = if (lengthMeters <= 0.0) 0.0 else (distanceMeters / lengthMeters).coerceIn(0.0, 1.0)
+}
+
+/**
+ * Drives the camera to follow a moving target, one native camera update per frame.
+ *
+ * The controller runs on its own frame callback, outside the composition: it reads the target,
+ * smooths the camera and calls `setCamera` directly, and never writes snapshot state. The UI sees
+ * [progress], a [StateFlow] that is only updated every [FollowCameraOptions.progressIntervalMillis]
+ * and on play state changes, so a screen showing a progress bar recomposes a few times a second
+ * rather than on every frame.
+ *
+ * Pass the controller to `GoogleMap3D(followCamera = ...)`; while it has a [target], the `camera`
+ * parameter of `GoogleMap3D` is not applied. Once a paused route or a still object is centered,
+ * the frame callback stops. It starts again when playback or the options change, or when the
+ * followed object is added, changed or removed on the map; an object that is not on the map yet
+ * is not polled for. A frame that moves the camera allocates only the `Camera` passed to
+ * `setCamera`; all other per-frame work reads and writes primitives. All methods must be called
+ * on the main thread.
+ *
+ * @param options Initial framing and smoothing.
+ * @param scheduler The frame clock.
+ */
+class FollowCameraController(
+    options: FollowCameraOptions = FollowCameraOptions(),
+    private val scheduler: FrameScheduler = ChoreographerFrameScheduler,
+) {
+    private var map: GoogleMap3D? = null
+    private var state: Map3DState? = null
+    private var scheduled = false
+    private val frameCallback = Choreographer.FrameCallback { frameTimeNanos -> onFrame(frameTimeNanos) }
+    private val objectsChanged: (ChangeSet) -> Unit = { changes ->
+        val key = (target as? FollowTarget.MapObject)?.key
+        if (key != null && (key in changes.changed || key in changes.added || key in changes.removed)) {
+            requestFrame()
+        }
+    }
+
+    private var lastFrameNanos = -1L
+    private var lastPublishNanos = Long.MIN_VALUE / 2
+    private var hasCamera = false
+    private var centerLatitude = 0.0
+    private var centerLongitude = 0.0
+    private var heading = 0.0
+    private var targetHeading = 0.0
+    private var hasLastTarget = false
+    private var lastTargetLatitude = 0.0
+    private var lastTargetLongitude = 0.0
+    private val targetPoint = MutableGeoPoint()
+    private val scratchPoint = MutableGeoPoint()
+    private var targetCursor: RouteCursor? = null
+    private var lookaheadCursor: RouteCursor? = null
+    private var hasApplied = false
+    private var appliedLatitude = 0.0
+    private var appliedLongitude = 0.0
+    private var appliedHeading = 0.0
+    private var appliedTilt = 0.0
+    private var appliedRange = 0.0
+    private val settleEpsilon = CameraEpsilon()
+
+    private val publishedProgress = MutableStateFlow(FollowProgress())
+
+    /**
+     * Framing and smoothing. Takes effect on the next frame.
+     */
+    var options: FollowCameraOptions = options
+        set(value) {
+            if (field == value) return
+            field = value
+            requestFrame()
+        }
+
+    /**
+     * The target to follow, or null to hand the camera back to `GoogleMap3D`.
+     */
+    var target: FollowTarget? = null
+        set(value) {
+            if (field == value) return
+            field = value
+            hasCamera = false
+            hasLastTarget = false
+            targetCursor = null
+            lookaheadCursor = null
+            lastFrameNanos = -1L
+            distanceMeters = 0.0
+            if (value == null) {
+                isPlaying = false
+                cancelFrame()
+            } else {
+                requestFrame()
+            }
+            publish()
+        }
+
+    /**
+     * Whether a [FollowTarget.Route] is advancing.
+     */
+    var isPlaying: Boolean = false
+        private set
+
+    /**
+     * Unthrottled distance along the current route. Reading it does not subscribe to anything.
+     */
+    var distanceMeters: Double = 0.0
+        private set
+
+    /**
+     * Throttled progress for the UI.
+     */
+    val progress: StateFlow<FollowProgress> = publishedProgress.asStateFlow()
+
+    /**
+     * Set while the host is stopped; no frames run and route playback holds its position.
+     */
+    internal var isPaused: Boolean = false
+        set(value) {
+            if (field == value) return
+            field = value
+            if (value) {
+                cancelFrame()
+                lastFrameNanos = -1L
+            } else {
+                requestFrame()
+            }
+        }
+
+    /**
+     * True while a target is set; `GoogleMap3D` leaves the camera alone in that case.
+     */
+    val isActive: Boolean
+        get() = target != null
+
+    /**
+     * Starts advancing along the route. Restarts from the beginning if the end was reached.
+     */
+    fun play() {
+        val route = target as? FollowTarget.Route ?: return
+        if (isPlaying) return
+        val atEnd = if (route.speedMetersPerSecond >= 0) distanceMeters >= route.lengthMeters else distanceMeters <= 0.0
+        if (atEnd) distanceMeters = if (route.speedMetersPerSecond >= 0) 0.0 else route.lengthMeters
+        isPlaying = true
+        publish()
+        requestFrame()
+    }
+
+    /**
+     * Stops advancing along the route; the camera keeps tracking the current position.
+     */
+    fun pause() {
+        if (!isPlaying) return
+        isPlaying = false
+        publish()
+    }
+
+    /**
+     * Jumps to [meters] along the route.
+     */
+    fun seekTo(meters: Double) {
+        val route = target as? FollowTarget.Route ?: return
+        distanceMeters = meters.coerceIn(0.0, route.lengthMeters)
+        publish()
+        requestFrame()
+    }
+
+    internal fun attach(map: GoogleMap3D, state: Map3DState) {
+        if (this.map === map && this.state === state) return
+        releaseState()
+        this.map = map
+        this.state = state
+        state.onObjectsChanged = objectsChanged
+        hasApplied = false
+        requestFrame()
+    }
+
+    internal fun detach() {
+        cancelFrame()
+        releaseState()
+        map = null
+        state = null
+        hasApplied = false
+    }
+
+    private fun releaseState() {
+        val state = state ?: return
+        if (state.onObjectsChanged === objectsChanged) state.onObjectsChanged = null
+    }
+
+    private fun requestFrame() {
+        if (!scheduled && !isPaused && map != null && target != null) {
+            scheduled = true
+            scheduler.postFrameCallback(frameCallback)
+        }
+    }
+
+    private fun cancelFrame() {
+        if (scheduled) {
+            scheduler.removeFrameCallback(frameCallback)
+            scheduled = false
+        }
+    }
+
+    private fun onFrame(frameTimeNanos: Long) {
+        scheduled = false
+        val map = map ?: return
+        val target = target ?: return
+        val dtSeconds = if (lastFrameNanos < 0) 0.0 else (frameTimeNanos - lastFrameNanos) / 1e9
+        lastFrameNanos = frameTimeNanos
+
+        val found = when (target) {
+            is FollowTarget.Route -> advance(target, dtSeconds, frameTimeNanos)
+            is FollowTarget.MapObject -> track(target)
+        }
+        if (!found) {
+            // The object is not on the map yet; adding it requests the next frame.
+            return
+        }
+        val position = targetPoint
+
+        val options = options
+        if (!hasCamera) {
+            centerLatitude = position.latitude
+            centerLongitude = position.longitude
+            heading = targetHeading
+            hasCamera = true
+        } else {
+            val frames = dtSeconds * 60.0
+            val a = smoothing(options.positionSmoothing, frames)
+            centerLatitude += (position.latitude - centerLatitude) * a
+            centerLongitude += (position.longitude - centerLongitude) * a
+            heading = slerpHeading(heading, targetHeading, smoothing(options.headingSmoothing, frames))
+        }
+
+        // Validated as toValidCamera would, but on primitives, so a frame that leaves the camera
+        // where it is allocates nothing. A frame that moves it still builds the Camera and its
+        // center, since setCamera takes them.
+        val frameLatitude = centerLatitude.coerceIn(latitudeRange.start, latitudeRange.endInclusive)
+        val frameLongitude = centerLongitude.coerceIn(longitudeRange.start, longitudeRange.endInclusive)
+        val frameHeading = (heading + options.headingOffset).wrapIn(headingRange.start, headingRange.endInclusive)
+        val frameTilt = options.tilt.coerceIn(tiltRange.start, tiltRange.endInclusive)
+        val frameRange = options.range.coerceIn(rangeRange.start, rangeRange.endInclusive)
+
+        val settled = hasApplied && isApplied(frameLatitude, frameLongitude, frameHeading, frameTilt, frameRange)
+        if (!settled) {
+            map.setCamera(
+                camera {
+                    center = latLngAltitude {
+                        latitude = frameLatitude
+                        longitude = frameLongitude
+                        altitude = 0.0
+                    }
+                    this.heading = frameHeading
+                    tilt = frameTilt
+                    roll = DEFAULT_ROLL
+                    range = frameRange
+                },
+            )
+            hasApplied = true
+            appliedLatitude = frameLatitude
+            appliedLongitude = frameLongitude
+            appliedHeading = frameHeading
+            appliedTilt = frameTilt
+            appliedRange = frameRange
+        }
+
+        // Without playback, frames are only needed until the camera has caught up; a moving
+        // object requests new ones through the state.
+        if (isPlaying || !settled) {
+            requestFrame()
+        } else {
+            // The next frame after a pause starts from a zero time step.
+            lastFrameNanos = -1L
+        }
+    }
+
+    /**
+     * True if the last camera set is within [settleEpsilon] of these values.
+     */
+    private fun isApplied(latitude: Double, longitude: Double, heading: Double, tilt: Double, range: Double): Boolean {
+        val epsilon = settleEpsilon
+        return abs(latitude - appliedLatitude) <= epsilon.degrees &&
+            abs(longitude - appliedLongitude) <= epsilon.degrees &&
+            angleDelta(heading, appliedHeading) <= epsilon.headingDegrees &&
+            abs(tilt - appliedTilt) <= epsilon.tiltDegrees &&
+            abs(range - appliedRange) <= epsilon.rangeMeters
+    }
+
+    /**
+     * Moves along the route and writes the new position into [targetPoint]. Allocation-free.
+     */
+    private fun advance(route: FollowTarget.Route, dtSeconds: Double, frameTimeNanos: Long): Boolean {
+        val length = route.lengthMeters
+        if (isPlaying) {
+            distanceMeters = (distanceMeters + route.speedMetersPerSecond * dtSeconds).coerceIn(0.0, length)
+            val finished = if (route.speedMetersPerSecond >= 0) distanceMeters >= length else distanceMeters <= 0.0
+            if (finished) isPlaying = false
+            if (finished || frameTimeNanos - lastPublishNanos >= options.progressIntervalMillis * 1_000_000L) {
+                lastPublishNanos = frameTimeNanos
+                publish()
+            }
+        }
+
+        val path = route.packed
+        var cursor = targetCursor
+        var lookahead = lookaheadCursor
+        if (cursor == null || lookahead == null || cursor.path !== path) {
+            // Both distances move steadily, so each keeps its own cursor.
+            cursor = RouteCursor(path).also { targetCursor = it }
+            lookahead = RouteCursor(path).also { lookaheadCursor = it }
+        }
+        cursor.moveTo(distanceMeters, targetPoint)
+        val direction = if (route.speedMetersPerSecond >= 0) 1.0 else -1.0
+        val profile = route.profile
+        if (profile != null) {
+            val heading = profile.headingAt(cursor.segmentIndex, distanceMeters)
+            targetHeading = if (direction > 0) heading else (heading + 180.0) % 360.0
+            return true
+        }
+        val ahead = (distanceMeters + direction * options.lookaheadMeters).coerceIn(0.0, length)
+        if (ahead != distanceMeters) {
+            lookahead.moveTo(ahead, scratchPoint)
+            targetHeading = calculateHeading(
+                targetPoint.latitude,
+                targetPoint.longitude,
+                scratchPoint.latitude,
+                scratchPoint.longitude,
+            )
+        }
+        return true
+    }
+
+    /**
+     * Writes the live position of the target object into [targetPoint].
+     *
+     * @return False if the object is not on the map.
+     */
+    private fun track(target: FollowTarget.MapObject): Boolean {
+        val live = state?.positionOf(target.key) ?: return false
+        targetPoint.latitude = live.latitude
+        targetPoint.longitude = live.longitude
+        if (!hasLastTarget) {
+            hasLastTarget = true
+        } else if (haversineDistance(lastTargetLatitude, lastTargetLongitude, live.latitude, live.longitude) < options.minMoveMeters) {
+            return true
+        } else {
+            targetHeading = calculateHeading(lastTargetLatitude, lastTargetLongitude, live.latitude, live.longitude)
+        }
+        lastTargetLatitude = live.latitude
+        lastTargetLongitude = live.longitude
+        return true
+    }
+
+    private fun publish() {
+        publishedProgress.value = FollowProgress(
+            distanceMeters = distanceMeters,
+            lengthMeters = (target as? FollowTarget.Route)?.lengthMeters ?: 0.0,
+            isPlaying = isPlaying,
+        )
+    }
+}
+
+/**
+ * Remembers a [FollowCameraController] for the lifetime of the composition.
+ */
+@Composable
+fun rememberFollowCameraController(
+    options: FollowCameraOptions = FollowCameraOptions(),
+): FollowCameraController {
+    val controller = remember { FollowCameraController(options) }
+    controller.options = options
+    return controller
+}
+
+private fun smoothing(perFrame: Double, frames: Double): Double =
+    if (perFrame >= 1.0) 1.0 else 1.0 - (1.0 - perFrame).pow(frames)
+
+private fun slerpHeading(current: Double, target: Double, factor: Double): Double {
+    var delta = (target - current) % 360.0
+    if (delta > 180.0) delta -= 360.0
+    if (delta <= -180.0) delta += 360.0
+    return current + delta * factor
+}
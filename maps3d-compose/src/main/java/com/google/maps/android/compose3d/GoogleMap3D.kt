@@ -16,13 +16,18 @@
 
 package com.google.maps.android.compose3d
 
+import android.view.View
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.DisposableEffect
+import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.produceState
 import androidx.compose.runtime.remember
 import androidx.compose.runtime.rememberUpdatedState
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.viewinterop.AndroidView
+import androidx.lifecycle.compose.LocalLifecycleOwner
 import com.google.android.gms.maps3d.GoogleMap3D
 import com.google.android.gms.maps3d.Map3DOptions
 import com.google.android.gms.maps3d.Map3DView
@@ -30,9 +35,10 @@ import com.google.android.gms.maps3d.OnMap3DViewReadyCallback
 import com.google.android.gms.maps3d.model.Camera
 import com.google.android.gms.maps3d.model.CameraRestriction
 import com.google.android.gms.maps3d.model.Map3DMode
-import com.google.maps.android.compose3d.utils.toValidCamera
-import com.google.maps.android.compose3d.utils.toValidCameraRestriction
 import com.google.android.gms.maps3d.model.LatLngAltitude
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.withContext
 
 /**
  * A declarative Compose wrapper for the Google Maps 3D SDK [Map3DView].
@@ -44,12 +50,26 @@ import com.google.android.gms.maps3d.model.LatLngAltitude
  * Literate Programming Note: Initialization in the Maps 3D SDK is tricky. We cannot rely solely
  * on `getMap3DViewAsync`. We must wait for `setOnMapReadyListener` to fire before adding any
  * content, otherwise additions might be ignored. Furthermore, this listener only fires ONCE
- * in the lifetime of the application. To handle this, we track readiness globally in
+ * for a given map instance. To handle this, we track readiness per instance in
  * [Map3DRegistry] and defer all state updates until we are certain the map is ready.
  *
+ * Updates are not applied directly from recomposition. Each pass hands the latest inputs to a
+ * [Map3DUpdateDispatcher], which applies them once per Choreographer frame and skips camera,
+ * restriction and mode calls whose values have not changed.
+ *
+ * Polyline and polygon options, whose cost grows with the vertex count, are validated and built
+ * on a background dispatcher first, as are the simplification levels of polylines with a
+ * [PolylineConfig.lod]. A new [polylines] or [polygons] list reaches the map once its
+ * options are ready; until then the previous list stays on screen.
+ *
+ * The map view follows [LocalLifecycleOwner]: it is started, resumed, paused and stopped with
+ * it and receives `onLowMemory`. While the owner is stopped, camera callbacks are dropped and
+ * updates are held back; the latest inputs are applied in one frame when it starts again.
+ *
  * @param camera The hoisted camera state to apply to the map.
  * @param markers The list of markers to display on the map.
- * @param polylines The list of polylines to display on the map.
+ * @param polylines The list of polylines to display on the map. Polylines with a
+ * [PolylineConfig.lod] are simplified for the current camera range.
  * @param polygons The list of polygons to display on the map.
  * @param models The list of 3D models to display on the map.
  * @param cameraRestriction The camera restriction to apply to the map.
@@ -57,6 +77,27 @@ import com.google.android.gms.maps3d.model.LatLngAltitude
  * @param modifier The modifier to apply to the layout.
  * @param options The options to initialize the [Map3DView] with.
  * @param onMapReady Optional callback invoked when the [GoogleMap3D] instance is ready.
+ * @param cameraEpsilon Per-field tolerances below which a new [camera] is not re-applied.
+ * @param markerVirtualization When non-null, only markers near the camera footprint are added to
+ * the native map; the rest are materialized incrementally as the camera moves.
+ * @param viewPool When non-null, the map view is taken from this pool if it has a prewarmed one
+ * (in which case [options] is ignored in favour of the pool's) and returned to it on disposal.
+ * @param markerUpdates When non-null, markers are driven by this stream of keyed delta batches
+ * and [markers] is ignored. The flow is collected off the main thread, and deltas for the same
+ * key are conflated until the next frame, so a slow main thread skips intermediate positions
+ * instead of queueing them.
+ * @param modelUpdates Like [markerUpdates], for models; [models] is ignored when set.
+ * @param cameraState When non-null, receives every camera callback and republishes only
+ * meaningful changes; see [CameraStateHolder]. [onCameraChanged] still sees every callback.
+ * @param followCamera When non-null and given a target, drives the camera to follow a marker,
+ * model or route on its own frame callback, and [camera] is not applied meanwhile.
+ * @param mapState Tracks the objects on the native map. Pass [rememberRetainedMap3DState] to keep
+ * them across configuration changes instead of removing and re-adding everything.
+ * @param addBudget When non-null, new markers, polylines, polygons and models are added a few
+ * milliseconds per frame, nearest to the camera first, instead of all in the first frame. Watch
+ * [Map3DState.loadProgress] on [mapState] to show loading state.
+ * @param metricsListener When non-null, receives the timings and SDK call counts of every frame
+ * applied to the map; see [FrameMetrics]. Leave null in production unless the numbers are used.
  */
 @Composable
 fun GoogleMap3D(
@@ -75,14 +116,79 @@ fun GoogleMap3D(
     onMapClick: ((LatLngAltitude) -> Unit)? = null,
     onPlaceClick: ((String) -> Unit)? = null,
     onCameraChanged: (Camera) -> Unit = {},
+    cameraEpsilon: CameraEpsilon = CameraEpsilon(),
+    markerVirtualization: MarkerVirtualization? = null,
+    viewPool: Map3DViewPool? = null,
+    markerUpdates: Flow<List<MapObjectDelta<MarkerConfig>>>? = null,
+    modelUpdates: Flow<List<MapObjectDelta<ModelConfig>>>? = null,
+    cameraState: CameraStateHolder? = null,
+    followCamera: FollowCameraController? = null,
+    mapState: Map3DState = remember { Map3DState() },
+    addBudget: AddBudget? = null,
+    metricsListener: Map3DMetricsListener? = null,
 ) {
-    val state = remember { Map3DState() }
+    val state = mapState
+    // A new state gets a new dispatcher; the old one stops applying frames to the old state.
+    val dispatcher = remember(state) { Map3DUpdateDispatcher(state) }
+    DisposableEffect(dispatcher) {
+        onDispose { dispatcher.cancel() }
+    }
+    dispatcher.cameraEpsilon = cameraEpsilon
+    dispatcher.markerVirtualization = markerVirtualization
+    dispatcher.streamMarkers = markerUpdates != null
+    dispatcher.streamModels = modelUpdates != null
+    dispatcher.followCamera = followCamera
+    dispatcher.addBudget = addBudget
+    dispatcher.metricsListener = metricsListener
+
+    val lifecycleOwner = LocalLifecycleOwner.current
+    val lifecycleBridge = remember { MapLifecycleBridge(dispatcher) }
+    lifecycleBridge.dispatcher = dispatcher
+    lifecycleBridge.followCamera = followCamera
+    DisposableEffect(lifecycleOwner) {
+        lifecycleOwner.lifecycle.addObserver(lifecycleBridge)
+        onDispose { lifecycleOwner.lifecycle.removeObserver(lifecycleBridge) }
+    }
+
+    LaunchedEffect(markerUpdates) {
+        val updates = markerUpdates ?: return@LaunchedEffect
+        withContext(Dispatchers.Default) { updates.collect { dispatcher.offerMarkerDeltas(it) } }
+    }
+    LaunchedEffect(modelUpdates) {
+        val updates = modelUpdates ?: return@LaunchedEffect
+        withContext(Dispatchers.Default) { updates.collect { dispatcher.offerModelDeltas(it) } }
+    }
     val hasCalledOnMapReady = remember { mutableStateOf(false) }
+
+    // Preparation is keyed on content, not on the list instance, so a list rebuilt during
+    // composition with equal content neither restarts nor cancels the work in flight.
+    val polylineContent = remember { ContentKey<PolylineConfig>() }.of(polylines)
+    val polygonContent = remember { ContentKey<PolygonConfig>() }.of(polygons)
+
+    // A retained state already holds these shapes; starting empty would remove them all.
+    val preparedPolylines by produceState(if (state.isRetained) polylineContent else emptyList(), polylineContent) {
+        state.optionsCache.preparePolylines(polylineContent)
+        value = polylineContent
+    }
+    val preparedPolygons by produceState(if (state.isRetained) polygonContent else emptyList(), polygonContent) {
+        state.optionsCache.preparePolygons(polygonContent)
+        value = polygonContent
+    }
+    // Once prepared, the caller's newest instance is passed on so fresh click handlers are bound.
+    val readyPolylines = if (preparedPolylines === polylineContent) polylines else preparedPolylines
+    val readyPolygons = if (preparedPolygons === polygonContent) polygons else preparedPolygons
     val googleMap3DState = remember { mutableStateOf<GoogleMap3D?>(null) }
 
     // Use rememberUpdatedState to avoid capturing stale lambdas in the async callback
+    val currentDispatcher by rememberUpdatedState(dispatcher)
+    val viewportListener = remember {
+        View.OnLayoutChangeListener { view, _, _, _, _, _, _, _, _ ->
+            currentDispatcher.onViewportSizeChanged(view.width, view.height)
+        }
+    }
     val currentOnMapSteady by rememberUpdatedState(onMapSteady)
     val currentOnCameraChanged by rememberUpdatedState(onCameraChanged)
+    val currentCameraState by rememberUpdatedState(cameraState)
     val currentOnMapReady by rememberUpdatedState(onMapReady)
     val currentOnMapClick by rememberUpdatedState(onMapClick)
     val currentOnPlaceClick by rememberUpdatedState(onPlaceClick)
@@ -90,8 +196,10 @@ fun GoogleMap3D(
     AndroidView(
         modifier = modifier,
         factory = { context ->
-            val map3dView = Map3DView(context, options)
-            map3dView.onCreate(null)
+            val map3dView = viewPool?.acquire(context)
+                ?: Map3DView(context, options).also { it.onCreate(null) }
+            lifecycleBridge.attachView(map3dView)
+            map3dView.addOnLayoutChangeListener(viewportListener)
 
             map3dView.getMap3DViewAsync(object : OnMap3DViewReadyCallback {
                 override fun onMap3DViewReady(googleMap3D: GoogleMap3D) {
@@ -105,6 +213,9 @@ fun GoogleMap3D(
                     }
 
                     googleMap3D.setCameraChangedListener { camera ->
+                        if (!lifecycleBridge.isStarted) return@setCameraChangedListener
+                        currentDispatcher.onCameraChanged(camera)
+                        currentCameraState?.onCameraChanged(camera)
                         currentOnCameraChanged(camera)
                     }
 
@@ -117,6 +228,8 @@ fun GoogleMap3D(
                                 currentOnMapClick?.invoke(location)
                             }
                         }
+                    } else {
+                        googleMap3D.setMap3DClickListener(null)
                     }
                 }
 
@@ -128,6 +241,7 @@ fun GoogleMap3D(
             map3dView
         },
         update = { map3dView ->
+            dispatcher.onViewportSizeChanged(map3dView.width, map3dView.height)
             val googleMap3D = googleMap3DState.value
             if (googleMap3D != null) {
                 fun applyUpdates() {
@@ -136,35 +250,69 @@ fun GoogleMap3D(
                         hasCalledOnMapReady.value = true
                     }
 
-                    // Sync hoisted state with the imperative map instance
-                    googleMap3D.setCamera(camera.toValidCamera())
-                    googleMap3D.setCameraRestriction(cameraRestriction.toValidCameraRestriction())
-                    googleMap3D.setMapMode(mapMode)
+                    followCamera?.attach(googleMap3D, state)
 
-                    state.syncMarkers(googleMap3D, markers)
-                    state.syncPolylines(googleMap3D, polylines)
-                    state.syncPolygons(googleMap3D, polygons)
-                    state.syncModels(googleMap3D, models)
-                    state.syncPopovers(map3dView.context, googleMap3D, popovers)
+                    // Sync hoisted state with the imperative map instance on the next frame
+                    dispatcher.submit(
+                        map = googleMap3D,
+                        context = map3dView.context,
+                        camera = camera,
+                        cameraRestriction = cameraRestriction,
+                        mapMode = mapMode,
+                        markers = markers,
+                        polylines = readyPolylines,
+                        polygons = readyPolygons,
+                        models = models,
+                        popovers = popovers,
+                    )
                 }
 
-                if (Map3DRegistry.isMapReady) {
-                    // Map was already ready (e.g. reused instance), apply updates immediately
-                    applyUpdates()
-                } else {
-                    // First time initialization, must wait for listener
-                    googleMap3D.setOnMapReadyListener {
-                        googleMap3D.setOnMapReadyListener(null) // Clear it immediately
-                        Map3DRegistry.markReady()
-                        applyUpdates()
-                    }
-                }
+                // Applies immediately if this map is already ready; otherwise waits for its
+                // listener. Re-registering with the same
+                // token replaces the pending action, so only the latest inputs are applied.
+                Map3DRegistry.whenReady(googleMap3D, state) { applyUpdates() }
             }
         },
         onRelease = { map3dView ->
-            state.clear()
+            dispatcher.cancel()
+            followCamera?.detach()
+            lifecycleBridge.detachView(map3dView)
+            map3dView.removeOnLayoutChangeListener(viewportListener)
+            // The listeners capture this screen's state and callbacks; a pooled view must not
+            // carry them to the next screen.
+            googleMap3DState.value?.let { googleMap3D ->
+                googleMap3D.clearScreenListeners()
+                Map3DRegistry.cancel(googleMap3D, state)
+            }
             Map3DRegistry.clearInstance()
-            map3dView.onDestroy()
+            if (state.isRetained && map3dView.context.isChangingConfigurations()) {
+                // The state outlives this view. Objects on a pooled view survive with it and are
+                // kept as they are; objects on a destroyed view are forgotten and re-added later.
+                if (viewPool?.recycle(map3dView) != true) {
+                    map3dView.onDestroy()
+                    state.onMapDestroyed()
+                }
+            } else {
+                state.clear()
+                if (viewPool?.recycle(map3dView) != true) {
+                    map3dView.onDestroy()
+                }
+            }
         },
     )
 }
+
+/**
+ * Returns the first list seen with the current content, so a new list instance that is equal to
+ * the previous one maps to the same key.
+ */
+private class ContentKey<T> {
+    private var current: List<T>? = null
+
+    fun of(list: List<T>): List<T> {
+        val previous = current
+        if (previous != null && (previous === list || previous == list)) return previous
+        current = list
+        return list
+    }
+}
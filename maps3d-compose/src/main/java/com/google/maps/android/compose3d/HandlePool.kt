@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+/**
+ * Native object recycling counters for one object type.
+ *
+ * @property retired Objects whose key went away and that were kept for reuse instead of removed.
+ * @property reused New keys that took over a retired object; each one is a native add avoided.
+ * @property removed Retired objects that no new key could use, removed at the end of their pass.
+ */
+data class HandlePoolStats(
+    val retired: Long = 0,
+    val reused: Long = 0,
+    val removed: Long = 0,
+)
+
+/**
+ * Bounded free-list of native objects retired by a [MapObjectReconciler] pass.
+ *
+ * When a pass removes one key and adds another, the retired object is handed to the new key
+ * through [reuse], which applies the new config to the live object in place, e.g. a marker with
+ * the same style moved to the new position, or a model with the same URL, whose asset therefore
+ * does not load again. A retired object is still on the map, so whatever was not reused by the
+ * end of the pass is removed by [flush]; the free-list never outlives a pass. At most [capacity]
+ * objects are retired per pass, the rest are removed right away. A capacity of 0 disables the
+ * pool.
+ *
+ * Must be used on the main thread.
+ *
+ * @param reuse Applies `config` to `handle`, which currently shows `previous`. Returns false,
+ * leaving the object untouched, if the two are not compatible.
+ * @param detach Drops per-key bookkeeping, such as click handlers, for a retired key.
+ * @param destroy Removes a retired object from the map.
+ */
+internal class HandlePool<C : Any, T : Any>(
+    private val reuse: (previous: C, config: C, handle: T) -> Boolean,
+    private val detach: (key: String) -> Unit,
+    private val destroy: (handle: T) -> Unit,
+) {
+    private class Retired<C, T>(val config: C, val handle: T)
+
+    private val retired = ArrayList<Retired<C, T>>()
+    private var retiredCount = 0L
+    private var reusedCount = 0L
+    private var removedCount = 0L
+
+    /**
+     * Most objects retired in a single pass; 0 disables recycling.
+     */
+    var capacity: Int = 0
+        set(value) {
+            require(value >= 0) { "capacity must not be negative" }
+            field = value
+        }
+
+    /**
+     * True when no retired object is waiting for reuse.
+     */
+    val isEmpty: Boolean
+        get() = retired.isEmpty()
+
+    /**
+     * Current counters.
+     */
+    val stats: HandlePoolStats
+        get() = HandlePoolStats(retiredCount, reusedCount, removedCount)
+
+    /**
+     * Keeps the object of [key] for reuse later in this pass.
+     *
+     * @return False if the pool is full and the caller must remove the object itself.
+     */
+    fun retire(key: String, config: C, handle: T): Boolean {
+        if (retired.size >= capacity) return false
+        detach(key)
+        retired += Retired(config, handle)
+        retiredCount++
+        return true
+    }
+
+    /**
+     * Returns a retired object now showing [config], or null if none is compatible.
+     */
+    fun acquire(config: C): T? {
+        for (i in retired.indices.reversed()) {
+            val candidate = retired[i]
+            if (reuse(candidate.config, config, candidate.handle)) {
+                retired.removeAt(i)
+                reusedCount++
+                return candidate.handle
+            }
+        }
+        return null
+    }
+
+    /**
+     * Removes every retired object that was not reused.
+     */
+    fun flush() {
+        if (retired.isEmpty()) return
+        retired.forEach { destroy(it.handle) }
+        removedCount += retired.size
+        retired.clear()
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+/**
+ * What syncing one object type cost in one frame.
+ *
+ * @property durationNanos Wall time spent in the sync, including the SDK calls it made.
+ * @property added Objects added for new keys, whether created or recycled.
+ * @property reAdded Changed objects that had to be issued to the map again.
+ * @property updatedInPlace Changed objects updated through setters on the live object.
+ * @property removed Objects removed from the map.
+ * @property skipped Input objects left untouched, because they were unchanged or their add was
+ * deferred to a later frame.
+ */
+data class SyncMetrics(
+    val durationNanos: Long = 0,
+    val added: Int = 0,
+    val reAdded: Int = 0,
+    val updatedInPlace: Int = 0,
+    val removed: Int = 0,
+    val skipped: Int = 0,
+)
+
+/**
+ * What one frame applied by `GoogleMap3D` cost.
+ *
+ * @property frameTimeNanos The Choreographer frame time the update was applied on.
+ * @property durationNanos Wall time of the whole update, camera included.
+ * @property coalescedUpdates Number of recompositions folded into this frame.
+ * @property cameraSets `setCamera` calls issued; 0 when the camera was unchanged or followed.
+ * @property popoverCompositionsCreated Popover `ComposeView`s created rather than recycled.
+ */
+data class FrameMetrics(
+    val frameTimeNanos: Long,
+    val durationNanos: Long,
+    val coalescedUpdates: Int,
+    val cameraSets: Int,
+    val markers: SyncMetrics,
+    val polylines: SyncMetrics,
+    val polygons: SyncMetrics,
+    val models: SyncMetrics,
+    val popovers: SyncMetrics,
+    val popoverCompositionsCreated: Int,
+)
+
+/**
+ * Receives a [FrameMetrics] on the main thread after every frame `GoogleMap3D` applies.
+ *
+ * Timings are only taken while a listener is installed; without one, the only instrumentation
+ * left is the `androidx.tracing` sections, which cost a flag check unless a system trace is
+ * being recorded.
+ */
+fun interface Map3DMetricsListener {
+    /**
+     * Called with the metrics of a frame that was just applied.
+     */
+    fun onFrame(metrics: FrameMetrics)
+}
@@ -17,6 +17,7 @@
 package com.google.maps.android.compose3d
 
 import com.google.android.gms.maps3d.GoogleMap3D
+import java.util.WeakHashMap
 
 /**
  * A global registry to manage the single instance of [GoogleMap3D] provided by the SDK.
@@ -28,13 +29,21 @@ import com.google.android.gms.maps3d.GoogleMap3D
  *
  * We also track whether the map has ever been "ready" via `OnMapReadyListener`,
  * as the SDK only triggers this once per application lifetime.
+ *
+ * Readiness is additionally tracked per [GoogleMap3D] instance, and only that per-instance state
+ * decides [isReady]. Every instance not yet seen gets its own ready listener on the first
+ * [whenReady] call and stays not-ready until that listener fires, even if another map was ready
+ * before, so a [Map3DViewPool] view that is still loading is not handed content early. An
+ * instance the SDK hands out again after it was ready is remembered as ready.
  */
 object Map3DRegistry {
     private var mapInstance: GoogleMap3D? = null
+    private val readyInstances = WeakHashMap<GoogleMap3D, Boolean>()
+    private val waiters = WeakHashMap<GoogleMap3D, LinkedHashMap<Any, () -> Unit>>()
 
     /**
-     * Tracks whether the map has been initialized and is ready for content.
-     * The SDK only calls `OnMapReadyListener` once.
+     * True once any map has been ready. Kept for callers that only need to know whether the SDK
+     * has loaded at all; use [isReady] for a specific map.
      */
     var isMapReady: Boolean = false
         internal set
@@ -68,4 +77,49 @@ object Map3DRegistry {
     fun markReady() {
         isMapReady = true
     }
+
+    /**
+     * Marks [map] as ready and runs the actions queued for it with [whenReady].
+     */
+    fun markReady(map: GoogleMap3D) {
+        isMapReady = true
+        readyInstances[map] = true
+        waiters.remove(map)?.values?.forEach { it() }
+    }
+
+    /**
+     * Returns true if [map] can take content, i.e. its own ready listener has fired.
+     */
+    fun isReady(map: GoogleMap3D): Boolean = readyInstances[map] == true
+
+    /**
+     * Runs [action] once [map] is ready, immediately if it already is.
+     *
+     * The first waiter installs the SDK's `OnMapReadyListener`; later waiters share it. A second
+     * call with the same [token] replaces the earlier action, so a caller that re-registers on
+     * every recomposition only runs its latest action.
+     */
+    fun whenReady(map: GoogleMap3D, token: Any, action: () -> Unit) {
+        if (isReady(map)) {
+            action()
+            return
+        }
+        val pending = waiters[map]
+        if (pending != null) {
+            pending[token] = action
+            return
+        }
+        waiters[map] = linkedMapOf(token to action)
+        map.setOnMapReadyListener {
+            map.setOnMapReadyListener(null) // Clear it immediately
+            markReady(map)
+        }
+    }
+
+    /**
+     * Drops the action queued for [map] with [token], if it has not run yet.
+     */
+    fun cancel(map: GoogleMap3D, token: Any) {
+        waiters[map]?.remove(token)
+    }
 }
@@ -18,11 +18,12 @@ package com.google.maps.android.compose3d
 
 import android.content.Context
 import android.graphics.Color
-import androidx.compose.ui.platform.ComposeView
+import android.os.Looper
 import com.google.android.gms.maps3d.GoogleMap3D
 import com.google.android.gms.maps3d.Popover
 import com.google.android.gms.maps3d.model.Glyph
 import com.google.android.gms.maps3d.model.Hole
+import com.google.android.gms.maps3d.model.LatLngAltitude
 import com.google.android.gms.maps3d.model.Marker
 import com.google.android.gms.maps3d.model.Model
 import com.google.android.gms.maps3d.model.PinConfiguration
@@ -34,6 +35,7 @@ import com.google.android.gms.maps3d.model.polygonOptions
 import com.google.android.gms.maps3d.model.popoverOptions
 import com.google.android.gms.maps3d.model.vector3D
 import com.google.maps.android.compose3d.utils.toValidLocation
+import kotlinx.coroutines.flow.StateFlow
 
 /**
  * Internal state holder for the Maps 3D Compose library.
@@ -41,241 +43,367 @@ import com.google.maps.android.compose3d.utils.toValidLocation
  * This class maintains the mapping between user-provided configuration keys and the
  * actual SDK objects created on the map. Since the SDK objects are largely immutable
  * or do not support property updates in place, this class recreates them when their
- * configuration changes.
+ * configuration changes. The exception is transforms: a marker whose only change is its
+ * position, or a model whose only changes are position, orientation or scale, is updated
+ * through the SDK setters; [ReconcilerStats.inPlaceRate] reports how often that applies.
+ *
+ * Each object type is backed by a [MapObjectReconciler], so a sync with an unchanged list makes
+ * no map calls: the same list instance is skipped in constant time, and an equal rebuilt list
+ * after a linear comparison. The per-type counters (e.g. [markerStats]) make that observable.
+ *
+ * Click callbacks and popover content are not part of config identity. They are refreshed on
+ * every pass through [ClickHandlerRegistry] and per-popover content state, so fresh lambdas never
+ * cause an SDK re-add.
+ *
+ * The state is confined to the main thread: every sync, delta batch and clear checks it and
+ * throws [IllegalStateException] elsewhere. SDK click listeners, which may fire on other threads,
+ * only append to a lock-free [ClickQueue]; handlers are looked up and invoked on the main thread,
+ * and a click on an object that was removed or replaced in the meantime is dropped.
+ *
+ * Popover `ComposeView`s are recycled through a [PopoverViewPool]; see [popoverPoolStats].
+ * Polyline and polygon options are taken from [optionsCache] when they were prepared off the
+ * main thread, and built on the spot otherwise.
+ *
+ * With an [AddBudget], new markers, polylines, polygons and models are added over several frames,
+ * nearest to the camera first, and [loadProgress] reports the backlog.
+ *
+ * With a [handlePoolCapacity], a marker or model whose key goes away is handed to a new key in
+ * the same pass when the two only differ in key and transform, instead of being removed and
+ * added again. For models this also keeps the loaded asset.
+ *
+ * A state obtained from [rememberRetainedMap3DState] survives configuration changes. When it comes
+ * back to the same native map (a view kept in a [Map3DViewPool]), nothing is re-issued; when the
+ * old map was destroyed, every object is added to the new one without removing anything first.
  */
 class Map3DState {
-    private val markers = mutableMapOf<String, Pair<MarkerConfig, Marker>>()
-    private val polylines = mutableMapOf<String, Pair<PolylineConfig, Polyline>>()
-    private val polygons = mutableMapOf<String, Pair<PolygonConfig, Polygon>>()
-    private val models = mutableMapOf<String, Pair<ModelConfig, Model>>()
-    private val popovers = mutableMapOf<String, Pair<PopoverConfig, Popover>>()
+    private val markerClicks = ClickHandlerRegistry<Marker>()
+    private val polylineClicks = ClickHandlerRegistry<Polyline>()
+    private val polygonClicks = ClickHandlerRegistry<Polygon>()
+    private val modelClicks = ClickHandlerRegistry<Model>()
+    private val popoverHosts = HashMap<String, PopoverHost>()
+    private val popoverPool = PopoverViewPool()
+    private val clickQueue = ClickQueue()
+
+    internal val optionsCache = OptionsCache()
+    internal val addScheduler = AddScheduler()
+
+    private var attachedMap: GoogleMap3D? = null
 
     /**
-     * Synchronizes the markers on the map with the provided list of configurations.
+     * True for a state owned by a `ViewModel` rather than by a single composition.
      */
-    fun syncMarkers(map: GoogleMap3D, markerConfigs: List<MarkerConfig>) {
-        val keysToRemove = markers.keys.toMutableSet()
-
-        markerConfigs.forEach { config ->
-            keysToRemove.remove(config.key)
-            val existing = markers[config.key]
-
-            if (existing != null) {
-                val (oldConfig, marker) = existing
-                if (oldConfig != config) {
-                    // Config changed, update by adding again with same ID!
-                    val newMarker = createMarker(map, config, marker.id)
-                    if (newMarker != null) {
-                        markers[config.key] = Pair(config, newMarker)
-                    }
-                }
-            } else {
-                // New marker
-                val newMarker = createMarker(map, config)
-                if (newMarker != null) {
-                    markers[config.key] = Pair(config, newMarker)
-                }
-            }
-        }
+    internal var isRetained: Boolean = false
+
+    private val markerPool = HandlePool<MarkerConfig, Marker>(
+        // A different key is the only difference the reconciler knows nothing about.
+        reuse = { previous, config, marker -> updateMarker(previous.copy(key = config.key), config, marker) },
+        detach = markerClicks::remove,
+        destroy = Marker::remove,
+    )
+    private val modelPool = HandlePool<ModelConfig, Model>(
+        reuse = { previous, config, model -> updateModel(previous.copy(key = config.key), config, model) },
+        detach = modelClicks::remove,
+        destroy = Model::remove,
+    )
+
+    private val markers = MapObjectReconciler<MarkerConfig, Marker>(
+        keyOf = { it.key },
+        remove = { key, marker ->
+            markerClicks.remove(key)
+            marker.remove()
+        },
+        checkThread = ::checkMainThread,
+        addScheduler = addScheduler,
+        positionOf = { it.position },
+        pool = markerPool,
+    )
+    private val polylines = MapObjectReconciler<PolylineConfig, Polyline>(
+        keyOf = { it.key },
+        remove = { key, polyline ->
+            polylineClicks.remove(key)
+            polyline.remove()
+        },
+        checkThread = ::checkMainThread,
+        addScheduler = addScheduler,
+        positionOf = { it.points.firstOrNull() },
+    )
+    private val polygons = MapObjectReconciler<PolygonConfig, Polygon>(
+        keyOf = { it.key },
+        remove = { key, polygon ->
+            polygonClicks.remove(key)
+            polygon.remove()
+        },
+        checkThread = ::checkMainThread,
+        addScheduler = addScheduler,
+        positionOf = { it.path.firstOrNull() },
+    )
+    private val models = MapObjectReconciler<ModelConfig, Model>(
+        keyOf = { it.key },
+        remove = { key, model ->
+            modelClicks.remove(key)
+            model.remove()
+        },
+        checkThread = ::checkMainThread,
+        addScheduler = addScheduler,
+        positionOf = { it.position },
+        pool = modelPool,
+    )
+    private val popovers = MapObjectReconciler<PopoverConfig, Popover>(
+        keyOf = { it.key },
+        remove = { key, popover ->
+            popover.remove()
+            popoverHosts.remove(key)?.let(popoverPool::release)
+        },
+        checkThread = ::checkMainThread,
+    )
+
+    /** Reconciliation counters for markers. */
+    val markerStats: ReconcilerStats get() = markers.stats
+
+    /** Reconciliation counters for polylines. */
+    val polylineStats: ReconcilerStats get() = polylines.stats
+
+    /** Reconciliation counters for polygons. */
+    val polygonStats: ReconcilerStats get() = polygons.stats
+
+    /** Reconciliation counters for models. */
+    val modelStats: ReconcilerStats get() = models.stats
+
+    /** Reconciliation counters for popovers. */
+    val popoverStats: ReconcilerStats get() = popovers.stats
+
+    /** Popover view creation and reuse counters. */
+    val popoverPoolStats: PopoverPoolStats get() = popoverPool.stats
+
+    /** Polyline and polygon options preparation counters. */
+    val optionsCacheStats: OptionsCacheStats get() = optionsCache.stats
 
-        keysToRemove.forEach { key ->
-            markers[key]?.second?.remove()
-            markers.remove(key)
+    /**
+     * Most markers and models that one pass keeps for reuse by new keys; 0, the default, turns
+     * recycling off. See [markerPoolStats] and [modelPoolStats].
+     */
+    var handlePoolCapacity: Int
+        get() = markerPool.capacity
+        set(value) {
+            markerPool.capacity = value
+            modelPool.capacity = value
         }
-    }
 
-    private fun createMarker(map: GoogleMap3D, config: MarkerConfig, overrideId: String? = null): Marker? {
-        val marker = map.addMarker(config.toMarkerOptions(overrideId))
-        config.onClick?.let { callback ->
-            marker?.setClickListener {
-                callback(marker)
-            }
-        }
-        return marker
-    }
+    /** Marker recycling counters. */
+    val markerPoolStats: HandlePoolStats get() = markerPool.stats
+
+    /** Model recycling counters. */
+    val modelPoolStats: HandlePoolStats get() = modelPool.stats
+
+    /** Clicks received from the SDK, on any thread. */
+    val clicksReceived: Long get() = clickQueue.enqueued
 
+    /** Clicks delivered to a handler. */
+    val clicksDispatched: Long get() = clickQueue.dispatched
 
     /**
-     * Synchronizes the polylines on the map with the provided list of configurations.
+     * Progress of adding new objects while `GoogleMap3D` has an [AddBudget]. Without a budget it
+     * stays at an empty [LoadProgress].
      */
-    fun syncPolylines(map: GoogleMap3D, polylineConfigs: List<PolylineConfig>) {
-        val keysToRemove = polylines.keys.toMutableSet()
-
-        polylineConfigs.forEach { config ->
-            keysToRemove.remove(config.key)
-            val existing = polylines[config.key]
-
-            if (existing != null) {
-                val (oldConfig, polyline) = existing
-                if (oldConfig != config) {
-                    // Config changed, update by adding again with same ID!
-                    val newPolyline = createPolyline(map, config, polyline.id)
-                    if (newPolyline != null) {
-                        polylines[config.key] = Pair(config, newPolyline)
-                    }
-                }
-            } else {
-                // New polyline
-                val newPolyline = createPolyline(map, config)
-                if (newPolyline != null) {
-                    polylines[config.key] = Pair(config, newPolyline)
-                }
-            }
-        }
+    val loadProgress: StateFlow<LoadProgress> get() = addScheduler.progress
 
-        keysToRemove.forEach { key ->
-            polylines[key]?.second?.remove()
-            polylines.remove(key)
-        }
+    /**
+     * Synchronizes the markers on the map with the provided list of configurations.
+     *
+     * @return The keys that were added, changed, or removed.
+     */
+    fun syncMarkers(map: GoogleMap3D, markerConfigs: List<MarkerConfig>): ChangeSet =
+        markers.sync(
+            markerConfigs,
+            create = { config, previous -> createMarker(map, config, previous) },
+            bind = ::bindMarker,
+            update = ::updateMarker,
+        ).also(::objectsChanged)
+
+    /**
+     * Applies keyed marker changes without diffing the full set; a null value removes the key.
+     * Use either this or [syncMarkers] for a given map, not both.
+     *
+     * @param retry Receives upserts that could not be added yet.
+     * @return The keys that were added, changed, or removed.
+     */
+    internal fun applyMarkerDeltas(
+        map: GoogleMap3D,
+        deltas: Map<String, MarkerConfig?>,
+        retry: (MarkerConfig) -> Unit = {},
+    ): ChangeSet =
+        markers.apply(
+            deltas,
+            create = { config, previous -> createMarker(map, config, previous) },
+            bind = ::bindMarker,
+            update = ::updateMarker,
+            retry = retry,
+        ).also(::objectsChanged)
+
+    private fun createMarker(map: GoogleMap3D, config: MarkerConfig, previous: Marker?): Marker? {
+        // Config changed, update by adding again with same ID!
+        markerClicks.detach(config.key)
+        return map.addMarker(config.toMarkerOptions(previous?.id))
     }
 
-    private fun createPolyline(map: GoogleMap3D, config: PolylineConfig, overrideId: String? = null): Polyline {
-        val polyline = map.addPolyline(config.toPolylineOptions(overrideId))
-        config.onClick?.let { callback ->
-            polyline.setClickListener {
-                callback(polyline)
-            }
+    /**
+     * Moves the marker in place when only its position changed.
+     */
+    private fun updateMarker(previous: MarkerConfig, config: MarkerConfig, marker: Marker): Boolean {
+        if (config.copy(position = previous.position) != previous) return false
+        marker.position = config.position.toValidLocation()
+        return true
+    }
+
+    private fun bindMarker(config: MarkerConfig, marker: Marker) {
+        if (markerClicks.bind(config.key, marker, config.onClick)) {
+            marker.setClickListener { clickQueue.enqueue(markerClicks, config.key, marker) }
         }
-        return polyline
     }
 
     /**
-     * Synchronizes the polygons on the map with the provided list of configurations.
+     * Synchronizes the polylines on the map with the provided list of configurations.
+     *
+     * @return The keys that were added, changed, or removed.
      */
-    fun syncPolygons(map: GoogleMap3D, polygonConfigs: List<PolygonConfig>) {
-        val keysToRemove = polygons.keys.toMutableSet()
-
-        polygonConfigs.forEach { config ->
-            keysToRemove.remove(config.key)
-            val existing = polygons[config.key]
-
-            if (existing != null) {
-                val (oldConfig, polygon) = existing
-                if (oldConfig != config) {
-                    // Config changed, update by adding again with same ID!
-                    val newPolygon = createPolygon(map, config, polygon.id)
-                    if (newPolygon != null) {
-                        polygons[config.key] = Pair(config, newPolygon)
-                    }
+    fun syncPolylines(map: GoogleMap3D, polylineConfigs: List<PolylineConfig>): ChangeSet =
+        polylines.sync(
+            polylineConfigs,
+            create = { config, previous ->
+                polylineClicks.detach(config.key)
+                map.addPolyline(optionsCache.polylineOptions(config, previous?.id ?: config.key))
+            },
+            bind = { config, polyline ->
+                if (polylineClicks.bind(config.key, polyline, config.onClick)) {
+                    polyline.setClickListener { clickQueue.enqueue(polylineClicks, config.key, polyline) }
                 }
-            } else {
-                // New polygon
-                val newPolygon = createPolygon(map, config)
-                if (newPolygon != null) {
-                    polygons[config.key] = Pair(config, newPolygon)
+            },
+        )
+
+    /**
+     * Synchronizes the polygons on the map with the provided list of configurations.
+     *
+     * @return The keys that were added, changed, or removed.
+     */
+    fun syncPolygons(map: GoogleMap3D, polygonConfigs: List<PolygonConfig>): ChangeSet =
+        polygons.sync(
+            polygonConfigs,
+            create = { config, previous ->
+                polygonClicks.detach(config.key)
+                map.addPolygon(optionsCache.polygonOptions(config, previous?.id ?: config.key))
+            },
+            bind = { config, polygon ->
+                if (polygonClicks.bind(config.key, polygon, config.onClick)) {
+                    polygon.setClickListener { clickQueue.enqueue(polygonClicks, config.key, polygon) }
                 }
-            }
-        }
+            },
+        )
 
-        keysToRemove.forEach { key ->
-            polygons[key]?.second?.remove()
-            polygons.remove(key)
-        }
-    }
+    /**
+     * Synchronizes the 3D models on the map with the provided list of configurations.
+     *
+     * @return The keys that were added, changed, or removed.
+     */
+    fun syncModels(map: GoogleMap3D, modelConfigs: List<ModelConfig>): ChangeSet =
+        models.sync(
+            modelConfigs,
+            create = { config, previous -> createModel(map, config, previous) },
+            bind = ::bindModel,
+            update = ::updateModel,
+        ).also(::objectsChanged)
 
-    private fun createPolygon(map: GoogleMap3D, config: PolygonConfig, overrideId: String? = null): Polygon {
-        val polygon = map.addPolygon(config.toPolygonOptions(overrideId))
-        config.onClick?.let { callback ->
-            polygon.setClickListener {
-                callback(polygon)
-            }
-        }
-        return polygon
+    /**
+     * Applies keyed model changes without diffing the full set; a null value removes the key.
+     * Use either this or [syncModels] for a given map, not both.
+     *
+     * @param retry Receives upserts that could not be added yet.
+     * @return The keys that were added, changed, or removed.
+     */
+    internal fun applyModelDeltas(
+        map: GoogleMap3D,
+        deltas: Map<String, ModelConfig?>,
+        retry: (ModelConfig) -> Unit = {},
+    ): ChangeSet =
+        models.apply(
+            deltas,
+            create = { config, previous -> createModel(map, config, previous) },
+            bind = ::bindModel,
+            update = ::updateModel,
+            retry = retry,
+        ).also(::objectsChanged)
+
+    private fun createModel(map: GoogleMap3D, config: ModelConfig, previous: Model?): Model? {
+        modelClicks.detach(config.key)
+        return map.addModel(config.toModelOptions(previous?.id))
     }
 
     /**
-     * Synchronizes the 3D models on the map with the provided list of configurations.
+     * Applies position, orientation and scale changes in place. A different URL or altitude mode
+     * still needs a re-add.
      */
-    fun syncModels(map: GoogleMap3D, modelConfigs: List<ModelConfig>) {
-        val keysToRemove = models.keys.toMutableSet()
-
-        modelConfigs.forEach { config ->
-            keysToRemove.remove(config.key)
-            val existing = models[config.key]
-
-            if (existing != null) {
-                val (oldConfig, model) = existing
-                if (oldConfig != config) {
-                    // Config changed, update by adding again with same ID!
-                    val newModel = createModel(map, config, model.id)
-                    if (newModel != null) {
-                        models[config.key] = Pair(config, newModel)
-                    }
-                }
-            } else {
-                // New model
-                val newModel = createModel(map, config)
-                if (newModel != null) {
-                    models[config.key] = Pair(config, newModel)
-                }
+    private fun updateModel(previous: ModelConfig, config: ModelConfig, model: Model): Boolean {
+        val sameIdentity = config.copy(
+            position = previous.position,
+            scale = previous.scale,
+            heading = previous.heading,
+            tilt = previous.tilt,
+            roll = previous.roll,
+        ) == previous
+        if (!sameIdentity) return false
+
+        if (config.position != previous.position) {
+            model.position = config.position.toValidLocation()
+        }
+        if (config.heading != previous.heading || config.tilt != previous.tilt || config.roll != previous.roll) {
+            model.orientation = orientation {
+                heading = config.heading
+                tilt = config.tilt
+                roll = config.roll
             }
         }
-
-        keysToRemove.forEach { key ->
-            models[key]?.second?.remove()
-            models.remove(key)
+        if (config.scale != previous.scale) {
+            model.scale = config.scale.toVector3D()
         }
+        return true
     }
 
-    private fun createModel(map: GoogleMap3D, config: ModelConfig, overrideId: String? = null): Model {
-        val model = map.addModel(config.toModelOptions(overrideId))
-        config.onClick?.let { callback ->
-            model.setClickListener {
-                callback(model)
-            }
+    private fun bindModel(config: ModelConfig, model: Model) {
+        if (modelClicks.bind(config.key, model, config.onClick)) {
+            model.setClickListener { clickQueue.enqueue(modelClicks, config.key, model) }
         }
-        return model
     }
 
     /**
      * Synchronizes the popovers on the map with the provided list of configurations.
+     *
+     * @return The keys that were added, changed, or removed.
      */
-    fun syncPopovers(context: Context, map: GoogleMap3D, popoverConfigs: List<PopoverConfig>) {
-        val keysToRemove = popovers.keys.toMutableSet()
-
-        popoverConfigs.forEach { config ->
-            keysToRemove.remove(config.key)
-            val existing = popovers[config.key]
-
-            if (existing != null) {
-                val (oldConfig, popover) = existing
-                if (oldConfig != config) {
-                    // Config changed, recreate
-                    popover.remove()
-                    val newPopover = createPopover(context, map, config)
-                    if (newPopover != null) {
-                        popovers[config.key] = Pair(config, newPopover)
-                    }
-                }
-            } else {
-                // New popover
-                val newPopover = createPopover(context, map, config)
-                if (newPopover != null) {
-                    popovers[config.key] = Pair(config, newPopover)
-                }
-            }
-        }
-
-        keysToRemove.forEach { key ->
-            popovers[key]?.second?.remove()
-            popovers.remove(key)
-        }
-    }
+    fun syncPopovers(context: Context, map: GoogleMap3D, popoverConfigs: List<PopoverConfig>): ChangeSet =
+        popovers.sync(
+            popoverConfigs,
+            create = { config, previous ->
+                // Config changed, recreate. The old view goes back to the pool first so the new
+                // popover can pick it up again when the content type is unchanged.
+                previous?.remove()
+                popoverHosts.remove(config.key)?.let(popoverPool::release)
+                createPopover(context, map, config)
+            },
+            bind = { config, _ ->
+                popoverHosts[config.key]?.update(config.content)
+            },
+        )
 
     private fun createPopover(context: Context, map: GoogleMap3D, config: PopoverConfig): Popover? {
-        val marker = markers[config.positionAnchorKey]?.second ?: return null
+        val marker = markers[config.positionAnchorKey] ?: return null
 
-        val composeView = ComposeView(context).apply {
-            setContent {
-                config.content()
-            }
-        }
+        val host = popoverPool.acquire(context, config.contentType, config.content)
+        popoverHosts[config.key] = host
 
         val popover = map.addPopover(
             popoverOptions {
                 positionAnchor = marker
                 altitudeMode = config.altitudeMode
-                content = composeView
+                content = host.view
                 autoCloseEnabled = config.autoCloseEnabled
                 autoPanEnabled = config.autoPanEnabled
             },
@@ -285,19 +413,83 @@ class Map3DState {
         return popover
     }
 
+    /**
+     * Called on the main thread with every non-empty marker or model change set, so a
+     * [FollowCameraController] only runs frames while its target is actually moving.
+     */
+    internal var onObjectsChanged: ((ChangeSet) -> Unit)? = null
+
+    private fun objectsChanged(changes: ChangeSet) {
+        if (!changes.isEmpty) onObjectsChanged?.invoke(changes)
+    }
+
+    /**
+     * Returns the last applied position of the marker or model with [key], if one is on the map.
+     */
+    internal fun positionOf(key: String): LatLngAltitude? =
+        markers.configOf(key)?.position ?: models.configOf(key)?.position
+
+    /**
+     * Binds this state to [map] before a sync.
+     *
+     * If the state still tracks objects on a different map, they are removed from that map and
+     * the next sync adds them to [map]. Reattaching to the same map keeps everything.
+     *
+     * @return True if objects tracked for another map were dropped.
+     */
+    internal fun attach(map: GoogleMap3D): Boolean {
+        checkMainThread()
+        val previous = attachedMap
+        attachedMap = map
+        if (previous == null || previous === map) return false
+        removeObjects()
+        return true
+    }
+
+    /**
+     * Forgets every tracked object without calling into the SDK, for when the map holding them
+     * was destroyed. Prepared options are kept, so the next sync on a new map only pays for adds.
+     */
+    internal fun onMapDestroyed() {
+        markers.forget()
+        polylines.forget()
+        polygons.forget()
+        models.forget()
+        popovers.forget()
+        markerClicks.clear()
+        polylineClicks.clear()
+        polygonClicks.clear()
+        modelClicks.clear()
+        clickQueue.clear()
+        addScheduler.reset()
+        // The popover views belong to the destroyed screen's context.
+        popoverHosts.values.forEach { it.view.disposeComposition() }
+        popoverHosts.clear()
+        popoverPool.clear()
+        attachedMap = null
+    }
+
     /**
      * Clears all state and removes all objects from the map.
      */
     fun clear() {
-        markers.values.forEach { it.second.remove() }
+        removeObjects()
+        clickQueue.clear()
+        addScheduler.reset()
+        popoverPool.clear()
+        optionsCache.clear()
+        attachedMap = null
+    }
+
+    private fun removeObjects() {
         markers.clear()
-        polylines.values.forEach { it.second.remove() }
         polylines.clear()
-        polygons.values.forEach { it.second.remove() }
         polygons.clear()
-        models.values.forEach { it.second.remove() }
         models.clear()
-        popovers.values.forEach { it.second.remove() }
         popovers.clear()
     }
+
+    private fun checkMainThread() {
+        check(Looper.myLooper() == Looper.getMainLooper()) { "Map3DState must only be used on the main thread" }
+    }
 }
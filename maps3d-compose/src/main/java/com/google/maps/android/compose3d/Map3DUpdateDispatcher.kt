@@ -0,0 +1,589 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.view.Choreographer
+import androidx.tracing.trace
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.CameraRestriction
+import com.google.maps.android.compose3d.utils.DEFAULT_FOOTPRINT_ASPECT_RATIO
+import com.google.maps.android.compose3d.utils.toValidCamera
+import com.google.maps.android.compose3d.utils.toValidCameraRestriction
+import kotlin.math.abs
+
+/**
+ * Per-field tolerances used to decide whether a camera actually differs from the last one applied.
+ *
+ * @property degrees Tolerance for latitude and longitude.
+ * @property altitudeMeters Tolerance for the center altitude.
+ * @property headingDegrees Tolerance for heading, measured the short way around the circle.
+ * @property tiltDegrees Tolerance for tilt.
+ * @property rollDegrees Tolerance for roll.
+ * @property rangeMeters Tolerance for range.
+ */
+data class CameraEpsilon(
+    val degrees: Double = 1e-7,
+    val altitudeMeters: Double = 0.01,
+    val headingDegrees: Double = 0.01,
+    val tiltDegrees: Double = 0.01,
+    val rollDegrees: Double = 0.01,
+    val rangeMeters: Double = 0.01,
+) {
+    /**
+     * Returns true if [a] and [b] are within tolerance on every field.
+     */
+    fun isSame(a: Camera, b: Camera): Boolean =
+        abs(a.center.latitude - b.center.latitude) <= degrees &&
+            abs(a.center.longitude - b.center.longitude) <= degrees &&
+            abs(a.center.altitude - b.center.altitude) <= altitudeMeters &&
+            angleDelta(a.heading ?: 0.0, b.heading ?: 0.0) <= headingDegrees &&
+            abs((a.tilt ?: 0.0) - (b.tilt ?: 0.0)) <= tiltDegrees &&
+            angleDelta(a.roll ?: 0.0, b.roll ?: 0.0) <= rollDegrees &&
+            abs((a.range ?: 0.0) - (b.range ?: 0.0)) <= rangeMeters
+
+    companion object {
+        /**
+         * Only identical cameras are considered the same.
+         */
+        val EXACT = CameraEpsilon(0.0, 0.0, 0.0, 0.0, 0.0, 0.0)
+    }
+}
+
+internal fun angleDelta(a: Double, b: Double): Double {
+    val d = abs(a - b) % 360.0
+    return if (d > 180.0) 360.0 - d else d
+}
+
+/**
+ * SDK call counters for one applied frame.
+ *
+ * @property frameTimeNanos The Choreographer frame time the update was applied on.
+ * @property coalescedUpdates Number of [Map3DUpdateDispatcher.submit] calls folded into this frame.
+ * @property issued Native calls made: camera, restriction and mode setters plus object adds,
+ * re-adds and removals.
+ * @property suppressed Calls avoided: setters whose value matched the last applied value, plus
+ * object syncs that turned out to be no-ops.
+ */
+data class FrameStats(
+    val frameTimeNanos: Long = 0,
+    val coalescedUpdates: Int = 0,
+    val issued: Int = 0,
+    val suppressed: Int = 0,
+)
+
+/**
+ * Abstraction over the frame clock so the dispatcher can be driven by a fake in tests.
+ */
+interface FrameScheduler {
+    /**
+     * Schedules [callback] to run once on the next frame.
+     */
+    fun postFrameCallback(callback: Choreographer.FrameCallback)
+
+    /**
+     * Cancels a callback previously passed to [postFrameCallback].
+     */
+    fun removeFrameCallback(callback: Choreographer.FrameCallback)
+}
+
+/**
+ * [FrameScheduler] backed by the main thread [Choreographer].
+ */
+object ChoreographerFrameScheduler : FrameScheduler {
+    override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+        Choreographer.getInstance().postFrameCallback(callback)
+    }
+
+    override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+        Choreographer.getInstance().removeFrameCallback(callback)
+    }
+}
+
+/**
+ * Collects the inputs of the `GoogleMap3D` composable and applies them at most once per frame.
+ *
+ * Recomposition can run many times between two frames, and a camera driven from state at 60 Hz
+ * recomposes every frame even when nothing else changed. Each [submit] only records the latest
+ * inputs; on the next Choreographer frame the dispatcher applies the camera, restriction and
+ * mode only if they differ from what it last applied, and runs each [Map3DState] sync once.
+ *
+ * When [markerVirtualization] is set, the marker list is narrowed to the markers near the camera
+ * footprint before it is synced. The footprint follows the camera reported by the SDK through
+ * [onCameraChanged], so gesture-driven moves also materialize markers, and its width follows the
+ * view size reported through [onViewportSizeChanged]. Polylines with a
+ * [PolylineConfig.lod] are resolved to the pyramid level for that same camera.
+ *
+ * Markers and models can alternatively be streamed as keyed deltas through [offerMarkerDeltas]
+ * and [offerModelDeltas]. Deltas are conflated per key until the next frame and applied without
+ * diffing the full set. While [streamMarkers] or [streamModels] is set, the corresponding list
+ * passed to [submit] is ignored, and marker virtualization does not apply to streamed markers.
+ *
+ * With an [addBudget], new objects are added over as many frames as needed, nearest to the live
+ * camera first, while the camera, removals and in-place updates are applied in full every frame.
+ * Progress is published on [Map3DState.loadProgress].
+ *
+ * Every frame, the camera call and each object sync run in an `androidx.tracing` section. With a
+ * [metricsListener], they are also timed and counted and reported as [FrameMetrics].
+ *
+ * While [isPaused], inputs and deltas are still recorded but no frame is scheduled; unpausing
+ * applies everything in a single coalesced frame.
+ *
+ * All methods except [onCameraChanged] and the `offer*Deltas` methods must be called on the
+ * main thread.
+ *
+ * @param state The object state to synchronize.
+ * @param scheduler The frame clock.
+ * @param cameraEpsilon Tolerances below which a camera change is considered redundant.
+ */
+class Map3DUpdateDispatcher(
+    private val state: Map3DState,
+    private val scheduler: FrameScheduler = ChoreographerFrameScheduler,
+    var cameraEpsilon: CameraEpsilon = CameraEpsilon(),
+) {
+    private var map: GoogleMap3D? = null
+    private var context: Context? = null
+
+    private var camera: Camera? = null
+    private var cameraRestriction: CameraRestriction? = null
+    private var mapMode: Int = 0
+    private var markers: List<MarkerConfig> = emptyList()
+    private var polylines: List<PolylineConfig> = emptyList()
+    private var polygons: List<PolygonConfig> = emptyList()
+    private var models: List<ModelConfig> = emptyList()
+    private var popovers: List<PopoverConfig> = emptyList()
+
+    private var appliedCamera: Camera? = null
+    private var appliedRestrictionSource: CameraRestriction? = null
+    private var appliedRestriction: CameraRestriction? = null
+    private var hasAppliedRestriction = false
+    private var appliedMapMode: Int? = null
+
+    @Volatile
+    private var observedCamera: Camera? = null
+    private var virtualizer: MarkerVirtualizer? = null
+    private val polylineLod = PolylineLodResolver(state.optionsCache::lodPyramid)
+
+    @Volatile
+    private var hasLodPolylines = false
+
+    private val markerDeltas = DeltaBuffer<MarkerConfig>()
+    private val modelDeltas = DeltaBuffer<ModelConfig>()
+
+    /**
+     * When true, markers come from [offerMarkerDeltas] instead of the list passed to [submit].
+     */
+    var streamMarkers: Boolean = false
+
+    /**
+     * When true, models come from [offerModelDeltas] instead of the list passed to [submit].
+     */
+    var streamModels: Boolean = false
+
+    /**
+     * Number of streamed deltas that were superseded by a newer delta for the same key before
+     * they reached the map.
+     */
+    val conflatedDeltas: Long
+        get() = markerDeltas.conflated + modelDeltas.conflated
+
+    private var scheduled = false
+    private var pendingUpdates = 0
+    private val stepMetrics = Array(5) { SyncMetrics() }
+
+    /**
+     * Receives per-frame timings and counters. Null, the default, skips all measuring.
+     */
+    var metricsListener: Map3DMetricsListener? = null
+
+    private val frameCallback = Choreographer.FrameCallback { frameTimeNanos -> onFrame(frameTimeNanos) }
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val requestFrame = Runnable { scheduleFrame() }
+
+    /**
+     * While true, nothing is applied to the map. Setting it back to false schedules one frame
+     * that applies the latest inputs and every delta buffered meanwhile.
+     */
+    var isPaused: Boolean = false
+        set(value) {
+            if (field == value) return
+            field = value
+            if (value) {
+                if (scheduled) {
+                    scheduler.removeFrameCallback(frameCallback)
+                    scheduled = false
+                }
+                mainHandler.removeCallbacks(requestFrame)
+            } else {
+                scheduleFrame()
+            }
+        }
+
+    /**
+     * When set and active, this controller owns the camera and the submitted camera is ignored.
+     */
+    var followCamera: FollowCameraController? = null
+
+    /**
+     * Per-frame budget for adding new objects, or null to add everything in one frame.
+     */
+    var addBudget: AddBudget?
+        get() = state.addScheduler.budget
+        set(value) {
+            if (state.addScheduler.budget == value) return
+            state.addScheduler.budget = value
+            if (map != null) scheduleFrame()
+        }
+
+    /**
+     * Optional marker virtualization. Changing the options resets the materialized set.
+     */
+    var markerVirtualization: MarkerVirtualization? = null
+        set(value) {
+            if (field == value) return
+            field = value
+            virtualizer = value?.let { MarkerVirtualizer(it) }
+            if (map != null) scheduleFrame()
+        }
+
+    private var viewportAspectRatio = DEFAULT_FOOTPRINT_ASPECT_RATIO
+
+    /**
+     * Records the size of the map view, which virtualization needs to know how far the footprint
+     * reaches to the sides. Until the view has a size, a wide viewport is assumed.
+     */
+    fun onViewportSizeChanged(width: Int, height: Int) {
+        val aspectRatio = if (width > 0 && height > 0) width.toDouble() / height else DEFAULT_FOOTPRINT_ASPECT_RATIO
+        if (aspectRatio == viewportAspectRatio) return
+        viewportAspectRatio = aspectRatio
+        if (virtualizer != null && map != null) scheduleFrame()
+    }
+
+    /**
+     * Number of markers currently materialized by virtualization, or null when it is off.
+     */
+    val materializedMarkerCount: Int?
+        get() = virtualizer?.materializedCount
+
+    /**
+     * Counters for the most recently applied frame.
+     */
+    var lastFrameStats: FrameStats = FrameStats()
+        private set
+
+    /**
+     * Total native calls issued since creation.
+     */
+    var totalIssued: Long = 0
+        private set
+
+    /**
+     * Total native calls suppressed since creation.
+     */
+    var totalSuppressed: Long = 0
+        private set
+
+    /**
+     * Records the latest inputs and schedules them to be applied on the next frame.
+     */
+    fun submit(
+        map: GoogleMap3D,
+        context: Context,
+        camera: Camera,
+        cameraRestriction: CameraRestriction?,
+        mapMode: Int,
+        markers: List<MarkerConfig>,
+        polylines: List<PolylineConfig>,
+        polygons: List<PolygonConfig>,
+        models: List<ModelConfig>,
+        popovers: List<PopoverConfig>,
+    ) {
+        if (this.map !== map) {
+            // A different native map has nothing we applied before.
+            appliedCamera = null
+            hasAppliedRestriction = false
+            appliedMapMode = null
+        }
+        this.map = map
+        this.context = context
+        this.camera = camera
+        this.cameraRestriction = cameraRestriction
+        this.mapMode = mapMode
+        this.markers = markers
+        if (this.polylines !== polylines) hasLodPolylines = polylines.any { it.lod != null }
+        this.polylines = polylines
+        this.polygons = polygons
+        this.models = models
+        this.popovers = popovers
+        pendingUpdates++
+        scheduleFrame()
+    }
+
+    /**
+     * Records the camera reported by the SDK. Safe to call from any thread.
+     *
+     * Only virtualization and polyline LOD depend on the live camera, so this schedules a frame
+     * only when [markerVirtualization] is enabled or a polyline has a [PolylineConfig.lod].
+     */
+    fun onCameraChanged(camera: Camera) {
+        observedCamera = camera
+        if (virtualizer == null && !hasLodPolylines) return
+        requestFrameFromAnyThread()
+    }
+
+    /**
+     * Queues marker deltas for the next frame. Safe to call from any thread; never blocks on the
+     * main thread.
+     */
+    fun offerMarkerDeltas(batch: List<MapObjectDelta<MarkerConfig>>) {
+        if (markerDeltas.offer(batch)) requestFrameFromAnyThread()
+    }
+
+    /**
+     * Queues model deltas for the next frame. Safe to call from any thread; never blocks on the
+     * main thread.
+     */
+    fun offerModelDeltas(batch: List<MapObjectDelta<ModelConfig>>) {
+        if (modelDeltas.offer(batch)) requestFrameFromAnyThread()
+    }
+
+    private fun requestFrameFromAnyThread() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFrame()
+        } else {
+            mainHandler.post(requestFrame)
+        }
+    }
+
+    private fun scheduleFrame() {
+        if (!scheduled && !isPaused && map != null) {
+            scheduled = true
+            scheduler.postFrameCallback(frameCallback)
+        }
+    }
+
+    /**
+     * Cancels any pending frame and forgets the native map.
+     */
+    fun cancel() {
+        if (scheduled) {
+            scheduler.removeFrameCallback(frameCallback)
+            scheduled = false
+        }
+        pendingUpdates = 0
+        mainHandler.removeCallbacks(requestFrame)
+        markerDeltas.clear()
+        modelDeltas.clear()
+        map = null
+        context = null
+        observedCamera = null
+        appliedCamera = null
+        appliedRestrictionSource = null
+        appliedRestriction = null
+        hasAppliedRestriction = false
+        appliedMapMode = null
+    }
+
+    private fun onFrame(frameTimeNanos: Long) {
+        trace(SECTION_FRAME) { applyFrame(frameTimeNanos) }
+    }
+
+    private fun applyFrame(frameTimeNanos: Long) {
+        scheduled = false
+        val map = map ?: return
+        val context = context ?: return
+        val listener = metricsListener
+        val measure = listener != null
+        val startNanos = if (measure) System.nanoTime() else 0L
+        val popoversCreatedBefore = if (measure) state.popoverPoolStats.created else 0L
+        var issued = 0
+        var suppressed = 0
+        var cameraSets = 0
+
+        val validCamera = camera.toValidCamera()
+        val lastCamera = appliedCamera
+        if (followCamera?.isActive == true) {
+            // Applied again once following stops, since the map has moved away from it.
+            appliedCamera = null
+            suppressed++
+        } else if (lastCamera == null || !cameraEpsilon.isSame(lastCamera, validCamera)) {
+            trace(SECTION_CAMERA) { map.setCamera(validCamera) }
+            appliedCamera = validCamera
+            issued++
+            cameraSets++
+        } else {
+            suppressed++
+        }
+
+        val restriction = cameraRestriction
+        val restrictionChanged = restriction !== appliedRestrictionSource &&
+            !sameRestriction(restriction, appliedRestriction)
+        if (!hasAppliedRestriction || restrictionChanged) {
+            val validRestriction = restriction.toValidCameraRestriction()
+            map.setCameraRestriction(validRestriction)
+            appliedRestrictionSource = restriction
+            appliedRestriction = validRestriction
+            hasAppliedRestriction = true
+            issued++
+        } else {
+            suppressed++
+        }
+
+        if (appliedMapMode != mapMode) {
+            map.setMapMode(mapMode)
+            appliedMapMode = mapMode
+            issued++
+        } else {
+            suppressed++
+        }
+
+        fun tally(changes: ChangeSet) {
+            if (changes.isEmpty) {
+                suppressed++
+            } else {
+                issued += changes.added.size + changes.changed.size + changes.removed.size
+            }
+        }
+        state.attach(map)
+        val liveCamera = observedCamera ?: validCamera
+        state.addScheduler.beginFrame(liveCamera.center)
+        if (streamMarkers) {
+            val deltas = markerDeltas.drain()
+            tally(step(MARKERS, SECTION_MARKERS, deltas.size, measure, { state.markerStats }, isDeltaBatch = true) {
+                state.applyMarkerDeltas(map, deltas) { if (markerDeltas.requeue(it.key, it)) scheduleFrame() }
+            })
+        } else {
+            val visibleMarkers = virtualizer?.select(markers, liveCamera, viewportAspectRatio) ?: markers
+            tally(step(MARKERS, SECTION_MARKERS, visibleMarkers.size, measure, { state.markerStats }) {
+                state.syncMarkers(map, visibleMarkers)
+            })
+        }
+        val visiblePolylines = polylineLod.resolve(polylines, liveCamera)
+        tally(step(POLYLINES, SECTION_POLYLINES, visiblePolylines.size, measure, { state.polylineStats }) {
+            state.syncPolylines(map, visiblePolylines)
+        })
+        tally(step(POLYGONS, SECTION_POLYGONS, polygons.size, measure, { state.polygonStats }) {
+            state.syncPolygons(map, polygons)
+        })
+        if (streamModels) {
+            val deltas = modelDeltas.drain()
+            tally(step(MODELS, SECTION_MODELS, deltas.size, measure, { state.modelStats }, isDeltaBatch = true) {
+                state.applyModelDeltas(map, deltas) { if (modelDeltas.requeue(it.key, it)) scheduleFrame() }
+            })
+        } else {
+            tally(step(MODELS, SECTION_MODELS, models.size, measure, { state.modelStats }) {
+                state.syncModels(map, models)
+            })
+        }
+        tally(step(POPOVERS, SECTION_POPOVERS, popovers.size, measure, { state.popoverStats }) {
+            state.syncPopovers(context, map, popovers)
+        })
+
+        lastFrameStats = FrameStats(
+            frameTimeNanos = frameTimeNanos,
+            coalescedUpdates = pendingUpdates,
+            issued = issued,
+            suppressed = suppressed,
+        )
+        totalIssued += issued
+        totalSuppressed += suppressed
+        if (listener != null) {
+            listener.onFrame(
+                FrameMetrics(
+                    frameTimeNanos = frameTimeNanos,
+                    durationNanos = System.nanoTime() - startNanos,
+                    coalescedUpdates = pendingUpdates,
+                    cameraSets = cameraSets,
+                    markers = stepMetrics[MARKERS],
+                    polylines = stepMetrics[POLYLINES],
+                    polygons = stepMetrics[POLYGONS],
+                    models = stepMetrics[MODELS],
+                    popovers = stepMetrics[POPOVERS],
+                    popoverCompositionsCreated = (state.popoverPoolStats.created - popoversCreatedBefore).toInt(),
+                ),
+            )
+        }
+        pendingUpdates = 0
+        // Keep going until the add backlog is drained, even without new inputs.
+        if (state.addScheduler.endFrame()) scheduleFrame()
+    }
+
+    /**
+     * Runs one object sync inside a trace section and, when [measure] is set, records its
+     * [SyncMetrics] in [stepMetrics] at [index]. [stats] is only read when measuring. For delta
+     * batches, [inputSize] counts removals too, which are then not reported as skipped.
+     */
+    private inline fun step(
+        index: Int,
+        section: String,
+        inputSize: Int,
+        measure: Boolean,
+        stats: () -> ReconcilerStats,
+        isDeltaBatch: Boolean = false,
+        sync: () -> ChangeSet,
+    ): ChangeSet {
+        if (!measure) return trace(section, sync)
+        val inPlaceBefore = stats().updatedInPlace
+        val start = System.nanoTime()
+        val changes = trace(section, sync)
+        val duration = System.nanoTime() - start
+        val inPlace = (stats().updatedInPlace - inPlaceBefore).toInt()
+        val added = changes.added.size
+        val changed = changes.changed.size
+        stepMetrics[index] = SyncMetrics(
+            durationNanos = duration,
+            added = added,
+            reAdded = changed - inPlace,
+            updatedInPlace = inPlace,
+            removed = changes.removed.size,
+            skipped = (inputSize - added - changed - (if (isDeltaBatch) changes.removed.size else 0)).coerceAtLeast(0),
+        )
+        return changes
+    }
+
+    private fun sameRestriction(a: CameraRestriction?, b: CameraRestriction?): Boolean {
+        if (a === b) return true
+        if (a == null || b == null) return false
+        val valid = a.toValidCameraRestriction() ?: return false
+        return valid.bounds == b.bounds &&
+            valid.minAltitude == b.minAltitude &&
+            valid.maxAltitude == b.maxAltitude &&
+            valid.minHeading == b.minHeading &&
+            valid.maxHeading == b.maxHeading &&
+            valid.minTilt == b.minTilt &&
+            valid.maxTilt == b.maxTilt
+    }
+
+    private companion object {
+        const val MARKERS = 0
+        const val POLYLINES = 1
+        const val POLYGONS = 2
+        const val MODELS = 3
+        const val POPOVERS = 4
+
+        const val SECTION_FRAME = "Map3D.applyFrame"
+        const val SECTION_CAMERA = "Map3D.setCamera"
+        const val SECTION_MARKERS = "Map3D.syncMarkers"
+        const val SECTION_POLYLINES = "Map3D.syncPolylines"
+        const val SECTION_POLYGONS = "Map3D.syncPolygons"
+        const val SECTION_MODELS = "Map3D.syncModels"
+        const val SECTION_POPOVERS = "Map3D.syncPopovers"
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import android.content.MutableContextWrapper
+import android.os.Looper
+import android.view.ViewGroup
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.Map3DOptions
+import com.google.android.gms.maps3d.Map3DView
+import com.google.android.gms.maps3d.OnMap3DViewReadyCallback
+
+/**
+ * Counters and latest timings of a [Map3DViewPool].
+ *
+ * @property created Views created by the pool.
+ * @property handedOff [Map3DViewPool.acquire] calls served from the pool.
+ * @property missed [Map3DViewPool.acquire] calls that found the pool empty.
+ * @property recycled Views returned through [Map3DViewPool.recycle] and kept for reuse.
+ * @property lastCreateToReadyNanos Time from creating the most recent view until the ready listener
+ * of its map fired.
+ * @property lastHandoffNanos Time from the most recent handoff until the handed-off map's ready
+ * listener fired: near zero for a view that was already warm, longer for one still loading.
+ */
+data class Map3DViewPoolStats(
+    val created: Long = 0,
+    val handedOff: Long = 0,
+    val missed: Long = 0,
+    val recycled: Long = 0,
+    val lastCreateToReadyNanos: Long? = null,
+    val lastHandoffNanos: Long? = null,
+)
+
+/**
+ * Keeps [Map3DView]s created and loading ahead of the screen that will show them.
+ *
+ * Creating a `Map3DView` and waiting for `getMap3DViewAsync` and the map-ready callback dominates
+ * time-to-first-frame on a map screen. A pool owned by something that outlives screens (an
+ * application-scoped object, or the activity hosting several map destinations) can [prewarm] a
+ * view while the current screen is idle and [acquire] it when the next screen starts. Views are
+ * created against a [MutableContextWrapper] around the application context, and the wrapper is
+ * pointed at the receiving screen's context on handoff and back at the application on [recycle].
+ *
+ * Pass the pool to `GoogleMap3D(viewPool = ...)` to have the composable acquire and recycle views
+ * itself. Readiness is tracked per map through [Map3DRegistry.whenReady], which waits for the
+ * ready listener of each new map, so a view counts as warm only once its own map is ready.
+ *
+ * Observe the owner's lifecycle with `lifecycle.addObserver(pool)` to destroy idle views when the
+ * owner is destroyed. All methods must be called on the main thread.
+ *
+ * @param context Any context; only its application context is retained.
+ * @param options Options for the views this pool creates.
+ * @param maxIdle Maximum number of idle views kept.
+ */
+class Map3DViewPool internal constructor(
+    context: Context,
+    private val options: Map3DOptions,
+    private val maxIdle: Int,
+    private val factory: (Context, Map3DOptions) -> Map3DView,
+) : DefaultLifecycleObserver {
+
+    constructor(
+        context: Context,
+        options: Map3DOptions = Map3DOptions(),
+        maxIdle: Int = 1,
+    ) : this(context, options, maxIdle, { wrapped, viewOptions -> Map3DView(wrapped, viewOptions) })
+
+    private class Entry(
+        val view: Map3DView,
+        val context: MutableContextWrapper,
+        val createdAtNanos: Long,
+    ) {
+        var map: GoogleMap3D? = null
+        var ready = false
+        var acquiredAtNanos = -1L
+    }
+
+    private val appContext = context.applicationContext
+    private val idle = ArrayDeque<Entry>()
+    private val inUse = HashMap<Map3DView, Entry>()
+
+    /**
+     * Current counters and timings.
+     */
+    var stats: Map3DViewPoolStats = Map3DViewPoolStats()
+        private set
+
+    /**
+     * Number of idle views, warm or still loading.
+     */
+    val idleCount: Int
+        get() = idle.size
+
+    /**
+     * Creates views until [count] (capped at `maxIdle`) are idle.
+     */
+    fun prewarm(count: Int = maxIdle) {
+        while (idle.size < count.coerceAtMost(maxIdle)) {
+            idle.addLast(create())
+        }
+    }
+
+    /**
+     * Like [prewarm], but waits until the main thread's message queue is idle so view creation
+     * does not compete with the current screen's frames.
+     */
+    fun prewarmWhenIdle(count: Int = maxIdle) {
+        Looper.myQueue().addIdleHandler {
+            prewarm(count)
+            false
+        }
+    }
+
+    /**
+     * Hands an idle view to the screen using [context], preferring one whose map is already
+     * ready. Returns null if the pool is empty.
+     */
+    fun acquire(context: Context): Map3DView? {
+        val entry = idle.firstOrNull { it.ready } ?: idle.firstOrNull()
+        if (entry == null) {
+            stats = stats.copy(missed = stats.missed + 1)
+            return null
+        }
+        val start = System.nanoTime()
+        idle.remove(entry)
+        entry.context.baseContext = context
+        inUse[entry.view] = entry
+        stats = stats.copy(handedOff = stats.handedOff + 1)
+        if (entry.ready) {
+            stats = stats.copy(lastHandoffNanos = System.nanoTime() - start)
+        } else {
+            entry.acquiredAtNanos = start
+        }
+        return entry.view
+    }
+
+    /**
+     * Takes back a view obtained from [acquire] once its screen is done with it.
+     *
+     * The camera-changed, map-steady and click listeners the screen set on the view's map are
+     * cleared, so an idle view holds no reference to the screen that used it.
+     *
+     * @return True if the view belonged to this pool. It is either kept idle or destroyed if the
+     * pool is full. False means the caller still owns the view and must destroy it.
+     */
+    fun recycle(view: Map3DView): Boolean {
+        val entry = inUse.remove(view) ?: return false
+        (view.parent as? ViewGroup)?.removeView(view)
+        entry.context.baseContext = appContext
+        entry.acquiredAtNanos = -1L
+        entry.map?.clearScreenListeners()
+        if (idle.size < maxIdle) {
+            idle.addLast(entry)
+            stats = stats.copy(recycled = stats.recycled + 1)
+        } else {
+            view.onDestroy()
+        }
+        return true
+    }
+
+    /**
+     * Destroys every idle view. Views handed out are left to their screens.
+     */
+    fun clear() {
+        idle.forEach { it.view.onDestroy() }
+        idle.clear()
+    }
+
+    override fun onDestroy(owner: LifecycleOwner) {
+        clear()
+    }
+
+    private fun create(): Entry {
+        val start = System.nanoTime()
+        val wrapper = MutableContextWrapper(appContext)
+        val view = factory(wrapper, options)
+        view.onCreate(null)
+        val entry = Entry(view, wrapper, start)
+        stats = stats.copy(created = stats.created + 1)
+
+        view.getMap3DViewAsync(object : OnMap3DViewReadyCallback {
+            override fun onMap3DViewReady(googleMap3D: GoogleMap3D) {
+                entry.map = googleMap3D
+                Map3DRegistry.whenReady(googleMap3D, entry) { onReady(entry) }
+            }
+
+            override fun onError(error: Exception) {
+                if (idle.remove(entry)) view.onDestroy()
+            }
+        })
+        return entry
+    }
+
+    private fun onReady(entry: Entry) {
+        if (entry.ready) return
+        entry.ready = true
+        val now = System.nanoTime()
+        stats = stats.copy(lastCreateToReadyNanos = now - entry.createdAtNanos)
+        if (entry.acquiredAtNanos >= 0) {
+            stats = stats.copy(lastHandoffNanos = now - entry.acquiredAtNanos)
+            entry.acquiredAtNanos = -1L
+        }
+    }
+}
+
+/**
+ * Clears the listeners `GoogleMap3D` sets for a screen. The ready listener is left to
+ * [Map3DRegistry].
+ */
+internal fun GoogleMap3D.clearScreenListeners() {
+    setCameraChangedListener(null)
+    setOnMapSteadyListener(null)
+    setMap3DClickListener(null)
+}
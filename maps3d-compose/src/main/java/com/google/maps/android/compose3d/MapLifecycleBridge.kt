@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.ComponentCallbacks
+import android.content.Context
+import android.content.res.Configuration
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleEventObserver
+import androidx.lifecycle.LifecycleOwner
+import com.google.android.gms.maps3d.Map3DView
+
+/**
+ * Forwards the host lifecycle to a [Map3DView] and pauses map updates while the host is stopped.
+ *
+ * The view gets `onStart`, `onResume`, `onPause`, `onStop` and `onLowMemory`; `onCreate` and
+ * `onDestroy` stay with whoever creates and releases the view. Between `ON_STOP` and `ON_START`
+ * the [dispatcher] and the follow camera are paused and [isStarted] is false, so camera callbacks
+ * can be dropped; inputs submitted meanwhile are coalesced into one update on `ON_START`.
+ *
+ * The bridge starts out paused and catches up when it is added as an observer, since the
+ * registry replays the events up to the current state. A view attached later receives the events
+ * it missed.
+ *
+ * @param dispatcher The dispatcher to pause while stopped.
+ */
+internal class MapLifecycleBridge(
+    dispatcher: Map3DUpdateDispatcher,
+) : LifecycleEventObserver, ComponentCallbacks {
+    private var view: Map3DView? = null
+    private var callbacksContext: Context? = null
+    private var resumed = false
+
+    /**
+     * True between `ON_START` and `ON_STOP`. Safe to read from any thread.
+     */
+    @Volatile
+    var isStarted: Boolean = false
+        private set
+
+    /**
+     * The dispatcher to pause while stopped. A replacement takes over the current pause state.
+     */
+    var dispatcher: Map3DUpdateDispatcher = dispatcher
+        set(value) {
+            if (field === value) return
+            field = value
+            value.isPaused = !isStarted
+        }
+
+    /**
+     * Paused and resumed along with the dispatcher.
+     */
+    var followCamera: FollowCameraController? = null
+        set(value) {
+            if (field === value) return
+            field?.isPaused = false
+            field = value
+            value?.isPaused = !isStarted
+        }
+
+    init {
+        this.dispatcher.isPaused = true
+    }
+
+    /**
+     * Starts forwarding to [view], replaying the events it has missed.
+     */
+    fun attachView(view: Map3DView) {
+        if (this.view === view) return
+        this.view?.let(::detachView)
+        this.view = view
+        if (isStarted) view.onStart()
+        if (resumed) view.onResume()
+        callbacksContext = view.context.applicationContext.also { it.registerComponentCallbacks(this) }
+    }
+
+    /**
+     * Stops forwarding to [view], pausing and stopping it if it is running.
+     */
+    fun detachView(view: Map3DView) {
+        if (this.view !== view) return
+        if (resumed) view.onPause()
+        if (isStarted) view.onStop()
+        callbacksContext?.unregisterComponentCallbacks(this)
+        callbacksContext = null
+        this.view = null
+    }
+
+    override fun onStateChanged(source: LifecycleOwner, event: Lifecycle.Event) {
+        when (event) {
+            Lifecycle.Event.ON_START -> {
+                isStarted = true
+                view?.onStart()
+                followCamera?.isPaused = false
+                dispatcher.isPaused = false
+            }
+            Lifecycle.Event.ON_RESUME -> {
+                resumed = true
+                view?.onResume()
+            }
+            Lifecycle.Event.ON_PAUSE -> {
+                resumed = false
+                view?.onPause()
+            }
+            Lifecycle.Event.ON_STOP -> {
+                isStarted = false
+                dispatcher.isPaused = true
+                followCamera?.isPaused = true
+                view?.onStop()
+            }
+            else -> Unit
+        }
+    }
+
+    override fun onLowMemory() {
+        view?.onLowMemory()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) = Unit
+}
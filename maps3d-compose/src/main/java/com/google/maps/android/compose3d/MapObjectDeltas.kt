@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+/**
+ * A keyed change to one map object, used to stream updates into `GoogleMap3D` instead of passing
+ * full list snapshots.
+ *
+ * @param C The configuration type, e.g. [MarkerConfig].
+ */
+sealed interface MapObjectDelta<out C : Any> {
+    /**
+     * The key of the object this delta applies to.
+     */
+    val key: String
+
+    /**
+     * Adds the object, or replaces the one with the same key.
+     */
+    data class Upsert<out C : Any>(override val key: String, val config: C) : MapObjectDelta<C>
+
+    /**
+     * Removes the object with [key], if present.
+     */
+    data class Remove(override val key: String) : MapObjectDelta<Nothing>
+}
+
+/**
+ * Creates an upsert for a [MarkerConfig], keyed by [MarkerConfig.key].
+ */
+fun MarkerConfig.asUpsert(): MapObjectDelta<MarkerConfig> = MapObjectDelta.Upsert(key, this)
+
+/**
+ * Creates an upsert for a [ModelConfig], keyed by [ModelConfig.key].
+ */
+fun ModelConfig.asUpsert(): MapObjectDelta<ModelConfig> = MapObjectDelta.Upsert(key, this)
+
+/**
+ * Per-key conflating buffer between a delta producer and the frame loop.
+ *
+ * Producers [offer] batches from any thread without ever suspending; a later delta for a key
+ * overwrites an earlier one that has not been drained yet. The frame loop [drain]s everything at
+ * once, so a slow main thread sees at most one change per key per frame no matter how many
+ * batches arrived in between. Memory is bounded by the number of distinct keys.
+ *
+ * The buffer also remembers whether a frame has been requested since the last [drain]. [offer]
+ * and [requeue] return true whenever there is something pending and no frame is requested yet,
+ * so a delta re-queued by a failed create is never left waiting for the next producer batch.
+ */
+internal class DeltaBuffer<C : Any> {
+    private val lock = Any()
+    private var pending = LinkedHashMap<String, C?>()
+    private var spare = LinkedHashMap<String, C?>()
+    private var frameRequested = false
+
+    /**
+     * Number of deltas folded into an already pending key since creation.
+     */
+    @Volatile
+    var conflated: Long = 0
+        private set
+
+    /**
+     * Adds [batch], overwriting pending deltas for the same keys.
+     *
+     * @return True if the caller should request a frame: deltas are pending and none was
+     * requested since the last [drain].
+     */
+    fun offer(batch: List<MapObjectDelta<C>>): Boolean = synchronized(lock) {
+        var folded = 0
+        for (delta in batch) {
+            val value = when (delta) {
+                is MapObjectDelta.Upsert -> delta.config
+                is MapObjectDelta.Remove -> null
+            }
+            if (pending.containsKey(delta.key)) folded++
+            pending[delta.key] = value
+        }
+        conflated += folded
+        claimFrame()
+    }
+
+    /**
+     * Re-queues [config] unless a newer delta for its key arrived meanwhile.
+     *
+     * @return True if the caller should request a frame, as for [offer].
+     */
+    fun requeue(key: String, config: C): Boolean = synchronized(lock) {
+        if (!pending.containsKey(key)) pending[key] = config
+        claimFrame()
+    }
+
+    /**
+     * Returns and clears all pending deltas. The returned map is only valid until the next call.
+     */
+    fun drain(): Map<String, C?> = synchronized(lock) {
+        frameRequested = false
+        val drained = pending
+        spare.clear()
+        pending = spare
+        spare = drained
+        drained
+    }
+
+    /**
+     * Drops all pending deltas.
+     */
+    fun clear() {
+        synchronized(lock) {
+            pending.clear()
+            frameRequested = false
+        }
+    }
+
+    private fun claimFrame(): Boolean {
+        if (frameRequested || pending.isEmpty()) return false
+        frameRequested = true
+        return true
+    }
+}
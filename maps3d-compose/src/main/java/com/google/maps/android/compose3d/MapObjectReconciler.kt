@@ -0,0 +1,628 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.LatLngAltitude
+
+/**
+ * The keys touched by a single reconciliation pass.
+ *
+ * @property added Keys of objects that were newly created on the map.
+ * @property changed Keys of objects whose configuration changed and were re-issued to the map or
+ * updated in place.
+ * @property removed Keys of objects that were removed from the map.
+ */
+data class ChangeSet(
+    val added: List<String> = emptyList(),
+    val changed: List<String> = emptyList(),
+    val removed: List<String> = emptyList(),
+) {
+    /**
+     * True when the pass did not touch the map at all.
+     */
+    val isEmpty: Boolean
+        get() = added.isEmpty() && changed.isEmpty() && removed.isEmpty()
+
+    companion object {
+        /**
+         * Shared instance returned when a pass is skipped.
+         */
+        val EMPTY = ChangeSet()
+    }
+}
+
+/**
+ * Cumulative counters for a single object type managed by [Map3DState].
+ *
+ * An idle recomposition (same list instance, or a new list with the same content) should only
+ * move [syncs] and one of the skip counters; [comparisons] stays flat, which is how callers can
+ * confirm that the no-op path issued no SDK calls. An identity skip is O(1); a fingerprint skip
+ * still hashes and compares every config once.
+ *
+ * @property syncs Number of times the reconciler was asked to sync.
+ * @property skippedByIdentity Syncs that skipped the diff because the exact same list instance was
+ * passed again. Such a sync may still add objects from the add backlog.
+ * @property skippedByFingerprint Syncs that skipped the diff because the list content was
+ * unchanged.
+ * @property comparisons Number of per-object config comparisons performed by full passes.
+ * @property added Total number of objects added.
+ * @property changed Total number of objects whose config changed, whether re-issued or updated
+ * in place.
+ * @property removed Total number of objects removed.
+ * @property updatedInPlace Changes applied through property setters on the live object instead
+ * of re-issuing it.
+ */
+data class ReconcilerStats(
+    val syncs: Long = 0,
+    val skippedByIdentity: Long = 0,
+    val skippedByFingerprint: Long = 0,
+    val comparisons: Long = 0,
+    val added: Long = 0,
+    val changed: Long = 0,
+    val removed: Long = 0,
+    val updatedInPlace: Long = 0,
+) {
+    /**
+     * Fraction of changes that took the in-place fast path, or 0 when nothing changed.
+     */
+    val inPlaceRate: Double
+        get() = if (changed == 0L) 0.0 else updatedInPlace.toDouble() / changed
+}
+
+/**
+ * Keyed reconciler that maps a list of user configurations onto live SDK objects.
+ *
+ * Each pass does work proportional to what changed:
+ * - If the same list instance is passed again, the pass returns immediately.
+ * - If a new list has the same content fingerprint (ordered hash of every config) and the same
+ *   size as the tracked set, every config is confirmed equal to the tracked one for its key and
+ *   the pass returns without touching the map. The confirmation keeps a hash collision from
+ *   hiding a change; it is O(n), like the hash walk, but allocates nothing.
+ * - Otherwise every config is looked up by key, compared once, and entries that were not seen
+ *   are removed. Seen entries are marked with a generation counter rather than collected into a
+ *   `keysToRemove` set, so an unchanged pass allocates nothing per object.
+ *
+ * When an [addScheduler] with a budget is given, brand-new keys are not created inline. They go
+ * into a backlog that outlives the pass, ordered by distance from the scheduler's origin (using
+ * [positionOf]) at the time they are queued, and every pass creates from its front for as long as
+ * the scheduler admits them, after removals. Passes skipped by identity or fingerprint drain it
+ * too, so an unchanged list is not diffed again while its adds trickle in, and queued configs are
+ * never re-sorted: later keys are sorted among themselves and merged in. Changes and removals are
+ * never deferred.
+ *
+ * When an enabled [pool] is given, new keys likewise go through the backlog, and each one first
+ * tries to take over an object retired earlier in the same pass.
+ *
+ * @param C The configuration type, e.g. [MarkerConfig].
+ * @param T The SDK object type, e.g. [com.google.android.gms.maps3d.model.Marker].
+ * @param keyOf Extracts the stable key from a configuration.
+ * @param remove Removes the SDK object tracked for a key from the map.
+ * @param checkThread Called at the start of every mutating method, to enforce the owner's
+ * threading rule.
+ * @param addScheduler Optional per-frame budget for adds.
+ * @param positionOf Where an object is, for ordering budgeted adds. Without it, or for objects
+ * without a position, adds keep list order.
+ * @param pool Optional free-list recycling removed objects for new keys.
+ */
+internal class MapObjectReconciler<C : Any, T : Any>(
+    private val keyOf: (C) -> String,
+    private val remove: (key: String, handle: T) -> Unit,
+    private val checkThread: () -> Unit = {},
+    private val addScheduler: AddScheduler? = null,
+    private val positionOf: ((C) -> LatLngAltitude?)? = null,
+    private val pool: HandlePool<C, T>? = null,
+) {
+    private class Entry<C, T>(var config: C, var handle: T, var generation: Int)
+
+    private class Queued<C>(val key: String, var config: C, var generation: Int, val distance: Double)
+
+    private val entries = HashMap<String, Entry<C, T>>()
+    private var lastConfigs: List<C>? = null
+    private var lastFingerprint = 0L
+    private var generation = 0
+
+    // Keys waiting to be created; an order slot is stale once its key maps to another Queued.
+    private val backlog = HashMap<String, Queued<C>>()
+    private var backlogOrder = ArrayList<Queued<C>>()
+    private var backlogHead = 0
+
+    private var syncs = 0L
+    private var skippedByIdentity = 0L
+    private var skippedByFingerprint = 0L
+    private var comparisons = 0L
+    private var addedCount = 0L
+    private var changedCount = 0L
+    private var removedCount = 0L
+    private var updatedInPlaceCount = 0L
+
+    /**
+     * A snapshot of the counters accumulated so far.
+     */
+    val stats: ReconcilerStats
+        get() = ReconcilerStats(
+            syncs = syncs,
+            skippedByIdentity = skippedByIdentity,
+            skippedByFingerprint = skippedByFingerprint,
+            comparisons = comparisons,
+            added = addedCount,
+            changed = changedCount,
+            removed = removedCount,
+            updatedInPlace = updatedInPlaceCount,
+        )
+
+    /**
+     * Number of objects currently tracked.
+     */
+    val size: Int
+        get() = entries.size
+
+    /**
+     * Returns the SDK object currently associated with [key], if any.
+     */
+    operator fun get(key: String): T? = entries[key]?.handle
+
+    /**
+     * Returns the config last applied for [key], if any.
+     */
+    fun configOf(key: String): C? = entries[key]?.config
+
+    /**
+     * Reconciles the tracked objects against [configs].
+     *
+     * @param create Creates the SDK object for a config. `previous` is the object currently
+     * associated with the same key when the config changed, or null for a brand-new key.
+     * Returning null leaves the previous state untouched and the config is retried next pass;
+     * a queued add keeps its place at the back of the backlog.
+     * @param bind Optional hook invoked for every tracked config on any pass that is not skipped
+     * by identity, including fingerprint-equal passes. Used to refresh state that is deliberately
+     * not part of config identity, such as click handlers, without touching the map.
+     * @param update Optional fast path tried before [create] when a tracked config changed. It
+     * returns true if it applied the change to the live object in place, or false if the change
+     * touches fields that require re-issuing the object.
+     * @return The keys that were added, changed, or removed by this pass.
+     */
+    fun sync(
+        configs: List<C>,
+        create: (config: C, previous: T?) -> T?,
+        bind: ((config: C, handle: T) -> Unit)? = null,
+        update: ((previous: C, config: C, handle: T) -> Boolean)? = null,
+    ): ChangeSet {
+        checkThread()
+        syncs++
+        if (configs === lastConfigs) {
+            skippedByIdentity++
+            return changeSetOf(drainBacklog(create, bind, keepFailed = true))
+        }
+
+        val fingerprint = fingerprintOf(configs)
+        if (lastConfigs != null && fingerprint == lastFingerprint && configs.size == entries.size + backlog.size &&
+            matchesTracked(configs)
+        ) {
+            if (bind != null) {
+                for (i in configs.indices) {
+                    val config = configs[i]
+                    entries[keyOf(config)]?.let { bind(config, it.handle) }
+                }
+            }
+            lastConfigs = configs
+            skippedByFingerprint++
+            return changeSetOf(drainBacklog(create, bind, keepFailed = true))
+        }
+
+        val pass = ++generation
+        val queueAdds = usesBacklog()
+        var seen = 0
+        var incomplete = false
+        var added: MutableList<String>? = null
+        var changed: MutableList<String>? = null
+        var newConfigs: MutableList<C>? = null
+
+        for (i in configs.indices) {
+            val config = configs[i]
+            val key = keyOf(config)
+            val entry = entries[key]
+
+            if (entry == null) {
+                val queued = backlog[key]
+                if (queued != null) {
+                    // Already waiting; keep its place in the backlog.
+                    queued.config = config
+                    queued.generation = pass
+                    continue
+                }
+            }
+            if (entry == null && queueAdds) {
+                newConfigs = (newConfigs ?: ArrayList()).apply { add(config) }
+                continue
+            }
+            if (entry == null) {
+                val handle = create(config, null)
+                if (handle == null) {
+                    incomplete = true
+                    continue
+                }
+                entries[key] = Entry(config, handle, pass)
+                bind?.invoke(config, handle)
+                seen++
+                addedCount++
+                added = (added ?: ArrayList()).apply { add(key) }
+                continue
+            }
+
+            if (entry.generation != pass) {
+                entry.generation = pass
+                seen++
+            }
+            comparisons++
+            if (entry.config != config) {
+                if (change(entry, config, create, update)) {
+                    changed = (changed ?: ArrayList()).apply { add(key) }
+                } else {
+                    incomplete = true
+                }
+            }
+            bind?.invoke(config, entry.handle)
+        }
+
+        val pool = pool?.takeIf { it.capacity > 0 }
+        var removed: MutableList<String>? = null
+        if (seen < entries.size) {
+            val iterator = entries.entries.iterator()
+            while (iterator.hasNext()) {
+                val (key, entry) = iterator.next()
+                if (entry.generation != pass) {
+                    if (pool == null || !pool.retire(key, entry.config, entry.handle)) remove(key, entry.handle)
+                    iterator.remove()
+                    removedCount++
+                    removed = (removed ?: ArrayList()).apply { add(key) }
+                }
+            }
+        }
+        if (backlog.isNotEmpty()) {
+            // Queued configs whose key left the list are dropped before they ever reach the map.
+            val iterator = backlog.values.iterator()
+            while (iterator.hasNext()) {
+                if (iterator.next().generation != pass) iterator.remove()
+            }
+        }
+
+        if (newConfigs != null) enqueue(newConfigs, pass)
+        added = concat(added, drainBacklog(create, bind, keepFailed = true))
+        pool?.flush()
+
+        // A failed change must be retried on the next pass, so only remember lists that were
+        // fully applied. Queued adds do not count: the backlog drains on identity-skipped passes.
+        lastConfigs = if (incomplete) null else configs
+        lastFingerprint = fingerprint
+
+        if (added == null && changed == null && removed == null) return ChangeSet.EMPTY
+        return ChangeSet(
+            added = added ?: emptyList(),
+            changed = changed ?: emptyList(),
+            removed = removed ?: emptyList(),
+        )
+    }
+
+    /**
+     * True when every config in [configs] equals the tracked or queued config for its key and no
+     * key repeats, i.e. a full pass would not change anything.
+     */
+    private fun matchesTracked(configs: List<C>): Boolean {
+        val pass = ++generation
+        for (i in configs.indices) {
+            val config = configs[i]
+            val key = keyOf(config)
+            val entry = entries[key]
+            if (entry == null) {
+                val queued = backlog[key] ?: return false
+                if (queued.generation == pass || queued.config != config) return false
+                queued.generation = pass
+                continue
+            }
+            if (entry.generation == pass || entry.config != config) return false
+            entry.generation = pass
+        }
+        return true
+    }
+
+    /**
+     * Applies keyed changes without diffing the full set: a non-null value upserts the config for
+     * its key, a null value removes the key. Only the keys in [deltas] are looked at, plus the
+     * front of the add backlog, which is drained even when [deltas] is empty.
+     *
+     * The next [sync] always runs a full pass, since the tracked set no longer matches the last
+     * synced list.
+     *
+     * @param create See [sync].
+     * @param bind See [sync]; invoked for every upserted config.
+     * @param update See [sync].
+     * @param retry Receives upserts whose [create] returned null, so the caller can re-queue them.
+     * @return The keys that were added, changed, or removed.
+     */
+    fun apply(
+        deltas: Map<String, C?>,
+        create: (config: C, previous: T?) -> T?,
+        bind: ((config: C, handle: T) -> Unit)? = null,
+        update: ((previous: C, config: C, handle: T) -> Boolean)? = null,
+        retry: (config: C) -> Unit = {},
+    ): ChangeSet {
+        checkThread()
+        if (deltas.isEmpty()) return changeSetOf(drainBacklog(create, bind, keepFailed = false, retry))
+        lastConfigs = null
+        val queueAdds = usesBacklog()
+        val pool = pool?.takeIf { it.capacity > 0 }
+        var added: MutableList<String>? = null
+        var changed: MutableList<String>? = null
+        var removed: MutableList<String>? = null
+        var newConfigs: MutableList<C>? = null
+
+        for ((key, config) in deltas) {
+            val entry = entries[key]
+            if (config == null) {
+                if (entry != null) {
+                    if (pool == null || !pool.retire(key, entry.config, entry.handle)) remove(key, entry.handle)
+                    entries.remove(key)
+                    removedCount++
+                    removed = (removed ?: ArrayList()).apply { add(key) }
+                } else {
+                    backlog.remove(key)
+                }
+                continue
+            }
+            if (entry == null) {
+                val queued = backlog[key]
+                if (queued != null) {
+                    queued.config = config
+                    continue
+                }
+            }
+            if (entry == null && queueAdds) {
+                newConfigs = (newConfigs ?: ArrayList()).apply { add(config) }
+                continue
+            }
+            if (entry == null) {
+                val handle = create(config, null)
+                if (handle == null) {
+                    retry(config)
+                    continue
+                }
+                entries[key] = Entry(config, handle, generation)
+                bind?.invoke(config, handle)
+                addedCount++
+                added = (added ?: ArrayList()).apply { add(key) }
+                continue
+            }
+            comparisons++
+            if (entry.config != config) {
+                if (!change(entry, config, create, update)) {
+                    retry(config)
+                    continue
+                }
+                changed = (changed ?: ArrayList()).apply { add(key) }
+            }
+            bind?.invoke(config, entry.handle)
+        }
+
+        if (newConfigs != null) enqueue(newConfigs, generation)
+        added = concat(added, drainBacklog(create, bind, keepFailed = false, retry))
+        pool?.flush()
+
+        if (added == null && changed == null && removed == null) return ChangeSet.EMPTY
+        return ChangeSet(
+            added = added ?: emptyList(),
+            changed = changed ?: emptyList(),
+            removed = removed ?: emptyList(),
+        )
+    }
+
+    /**
+     * True when new keys go through the backlog rather than being created inline.
+     */
+    private fun usesBacklog(): Boolean =
+        addScheduler?.budget != null || (pool?.capacity ?: 0) > 0
+
+    /**
+     * Queues [newConfigs], none of which is tracked or queued yet. With a budgeted scheduler and
+     * [positionOf], they are sorted by distance from the scheduler's current origin and merged
+     * into the rest of the backlog, which keeps the order it was given when it was queued.
+     */
+    private fun enqueue(newConfigs: List<C>, generation: Int) {
+        val scheduler = addScheduler?.takeIf { it.budget != null }
+        val positionOf = positionOf
+        val fresh = ArrayList<Queued<C>>(newConfigs.size)
+        for (i in newConfigs.indices) {
+            val config = newConfigs[i]
+            val key = keyOf(config)
+            val repeated = backlog[key]
+            if (repeated != null) {
+                // A key repeated within the list: the last config wins, as for tracked keys.
+                repeated.config = config
+                continue
+            }
+            val distance = if (scheduler != null && positionOf != null) {
+                positionOf(config)?.let(scheduler::distanceSquared) ?: Double.MAX_VALUE
+            } else {
+                0.0
+            }
+            val queued = Queued(key, config, generation, distance)
+            backlog[key] = queued
+            fresh.add(queued)
+        }
+        fresh.sortBy { it.distance }
+
+        val merged = ArrayList<Queued<C>>(backlogOrder.size - backlogHead + fresh.size)
+        var a = backlogHead
+        var b = 0
+        while (a < backlogOrder.size || b < fresh.size) {
+            val existing = if (a < backlogOrder.size) backlogOrder[a] else null
+            if (existing != null && backlog[existing.key] !== existing) {
+                a++
+                continue
+            }
+            if (existing != null && (b == fresh.size || existing.distance <= fresh[b].distance)) {
+                merged.add(existing)
+                a++
+            } else {
+                merged.add(fresh[b++])
+            }
+        }
+        backlogOrder = merged
+        backlogHead = 0
+    }
+
+    /**
+     * Creates queued configs from the front of the backlog, reusing objects from [pool] where
+     * possible. With a budgeted scheduler, creates stop once it stops admitting them; reuses are
+     * in-place updates and not budgeted. Whatever is left is reported to the scheduler.
+     *
+     * A config whose [create] fails stays queued at the back when [keepFailed] is set, and is
+     * otherwise dropped and handed to [retry].
+     *
+     * @return The keys that were added, or null if none were.
+     */
+    private inline fun drainBacklog(
+        create: (config: C, previous: T?) -> T?,
+        noinline bind: ((config: C, handle: T) -> Unit)?,
+        keepFailed: Boolean,
+        retry: (config: C) -> Unit = {},
+    ): MutableList<String>? {
+        if (backlog.isEmpty()) return null
+        val scheduler = addScheduler?.takeIf { it.budget != null }
+        val pool = pool?.takeIf { it.capacity > 0 }
+        var added: MutableList<String>? = null
+        var failed: MutableList<Queued<C>>? = null
+        var overBudget = false
+        var i = backlogHead
+        while (i < backlogOrder.size) {
+            val queued = backlogOrder[i++]
+            if (backlog[queued.key] !== queued) {
+                if (!overBudget) backlogHead = i
+                continue
+            }
+            val config = queued.config
+            var handle = pool?.acquire(config)
+            if (handle == null) {
+                if (overBudget || (scheduler != null && !scheduler.admit())) {
+                    overBudget = true
+                    // Only reuses are still possible; stop early once there are none left.
+                    if (pool == null || pool.isEmpty) break
+                    continue
+                }
+                handle = create(config, null)
+                if (handle == null) {
+                    if (keepFailed) {
+                        failed = (failed ?: ArrayList()).apply { add(queued) }
+                    } else {
+                        backlog.remove(queued.key)
+                        retry(config)
+                    }
+                    if (!overBudget) backlogHead = i
+                    continue
+                }
+            }
+            backlog.remove(queued.key)
+            if (!overBudget) backlogHead = i
+            entries[queued.key] = Entry(config, handle, generation)
+            bind?.invoke(config, handle)
+            addedCount++
+            added = (added ?: ArrayList()).apply { add(queued.key) }
+        }
+
+        if (backlog.isEmpty()) {
+            backlogOrder.clear()
+            backlogHead = 0
+        } else {
+            failed?.let { backlogOrder.addAll(it) }
+            if (backlogHead >= COMPACT_THRESHOLD && backlogHead * 2 >= backlogOrder.size) {
+                backlogOrder.subList(0, backlogHead).clear()
+                backlogHead = 0
+            }
+        }
+        scheduler?.defer(backlog.size)
+        return added
+    }
+
+    private fun changeSetOf(added: List<String>?): ChangeSet =
+        if (added == null) ChangeSet.EMPTY else ChangeSet(added = added)
+
+    private fun concat(first: MutableList<String>?, second: MutableList<String>?): MutableList<String>? =
+        if (first == null) second else if (second == null) first else first.apply { addAll(second) }
+
+    /**
+     * Applies a changed config to [entry], in place if [update] accepts it.
+     *
+     * @return False if the object had to be re-issued and [create] failed.
+     */
+    private inline fun change(
+        entry: Entry<C, T>,
+        config: C,
+        create: (config: C, previous: T?) -> T?,
+        noinline update: ((previous: C, config: C, handle: T) -> Boolean)?,
+    ): Boolean {
+        if (update != null && update(entry.config, config, entry.handle)) {
+            updatedInPlaceCount++
+        } else {
+            entry.handle = create(config, entry.handle) ?: return false
+        }
+        entry.config = config
+        changedCount++
+        return true
+    }
+
+    /**
+     * Removes every tracked object from the map and forgets the last synced list.
+     */
+    fun clear() {
+        checkThread()
+        entries.forEach { (key, entry) -> remove(key, entry.handle) }
+        entries.clear()
+        clearBacklog()
+        lastConfigs = null
+        lastFingerprint = 0L
+    }
+
+    /**
+     * Forgets every tracked object without calling [remove], for objects that died with their
+     * map. The next [sync] adds everything again.
+     */
+    fun forget() {
+        checkThread()
+        entries.clear()
+        clearBacklog()
+        lastConfigs = null
+        lastFingerprint = 0L
+    }
+
+    private fun clearBacklog() {
+        backlog.clear()
+        backlogOrder.clear()
+        backlogHead = 0
+    }
+
+    private fun fingerprintOf(configs: List<C>): Long {
+        var hash = Fingerprint.SEED
+        for (i in configs.indices) {
+            hash = Fingerprint.mix(hash, configs[i].hashCode().toLong())
+        }
+        return hash
+    }
+
+    private companion object {
+        /** Consumed slots at the front of the backlog order before it is compacted. */
+        const val COMPACT_THRESHOLD = 64
+    }
+}
@@ -64,16 +64,21 @@ fun ModelConfig.toModelOptions(overrideId: String? = null) = modelOptions {
         roll = this@toModelOptions.roll
     }
     url = this@toModelOptions.url
-    scale = when (val s = this@toModelOptions.scale) {
-        is ModelScale.Uniform -> vector3D {
-            x = s.value.toDouble()
-            y = s.value.toDouble()
-            z = s.value.toDouble()
-        }
-        is ModelScale.PerAxis -> vector3D {
-            x = s.x.toDouble()
-            y = s.y.toDouble()
-            z = s.z.toDouble()
-        }
+    scale = this@toModelOptions.scale.toVector3D()
+}
+
+/**
+ * Maps a [ModelScale] to the SDK's per-axis scale vector.
+ */
+internal fun ModelScale.toVector3D() = when (this) {
+    is ModelScale.Uniform -> vector3D {
+        x = value.toDouble()
+        y = value.toDouble()
+        z = value.toDouble()
+    }
+    is ModelScale.PerAxis -> vector3D {
+        x = this@toVector3D.x.toDouble()
+        y = this@toVector3D.y.toDouble()
+        z = this@toVector3D.z.toDouble()
     }
 }
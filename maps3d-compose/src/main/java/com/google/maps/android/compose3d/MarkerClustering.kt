@@ -0,0 +1,292 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberUpdatedState
+import androidx.compose.runtime.snapshotFlow
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.utils.DEFAULT_RANGE
+import com.google.maps.android.compose3d.utils.GeoBounds
+import com.google.maps.android.compose3d.utils.groundFootprint
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.withContext
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.ln
+
+/**
+ * Options for [MarkerClusterer].
+ *
+ * @property clusterRadiusFactor Target cluster cell size as a fraction of [Camera.range]. Larger
+ * values produce fewer, bigger clusters.
+ * @property maxCellSizeDegrees Cell size of the coarsest pyramid level.
+ * @property minCellSizeDegrees Cell size of the finest pyramid level. When the camera is close
+ * enough that the target cell would be smaller than this, points are emitted individually.
+ * @property margin Extra area around the camera footprint, as a fraction of its size, that is
+ * also emitted so clusters do not pop in at the screen edge.
+ */
+data class ClusterOptions(
+    val clusterRadiusFactor: Double = 0.15,
+    val maxCellSizeDegrees: Double = 10.0,
+    val minCellSizeDegrees: Double = 0.0005,
+    val margin: Double = 0.25,
+)
+
+/**
+ * A group of points that share a pyramid cell at the current zoom level.
+ *
+ * @property key Stable key for the cluster, unique per level and cell.
+ * @property position Centroid of the clustered points.
+ * @property count Number of points in the cluster.
+ * @property level Pyramid level the cluster was taken from; 0 is the coarsest.
+ */
+data class Cluster(
+    val key: String,
+    val position: LatLngAltitude,
+    val count: Int,
+    val level: Int,
+)
+
+/**
+ * Default cluster marker: a ground-clamped marker labelled with the point count.
+ */
+fun defaultClusterMarker(cluster: Cluster): MarkerConfig = MarkerConfig(
+    key = cluster.key,
+    position = cluster.position,
+    label = cluster.count.toString(),
+)
+
+/**
+ * Range-driven, grid-based clustering for large point sets.
+ *
+ * The constructor builds a quadtree-like pyramid of grid levels once: the finest level buckets
+ * point indices, and each coarser level merges 2x2 child cells, so the build is O(n) plus the
+ * number of occupied cells. [cluster] then only picks the level that matches [Camera.range] and
+ * walks the occupied cells inside the camera footprint. Reclustering on every camera change is
+ * therefore independent of the total number of points.
+ *
+ * Cluster [MarkerConfig]s are cached per cell and reused across calls, and the previous result
+ * list is returned as-is when neither the level nor the covered cells changed. [Map3DState]
+ * diffs the result by key, so only clusters that appear, disappear or change count touch the map.
+ *
+ * Construction is the expensive part; do it off the main thread (see [rememberClusteredMarkers]).
+ * Instances are not thread-safe; call [cluster] from one thread at a time.
+ *
+ * @param markers The points to cluster.
+ * @param options Pyramid and level selection options.
+ * @param clusterMarker Builds the marker shown for a multi-point cluster.
+ */
+class MarkerClusterer(
+    private val markers: List<MarkerConfig>,
+    private val options: ClusterOptions = ClusterOptions(),
+    private val clusterMarker: (Cluster) -> MarkerConfig = ::defaultClusterMarker,
+) {
+    private class Cell(val row: Int, val column: Int) {
+        var count = 0
+        var sumLatitude = 0.0
+        var sumLongitude = 0.0
+        var points: IntArrayList? = null
+        var firstIndex = -1
+        var marker: MarkerConfig? = null
+    }
+
+    private val levelCount: Int
+    private val cellSizes: DoubleArray
+    private val levels: Array<HashMap<Long, Cell>>
+
+    private var lastLevel = -2
+    private var lastRows = IntRange.EMPTY
+    private var lastColumns = IntRange.EMPTY
+    private var lastResult: List<MarkerConfig> = emptyList()
+
+    init {
+        val ratio = options.maxCellSizeDegrees / options.minCellSizeDegrees
+        levelCount = (ceil(ln(ratio) / ln(2.0)).toInt() + 1).coerceAtLeast(1)
+        cellSizes = DoubleArray(levelCount) { options.maxCellSizeDegrees / (1 shl it) }
+        levels = Array(levelCount) { HashMap() }
+
+        // Finest level: bucket point indices.
+        val finest = levels[levelCount - 1]
+        val finestSize = cellSizes[levelCount - 1]
+        for (i in markers.indices) {
+            val position = markers[i].position
+            val row = floor(position.latitude / finestSize).toInt()
+            val column = floor(position.longitude / finestSize).toInt()
+            val cell = finest.getOrPut(cellKey(row, column)) { Cell(row, column) }
+            if (cell.count == 0) cell.firstIndex = i
+            cell.count++
+            cell.sumLatitude += position.latitude
+            cell.sumLongitude += position.longitude
+            (cell.points ?: IntArrayList().also { cell.points = it }).add(i)
+        }
+
+        // Coarser levels: merge 2x2 children.
+        for (level in levelCount - 2 downTo 0) {
+            val parent = levels[level]
+            for (child in levels[level + 1].values) {
+                val row = child.row shr 1
+                val column = child.column shr 1
+                val cell = parent.getOrPut(cellKey(row, column)) { Cell(row, column) }
+                if (cell.count == 0) cell.firstIndex = child.firstIndex
+                cell.count += child.count
+                cell.sumLatitude += child.sumLatitude
+                cell.sumLongitude += child.sumLongitude
+            }
+        }
+    }
+
+    /**
+     * Number of pyramid levels.
+     */
+    val levelsBuilt: Int
+        get() = levelCount
+
+    /**
+     * Returns the pyramid level used for [range], or -1 if points should be shown individually.
+     */
+    fun levelFor(range: Double): Int {
+        val target = range * options.clusterRadiusFactor / METERS_PER_DEGREE
+        if (target < options.minCellSizeDegrees) return -1
+        val level = ceil(ln(options.maxCellSizeDegrees / target) / ln(2.0)).toInt()
+        return level.coerceIn(0, levelCount - 1)
+    }
+
+    /**
+     * Returns the markers to show for [camera]: original markers for isolated points and
+     * [clusterMarker] results for cells holding more than one point.
+     */
+    fun cluster(camera: Camera): List<MarkerConfig> {
+        val level = levelFor(camera.range ?: DEFAULT_RANGE)
+        val bounds = camera.groundFootprint().expandedBy(options.margin)
+        val cellLevel = if (level < 0) levelCount - 1 else level
+        val size = cellSizes[cellLevel]
+        val rows = floor(bounds.south / size).toInt()..floor(bounds.north / size).toInt()
+        val columns = floor(bounds.west / size).toInt()..floor(bounds.east / size).toInt()
+
+        if (level == lastLevel && rows == lastRows && columns == lastColumns) return lastResult
+
+        val result = ArrayList<MarkerConfig>()
+        forEachCell(levels[cellLevel], rows, columns) { cell ->
+            when {
+                level < 0 -> {
+                    val points = cell.points ?: return@forEachCell
+                    for (j in 0 until points.size) {
+                        val marker = markers[points[j]]
+                        if (bounds.contains(marker.position)) result.add(marker)
+                    }
+                }
+                cell.count == 1 -> result.add(markers[cell.firstIndex])
+                else -> result.add(cell.marker ?: createClusterMarker(cell, level).also { cell.marker = it })
+            }
+        }
+
+        lastLevel = level
+        lastRows = rows
+        lastColumns = columns
+        lastResult = result
+        return result
+    }
+
+    private fun createClusterMarker(cell: Cell, level: Int): MarkerConfig = clusterMarker(
+        Cluster(
+            key = "cluster:$level:${cell.row}:${cell.column}",
+            position = latLngAltitude {
+                latitude = cell.sumLatitude / cell.count
+                longitude = cell.sumLongitude / cell.count
+                altitude = 0.0
+            },
+            count = cell.count,
+            level = level,
+        ),
+    )
+
+    private inline fun forEachCell(
+        cells: HashMap<Long, Cell>,
+        rows: IntRange,
+        columns: IntRange,
+        action: (Cell) -> Unit,
+    ) {
+        val span = (rows.last - rows.first + 1).toLong() * (columns.last - columns.first + 1)
+        if (span > cells.size) {
+            for (cell in cells.values) {
+                if (cell.row in rows && cell.column in columns) action(cell)
+            }
+        } else {
+            for (row in rows) {
+                for (column in columns) {
+                    cells[cellKey(row, column)]?.let(action)
+                }
+            }
+        }
+    }
+
+    private fun GeoBounds.contains(position: LatLngAltitude) = contains(position.latitude, position.longitude)
+
+    private fun cellKey(row: Int, column: Int): Long = (row.toLong() shl 32) or (column.toLong() and 0xffffffffL)
+
+    private companion object {
+        const val METERS_PER_DEGREE = 111_320.0
+    }
+}
+
+/**
+ * Clusters [markers] for the current [camera] off the main thread.
+ *
+ * The pyramid is rebuilt on [Dispatchers.Default] whenever [markers] or [options] change, and
+ * each camera update reclusters on the same dispatcher. Intermediate cameras are conflated, so a
+ * fast fling only reclusters for the latest position. Pass the result straight to
+ * `GoogleMap3D(markers = ...)`; unchanged clusters keep their instances and are skipped by the
+ * reconciler.
+ *
+ * @param markers The full point set.
+ * @param camera The current camera, typically hoisted from `onCameraChanged`.
+ * @param options Clustering options.
+ * @param clusterMarker Builds the marker shown for a multi-point cluster.
+ * @return The markers to display, initially empty until the first clustering pass completes.
+ */
+@Composable
+fun rememberClusteredMarkers(
+    markers: List<MarkerConfig>,
+    camera: Camera,
+    options: ClusterOptions = ClusterOptions(),
+    clusterMarker: (Cluster) -> MarkerConfig = ::defaultClusterMarker,
+): List<MarkerConfig> {
+    val currentCamera by rememberUpdatedState(camera)
+    val currentClusterMarker by rememberUpdatedState(clusterMarker)
+    val result = remember { mutableStateOf<List<MarkerConfig>>(emptyList()) }
+
+    LaunchedEffect(markers, options) {
+        val clusterer = withContext(Dispatchers.Default) {
+            MarkerClusterer(markers, options) { currentClusterMarker(it) }
+        }
+        snapshotFlow { currentCamera }
+            .conflate()
+            .collect { latest ->
+                result.value = withContext(Dispatchers.Default) { clusterer.cluster(latest) }
+            }
+    }
+
+    return result.value
+}
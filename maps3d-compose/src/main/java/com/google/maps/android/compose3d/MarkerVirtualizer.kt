@@ -0,0 +1,219 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.Camera
+import com.google.maps.android.compose3d.utils.DEFAULT_FOOTPRINT_ASPECT_RATIO
+import com.google.maps.android.compose3d.utils.GeoBounds
+import com.google.maps.android.compose3d.utils.groundFootprint
+import kotlin.math.floor
+
+/**
+ * Options for virtualizing large marker sets in [GoogleMap3D].
+ *
+ * When enabled, only markers inside the camera's ground footprint (plus [margin]) are
+ * materialized as native markers. A materialized marker is only removed once it leaves the
+ * footprint expanded by [margin] + [hysteresis], so small camera movements do not churn markers
+ * that sit near the edge.
+ *
+ * @property margin Extra area around the footprint, as a fraction of its size, in which markers
+ * are added.
+ * @property hysteresis Additional fraction beyond [margin] that a marker must cross before it is
+ * removed.
+ * @property cellSizeDegrees Side length of the spatial index grid cells.
+ * @property verticalFovDegrees Vertical field of view used to compute the footprint.
+ */
+data class MarkerVirtualization(
+    val margin: Double = 0.25,
+    val hysteresis: Double = 0.25,
+    val cellSizeDegrees: Double = 0.01,
+    val verticalFovDegrees: Double = 45.0,
+)
+
+/**
+ * Uniform latitude/longitude grid over marker positions, used for footprint queries. Positions
+ * are copied, so the index stays valid for any list with the same positions in the same order.
+ */
+internal class MarkerGridIndex(markers: List<MarkerConfig>, private val cellSizeDegrees: Double) {
+    private val latitudes = DoubleArray(markers.size) { markers[it].position.latitude }
+    private val longitudes = DoubleArray(markers.size) { markers[it].position.longitude }
+    private val cells = HashMap<Long, IntArrayList>()
+
+    init {
+        for (i in latitudes.indices) {
+            cells.getOrPut(cellKey(row(latitudes[i]), column(longitudes[i]))) { IntArrayList() }.add(i)
+        }
+    }
+
+    /**
+     * True when [markers] has exactly the positions this index was built from, in the same order.
+     */
+    fun matches(markers: List<MarkerConfig>): Boolean {
+        if (markers.size != latitudes.size) return false
+        for (i in markers.indices) {
+            val position = markers[i].position
+            if (position.latitude != latitudes[i] || position.longitude != longitudes[i]) return false
+        }
+        return true
+    }
+
+    /**
+     * Calls [action] with the index of every marker inside [bounds].
+     */
+    fun forEachIn(bounds: GeoBounds, action: (Int) -> Unit) {
+        val rowStart = row(bounds.south)
+        val rowEnd = row(bounds.north)
+        val columnStart = column(bounds.west)
+        val columnEnd = column(bounds.east)
+        val cellCount = (rowEnd - rowStart + 1).toLong() * (columnEnd - columnStart + 1)
+
+        if (cellCount > cells.size) {
+            // Sparse data under a huge footprint: walk the occupied cells instead of the grid.
+            for ((key, bucket) in cells) {
+                val r = (key shr 32).toInt()
+                val c = key.toInt()
+                if (r in rowStart..rowEnd && c in columnStart..columnEnd) visit(bucket, bounds, action)
+            }
+            return
+        }
+        for (r in rowStart..rowEnd) {
+            for (c in columnStart..columnEnd) {
+                cells[cellKey(r, c)]?.let { visit(it, bounds, action) }
+            }
+        }
+    }
+
+    private inline fun visit(bucket: IntArrayList, bounds: GeoBounds, action: (Int) -> Unit) {
+        for (j in 0 until bucket.size) {
+            val index = bucket[j]
+            if (bounds.contains(latitudes[index], longitudes[index])) action(index)
+        }
+    }
+
+    private fun row(latitude: Double): Int = floor(latitude / cellSizeDegrees).toInt()
+
+    private fun column(longitude: Double): Int = floor(longitude / cellSizeDegrees).toInt()
+
+    private fun cellKey(row: Int, column: Int): Long = (row.toLong() shl 32) or (column.toLong() and 0xffffffffL)
+}
+
+/**
+ * Growable primitive int list, used for grid buckets and index sets without boxing.
+ */
+internal class IntArrayList(capacity: Int = 4) {
+    private var data = IntArray(capacity)
+
+    var size: Int = 0
+        private set
+
+    fun add(value: Int) {
+        if (size == data.size) data = data.copyOf(size * 2)
+        data[size++] = value
+    }
+
+    operator fun get(index: Int): Int = data[index]
+
+    fun clear() {
+        size = 0
+    }
+}
+
+/**
+ * Selects which markers of a large list should exist on the native map for a given camera.
+ *
+ * The spatial index and the materialized set are rebuilt only when marker positions change; a
+ * new list with the same positions in the same order keeps both, so edits to titles, styles or
+ * click handlers cost one pass over the positions instead of a rebuild. Each [select] call
+ * then costs time proportional to the markers near the footprint, not the full list, and returns
+ * the previous list instance when the materialized set did not change, so [Map3DState] can skip
+ * the sync by identity.
+ */
+internal class MarkerVirtualizer(private val options: MarkerVirtualization) {
+    private var source: List<MarkerConfig>? = null
+    private var index: MarkerGridIndex? = null
+    private var materialized = BooleanArray(0)
+    private var current = IntArrayList()
+    private var next = IntArrayList()
+    private var result: List<MarkerConfig> = emptyList()
+
+    /**
+     * Number of markers currently materialized.
+     */
+    val materializedCount: Int
+        get() = current.size
+
+    /**
+     * Returns the subset of [markers] that should be materialized for [camera] on a viewport
+     * whose width divided by height is [aspectRatio].
+     */
+    fun select(
+        markers: List<MarkerConfig>,
+        camera: Camera,
+        aspectRatio: Double = DEFAULT_FOOTPRINT_ASPECT_RATIO,
+    ): List<MarkerConfig> {
+        var changed = false
+        if (markers !== source) {
+            source = markers
+            if (index?.matches(markers) != true) {
+                index = MarkerGridIndex(markers, options.cellSizeDegrees)
+                materialized = BooleanArray(markers.size)
+                current.clear()
+                result = emptyList()
+            } else {
+                // Same positions, possibly different configs: rebuild the result from the new list.
+                changed = true
+            }
+        }
+        val grid = index ?: return emptyList()
+
+        val footprint = camera.groundFootprint(verticalFovDegrees = options.verticalFovDegrees, aspectRatio = aspectRatio)
+        val addBounds = footprint.expandedBy(options.margin)
+        val keepBounds = footprint.expandedBy(options.margin + options.hysteresis)
+
+        next.clear()
+
+        // Keep markers that are still inside the wider hysteresis box.
+        for (j in 0 until current.size) {
+            val i = current[j]
+            val position = markers[i].position
+            if (keepBounds.contains(position.latitude, position.longitude)) {
+                next.add(i)
+            } else {
+                materialized[i] = false
+                changed = true
+            }
+        }
+
+        // Add anything inside the tighter box that is not materialized yet.
+        grid.forEachIn(addBounds) { i ->
+            if (!materialized[i]) {
+                materialized[i] = true
+                next.add(i)
+                changed = true
+            }
+        }
+
+        val swap = current
+        current = next
+        next = swap
+
+        if (changed) {
+            result = List(current.size) { markers[current[it]] }
+        }
+        return result
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.android.gms.maps3d.model.PolygonOptions
+import com.google.android.gms.maps3d.model.PolylineOptions
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Options preparation counters.
+ *
+ * @property prepared Options built ahead of time by [OptionsCache.prepare].
+ * @property hits Native adds that found their options already built.
+ * @property misses Native adds that had to build their options on the calling thread.
+ */
+data class OptionsCacheStats(
+    val prepared: Long = 0,
+    val hits: Long = 0,
+    val misses: Long = 0,
+)
+
+/**
+ * Memoized SDK options for polylines and polygons, the two config types whose mapping cost grows
+ * with the number of vertices.
+ *
+ * [prepare] validates every vertex and builds the options on [Dispatchers.Default]; the main
+ * thread then only looks them up right before the `add*` call. Entries are keyed by the config
+ * itself, whose hash is its precomputed path fingerprint, so an unchanged path is never mapped
+ * twice. The cache is bounded and evicts the least recently used entries, but always has room
+ * for every config of the most recently prepared lists plus [extraEntries] older ones, so a large
+ * prepared set is never evicted before it is added.
+ *
+ * Polylines with a [PolylineConfig.lod] get a [PolylineLodPyramid] with every level filtered
+ * instead, keyed by path content and LOD options, for [PolylineLodResolver] to pick up.
+ *
+ * Options are stored with the config's key as their id. [polylineOptions] and [polygonOptions]
+ * set the requested id before returning, so the cached objects must only be handed to the SDK
+ * from one thread.
+ */
+internal class OptionsCache(private val extraEntries: Int = DEFAULT_EXTRA_ENTRIES) {
+    @Volatile
+    private var polylineWorkingSet = 0
+
+    @Volatile
+    private var polygonWorkingSet = 0
+
+    @Volatile
+    private var pyramidWorkingSet = 0
+
+    private val polylines = lruMap<PolylineConfig, PolylineOptions> { polylineWorkingSet }
+    private val polygons = lruMap<PolygonConfig, PolygonOptions> { polygonWorkingSet }
+    private val pyramids = lruMap<PyramidKey, PolylineLodPyramid> { pyramidWorkingSet }
+    private val lock = Any()
+
+    private var prepared = 0L
+    private var hits = 0L
+    private var misses = 0L
+
+    /**
+     * Current counters.
+     */
+    val stats: OptionsCacheStats
+        get() = synchronized(lock) { OptionsCacheStats(prepared, hits, misses) }
+
+    /**
+     * Builds and caches options for every config that does not have them yet.
+     */
+    suspend fun prepare(polylineConfigs: List<PolylineConfig>, polygonConfigs: List<PolygonConfig>) {
+        preparePolylines(polylineConfigs)
+        preparePolygons(polygonConfigs)
+    }
+
+    /**
+     * Builds and caches options, or an LOD pyramid, for every polyline that does not have them
+     * yet. [configs] becomes the polyline working set.
+     */
+    suspend fun preparePolylines(configs: List<PolylineConfig>) = withContext(Dispatchers.Default) {
+        polylineWorkingSet = configs.count { it.lod == null }
+        pyramidWorkingSet = configs.size - polylineWorkingSet
+        for (config in configs) {
+            val lod = config.lod
+            if (lod != null) {
+                // LOD polylines are re-sliced per camera; their full-resolution options are never
+                // added, but ranking and filtering the path is the expensive part.
+                val key = PyramidKey(config.points, config.pointsFingerprint, lod)
+                if (synchronized(lock) { pyramids[key] } != null) continue
+                val pyramid = PolylineLodPyramid(config.points, lod).apply { buildLevels() }
+                synchronized(lock) { pyramids[key] = pyramid }
+                continue
+            }
+            if (synchronized(lock) { polylines[config] } != null) continue
+            val options = config.toPolylineOptions()
+            synchronized(lock) {
+                polylines[config] = options
+                prepared++
+            }
+        }
+    }
+
+    /**
+     * Builds and caches options for every polygon that does not have them yet. [configs] becomes
+     * the polygon working set.
+     */
+    suspend fun preparePolygons(configs: List<PolygonConfig>) = withContext(Dispatchers.Default) {
+        polygonWorkingSet = configs.size
+        for (config in configs) {
+            if (synchronized(lock) { polygons[config] } != null) continue
+            val options = config.toPolygonOptions()
+            synchronized(lock) {
+                polygons[config] = options
+                prepared++
+            }
+        }
+    }
+
+    /**
+     * Returns options for [config] with the given [id], building them now if they were not
+     * prepared.
+     */
+    fun polylineOptions(config: PolylineConfig, id: String): PolylineOptions {
+        val options = lookup(polylines, config) { config.toPolylineOptions() }
+        if (options.id != id) options.id = id
+        return options
+    }
+
+    /**
+     * Returns options for [config] with the given [id], building them now if they were not
+     * prepared.
+     */
+    fun polygonOptions(config: PolygonConfig, id: String): PolygonOptions {
+        val options = lookup(polygons, config) { config.toPolygonOptions() }
+        if (options.id != id) options.id = id
+        return options
+    }
+
+    /**
+     * Returns the pyramid prepared for [config]'s path and LOD options, or null if there is none.
+     */
+    fun lodPyramid(config: PolylineConfig): PolylineLodPyramid? {
+        val lod = config.lod ?: return null
+        val key = PyramidKey(config.points, config.pointsFingerprint, lod)
+        return synchronized(lock) { pyramids[key] }
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    fun clear() {
+        synchronized(lock) {
+            polylineWorkingSet = 0
+            polygonWorkingSet = 0
+            pyramidWorkingSet = 0
+            polylines.clear()
+            polygons.clear()
+            pyramids.clear()
+        }
+    }
+
+    private inline fun <C, O> lookup(map: LinkedHashMap<C, O>, config: C, build: () -> O): O {
+        synchronized(lock) {
+            map[config]?.let {
+                hits++
+                return it
+            }
+        }
+        val options = build()
+        synchronized(lock) {
+            map[config] = options
+            misses++
+        }
+        return options
+    }
+
+    private fun <K, V> lruMap(workingSet: () -> Int): LinkedHashMap<K, V> =
+        object : LinkedHashMap<K, V>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean =
+                size > workingSet() + extraEntries
+        }
+
+    /**
+     * Identifies a pyramid by path content and options, so unrelated style changes reuse it.
+     */
+    private class PyramidKey(val points: List<LatLngAltitude>, val fingerprint: Long, val lod: PolylineLod) {
+        override fun equals(other: Any?): Boolean =
+            other is PyramidKey && lod == other.lod &&
+                (points === other.points || (fingerprint == other.fingerprint && points == other.points))
+
+        override fun hashCode(): Int = 31 * Fingerprint.fold(fingerprint) + lod.hashCode()
+    }
+
+    companion object {
+        const val DEFAULT_EXTRA_ENTRIES = 64
+    }
+}
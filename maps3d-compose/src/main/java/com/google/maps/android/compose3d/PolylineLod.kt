@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.maps.android.compose3d.utils.DEFAULT_RANGE
+import com.google.maps.android.compose3d.utils.vertexImportance
+import kotlin.math.floor
+import kotlin.math.ln
+
+/**
+ * Level-of-detail options for a [PolylineConfig].
+ *
+ * Level 0 is the full path. Level `k > 0` drops every vertex that deviates less than
+ * `baseToleranceMeters * 2^(k - 1)` meters from the simplified line. The target tolerance for a
+ * camera is `range * toleranceRangeRatio`, so at the default ratio a 50 km range allows 50 m of
+ * deviation.
+ *
+ * @property toleranceRangeRatio Allowed deviation in meters per meter of [Camera.range].
+ * @property baseToleranceMeters Tolerance of level 1.
+ * @property levels Number of levels including the full-resolution level 0.
+ * @property hysteresis Fraction by which the target tolerance must leave the current level's band
+ * before another level is chosen, so zooming near a boundary does not flip levels every frame.
+ * @property maxVertices Upper bound on vertices sent to the map at any zoom. Levels that would
+ * exceed it are thinned further by dropping the least important vertices.
+ */
+data class PolylineLod(
+    val toleranceRangeRatio: Double = 0.001,
+    val baseToleranceMeters: Double = 0.5,
+    val levels: Int = 16,
+    val hysteresis: Double = 0.25,
+    val maxVertices: Int = 10_000,
+) {
+    init {
+        require(levels >= 1) { "levels must be at least 1" }
+        require(maxVertices >= 2) { "maxVertices must be at least 2" }
+    }
+}
+
+/**
+ * Precomputed simplification pyramid for one path.
+ *
+ * Construction ranks every vertex once (see [vertexImportance]); each level is then a filter over
+ * that ranking, built on first use and cached, so switching levels costs nothing after the first
+ * visit and returns the same list instance every time.
+ *
+ * @param points The full-resolution path.
+ * @param options Level and cap options.
+ */
+class PolylineLodPyramid(
+    val points: List<LatLngAltitude>,
+    val options: PolylineLod = PolylineLod(),
+) {
+    private val importance = points.vertexImportance()
+    private val capThreshold = capThreshold(importance, options.maxVertices)
+    private val cache = arrayOfNulls<List<LatLngAltitude>>(options.levels)
+
+    /**
+     * Number of levels.
+     */
+    val levelCount: Int
+        get() = options.levels
+
+    /**
+     * Tolerance in meters of [level].
+     */
+    fun toleranceOf(level: Int): Double =
+        if (level <= 0) 0.0 else options.baseToleranceMeters * (1L shl (level - 1).coerceAtMost(62))
+
+    /**
+     * Returns the level for [range], keeping [current] while the target tolerance stays within its
+     * band widened by [PolylineLod.hysteresis]. Pass -1 as [current] for no previous level.
+     */
+    fun levelFor(range: Double, current: Int = -1): Int {
+        val target = range * options.toleranceRangeRatio
+        if (current in 0 until levelCount) {
+            val slack = 1.0 + options.hysteresis
+            val lower = toleranceOf(current) / slack
+            val upper = if (current == levelCount - 1) Double.POSITIVE_INFINITY else toleranceOf(current + 1) * slack
+            if (target >= lower && target < upper) return current
+        }
+        if (target < options.baseToleranceMeters) return 0
+        val level = floor(ln(target / options.baseToleranceMeters) / ln(2.0)).toInt() + 1
+        return level.coerceIn(0, levelCount - 1)
+    }
+
+    /**
+     * Filters every level now, so later [pointsAt] calls are lookups. Call before handing the
+     * pyramid to another thread.
+     */
+    internal fun buildLevels() {
+        for (level in 0 until levelCount) pointsAt(level)
+    }
+
+    /**
+     * Returns the vertices of [level], capped at [PolylineLod.maxVertices].
+     */
+    fun pointsAt(level: Int): List<LatLngAltitude> {
+        val index = level.coerceIn(0, levelCount - 1)
+        cache[index]?.let { return it }
+        val threshold = if (index == 0) capThreshold else maxOf(toleranceOf(index), capThreshold)
+        val result = if (threshold < 0.0) {
+            points
+        } else {
+            val kept = ArrayList<LatLngAltitude>()
+            for (i in points.indices) {
+                if (importance[i] > threshold) kept.add(points[i])
+            }
+            kept
+        }
+        cache[index] = result
+        return result
+    }
+
+    private companion object {
+        /**
+         * Returns the importance a vertex must exceed for at most [maxVertices] to survive, or -1
+         * if the path is already within the cap.
+         */
+        fun capThreshold(importance: DoubleArray, maxVertices: Int): Double {
+            if (importance.size <= maxVertices) return -1.0
+            val sorted = importance.copyOf()
+            sorted.sort()
+            // The (maxVertices + 1)-th largest value; only values strictly above it are kept.
+            return sorted[sorted.size - 1 - maxVertices]
+        }
+    }
+}
+
+/**
+ * Replaces the points of LOD-enabled polylines with the pyramid level that matches the camera.
+ *
+ * Pyramids are cached per key. When the point list instance or the options change, the pyramid
+ * is taken from [prepared], which hands out pyramids built off the main thread by
+ * [OptionsCache.preparePolylines]; only a polyline that was never prepared is ranked on the spot.
+ * The resolved config for a key is reused while its level is unchanged, and the previous output
+ * list is returned when no element changed, so [Map3DState] can skip the sync by identity.
+ */
+internal class PolylineLodResolver(
+    private val prepared: (PolylineConfig) -> PolylineLodPyramid? = { null },
+) {
+    private class Entry(
+        val pyramid: PolylineLodPyramid,
+        var source: PolylineConfig,
+        var level: Int,
+        var resolved: PolylineConfig,
+    )
+
+    private var entries = HashMap<String, Entry>()
+    private var lastOutput: List<PolylineConfig> = emptyList()
+
+    /**
+     * Returns [configs] with each LOD-enabled polyline narrowed to the level for [camera].
+     */
+    fun resolve(configs: List<PolylineConfig>, camera: Camera): List<PolylineConfig> {
+        if (configs.none { it.lod != null }) {
+            entries.clear()
+            lastOutput = configs
+            return configs
+        }
+
+        val range = camera.range ?: DEFAULT_RANGE
+        val previous = entries
+        val next = HashMap<String, Entry>()
+        val output = ArrayList<PolylineConfig>(configs.size)
+        for (config in configs) {
+            val lod = config.lod
+            if (lod == null) {
+                output.add(config)
+                continue
+            }
+            val cached = previous[config.key]
+            val entry = if (cached != null && cached.pyramid.points === config.points && cached.pyramid.options == lod) {
+                cached
+            } else {
+                val pyramid = prepared(config) ?: PolylineLodPyramid(config.points, lod)
+                if (cached != null && cached.pyramid === pyramid) {
+                    cached
+                } else {
+                    val level = pyramid.levelFor(range)
+                    Entry(pyramid, config, level, config.copy(points = pyramid.pointsAt(level)))
+                }
+            }
+            val level = entry.pyramid.levelFor(range, entry.level)
+            if (entry.source !== config || level != entry.level) {
+                entry.source = config
+                entry.level = level
+                entry.resolved = config.copy(points = entry.pyramid.pointsAt(level))
+            }
+            next[config.key] = entry
+            output.add(entry.resolved)
+        }
+        entries = next
+
+        if (output.size == lastOutput.size && output.indices.all { output[it] === lastOutput[it] }) {
+            return lastOutput
+        }
+        lastOutput = output
+        return output
+    }
+
+    /**
+     * Returns the level currently used for [key], or null if it is not LOD-enabled.
+     */
+    fun levelOf(key: String): Int? = entries[key]?.level
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import android.view.ViewGroup
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.ReusableContent
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.ui.platform.ComposeView
+
+/**
+ * Popover view recycling counters.
+ *
+ * @property created `ComposeView`s created because no idle view of the same content type existed.
+ * @property reused Popovers that got a recycled view and composition.
+ * @property evicted Idle views disposed because the pool was full.
+ * @property idle Views currently waiting in the pool.
+ */
+data class PopoverPoolStats(
+    val created: Long = 0,
+    val reused: Long = 0,
+    val evicted: Long = 0,
+    val idle: Int = 0,
+)
+
+/**
+ * A pooled `ComposeView` plus the state its composition reads.
+ *
+ * The composition renders the current content inside [ReusableContent] keyed by a generation
+ * that changes on every acquisition. A recycled host therefore keeps its view, its composition
+ * and its layout nodes, but content from one popover never sees `remember`ed state left behind by
+ * another.
+ */
+internal class PopoverHost(
+    val view: ComposeView,
+    val contentType: Any?,
+) {
+    private class Slot(val generation: Int, val content: @Composable () -> Unit)
+
+    private val slot = mutableStateOf(Slot(0, {}))
+
+    init {
+        view.setContent {
+            val current = slot.value
+            ReusableContent(current.generation) {
+                current.content()
+            }
+        }
+    }
+
+    /**
+     * Starts a new occupant with fresh composition state.
+     */
+    fun reset(content: @Composable () -> Unit) {
+        slot.value = Slot(slot.value.generation + 1, content)
+    }
+
+    /**
+     * Swaps the content lambda of the current occupant, keeping its state.
+     */
+    fun update(content: @Composable () -> Unit) {
+        val current = slot.value
+        if (current.content !== content) slot.value = Slot(current.generation, content)
+    }
+}
+
+/**
+ * Bounded pool of popover hosts, keyed by [PopoverConfig.contentType].
+ *
+ * Creating a `ComposeView` and setting up its composition is the expensive part of showing a
+ * popover. Released hosts are kept idle, and [acquire] hands back the most recently released one
+ * with a matching content type and context, so only the content state is swapped. When more than
+ * [maxIdle] hosts are idle, the least recently released one is disposed.
+ *
+ * Must be used on the main thread.
+ */
+internal class PopoverViewPool(private val maxIdle: Int = DEFAULT_MAX_IDLE) {
+    private val idle = ArrayDeque<PopoverHost>()
+    private var created = 0L
+    private var reused = 0L
+    private var evicted = 0L
+
+    /**
+     * Current counters.
+     */
+    val stats: PopoverPoolStats
+        get() = PopoverPoolStats(created, reused, evicted, idle.size)
+
+    /**
+     * Returns a host showing [content], recycled when possible.
+     */
+    fun acquire(context: Context, contentType: Any?, content: @Composable () -> Unit): PopoverHost {
+        for (i in idle.indices.reversed()) {
+            val host = idle[i]
+            if (host.contentType == contentType && host.view.context === context) {
+                idle.removeAt(i)
+                host.reset(content)
+                reused++
+                return host
+            }
+        }
+        created++
+        return PopoverHost(ComposeView(context), contentType).also { it.reset(content) }
+    }
+
+    /**
+     * Returns [host] to the pool once its popover has been removed from the map.
+     */
+    fun release(host: PopoverHost) {
+        (host.view.parent as? ViewGroup)?.removeView(host.view)
+        host.reset {}
+        idle.addLast(host)
+        while (idle.size > maxIdle) {
+            idle.removeFirst().view.disposeComposition()
+            evicted++
+        }
+    }
+
+    /**
+     * Disposes every idle host.
+     */
+    fun clear() {
+        idle.forEach { it.view.disposeComposition() }
+        idle.clear()
+    }
+
+    companion object {
+        const val DEFAULT_MAX_IDLE = 8
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.app.Activity
+import android.content.Context
+import android.content.ContextWrapper
+import androidx.compose.runtime.Composable
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewmodel.compose.viewModel
+
+/**
+ * Owns a [Map3DState] for the lifetime of a `ViewModelStoreOwner`, across configuration changes.
+ */
+internal class Map3DStateViewModel : ViewModel() {
+    val state = Map3DState().apply { isRetained = true }
+
+    override fun onCleared() {
+        // The owner is gone for good; any map this state was attached to has been destroyed.
+        state.onMapDestroyed()
+        state.optionsCache.clear()
+    }
+}
+
+/**
+ * Returns a [Map3DState] scoped to the current `ViewModelStoreOwner`, for
+ * `GoogleMap3D(mapState = ...)`.
+ *
+ * On rotation, dark-mode toggles and other configuration changes, `GoogleMap3D` then keeps the
+ * tracked objects instead of removing all of them and adding them back. If the map view survives
+ * in a [Map3DViewPool], the next sync issues nothing; otherwise every object is added to the new
+ * map once, with its options taken from the retained cache.
+ *
+ * @param key Distinguishes several maps in the same owner.
+ */
+@Composable
+fun rememberRetainedMap3DState(key: String? = null): Map3DState =
+    viewModel(key = key?.let { "Map3DState:$it" }) { Map3DStateViewModel() }.state
+
+/**
+ * True if this context belongs to an activity that is being recreated for a configuration change.
+ */
+internal fun Context.isChangingConfigurations(): Boolean {
+    var context: Context? = this
+    while (context is ContextWrapper) {
+        if (context is Activity) return context.isChangingConfigurations
+        context = context.baseContext
+    }
+    return false
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+import com.google.android.gms.maps3d.model.Camera
+import kotlin.math.cos
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlin.math.tan
+
+private const val EARTH_RADIUS_METERS = 6371000.0
+private const val METERS_PER_DEGREE_LATITUDE = EARTH_RADIUS_METERS * Math.PI / 180.0
+
+/**
+ * Viewport aspect ratio assumed by [groundFootprint] when the real one is not known. It is wider
+ * than common phones and tablets in landscape, so a footprint computed with it can over-include
+ * but does not cut off the sides of the screen.
+ */
+const val DEFAULT_FOOTPRINT_ASPECT_RATIO = 2.4
+
+/**
+ * An axis-aligned latitude/longitude box.
+ *
+ * Boxes never cross the antimeridian; [Camera.groundFootprint] clamps to the valid longitude
+ * range instead, which only over-includes near ±180°.
+ */
+data class GeoBounds(
+    val south: Double,
+    val west: Double,
+    val north: Double,
+    val east: Double,
+) {
+    /**
+     * Returns true if the point is inside the box (edges inclusive).
+     */
+    fun contains(latitude: Double, longitude: Double): Boolean =
+        latitude in south..north && longitude in west..east
+
+    /**
+     * Returns true if [other] lies entirely inside this box.
+     */
+    fun contains(other: GeoBounds): Boolean =
+        other.south >= south && other.north <= north && other.west >= west && other.east <= east
+
+    /**
+     * Grows the box by [fraction] of its own height and width on every side.
+     */
+    fun expandedBy(fraction: Double): GeoBounds {
+        val dLat = (north - south) * fraction
+        val dLng = (east - west) * fraction
+        return GeoBounds(
+            south = (south - dLat).coerceIn(latitudeRange),
+            west = (west - dLng).coerceIn(longitudeRange),
+            north = (north + dLat).coerceIn(latitudeRange),
+            east = (east + dLng).coerceIn(longitudeRange),
+        )
+    }
+}
+
+/**
+ * Approximates the patch of ground visible from this camera as a bounding box.
+ *
+ * The camera is modelled as a pinhole looking at [Camera.center] from [Camera.range] meters
+ * away, pitched by [Camera.tilt] from straight down and rotated by [Camera.heading]. The four
+ * corner rays of the view frustum are intersected with a flat ground plane through the center;
+ * rays at or above the horizon are cut off at [maxDistanceFactor] times the range. The result is
+ * a conservative box around those corners, good enough for culling but not for picking.
+ *
+ * @param verticalFovDegrees The vertical field of view of the viewport.
+ * @param aspectRatio Viewport width divided by height. Defaults to
+ * [DEFAULT_FOOTPRINT_ASPECT_RATIO]; pass the real ratio when the viewport size is known.
+ * @param maxDistanceFactor Cap on how far the far edge may reach, in multiples of the range.
+ */
+fun Camera.groundFootprint(
+    verticalFovDegrees: Double = 45.0,
+    aspectRatio: Double = DEFAULT_FOOTPRINT_ASPECT_RATIO,
+    maxDistanceFactor: Double = 10.0,
+): GeoBounds {
+    val camera = toValidCamera()
+    val range = camera.range ?: DEFAULT_RANGE
+    val tilt = Math.toRadians(camera.tilt ?: DEFAULT_TILT)
+    val heading = Math.toRadians(camera.heading ?: DEFAULT_HEADING)
+    val halfFov = Math.toRadians(verticalFovDegrees) / 2.0
+    val maxDistance = range * maxDistanceFactor
+
+    // Eye position relative to the center, in a frame where +y points along the heading.
+    val eyeHeight = max(range * cos(tilt), 1.0)
+    val eyeBack = range * sin(tilt)
+
+    // Ground distance from the eye's foot to where a ray pitched `angle` from vertical lands.
+    fun groundDistance(angle: Double): Double =
+        if (angle >= Math.PI / 2 - 1e-3) maxDistance else min(eyeHeight * tan(angle), maxDistance)
+
+    val nearY = groundDistance(tilt - halfFov) - eyeBack
+    val farY = groundDistance(tilt + halfFov) - eyeBack
+    val halfWidthTan = tan(halfFov) * aspectRatio
+    val nearHalfWidth = slant(eyeHeight, nearY + eyeBack) * halfWidthTan
+    val farHalfWidth = slant(eyeHeight, farY + eyeBack) * halfWidthTan
+
+    val sinH = sin(heading)
+    val cosH = cos(heading)
+    var minNorth = Double.MAX_VALUE
+    var maxNorth = -Double.MAX_VALUE
+    var minEast = Double.MAX_VALUE
+    var maxEast = -Double.MAX_VALUE
+    for ((x, y) in arrayOf(
+        -nearHalfWidth to nearY,
+        nearHalfWidth to nearY,
+        -farHalfWidth to farY,
+        farHalfWidth to farY,
+    )) {
+        // Rotate the local (right, forward) offset into (east, north).
+        val east = x * cosH + y * sinH
+        val north = -x * sinH + y * cosH
+        minNorth = min(minNorth, north)
+        maxNorth = max(maxNorth, north)
+        minEast = min(minEast, east)
+        maxEast = max(maxEast, east)
+    }
+
+    val lat = camera.center.latitude
+    val lng = camera.center.longitude
+    val metersPerDegreeLongitude = max(METERS_PER_DEGREE_LATITUDE * cos(Math.toRadians(lat)), 1.0)
+    return GeoBounds(
+        south = (lat + minNorth / METERS_PER_DEGREE_LATITUDE).coerceIn(latitudeRange),
+        west = (lng + minEast / metersPerDegreeLongitude).coerceIn(longitudeRange),
+        north = (lat + maxNorth / METERS_PER_DEGREE_LATITUDE).coerceIn(latitudeRange),
+        east = (lng + maxEast / metersPerDegreeLongitude).coerceIn(longitudeRange),
+    )
+}
+
+private fun slant(height: Double, groundDistance: Double): Double =
+    sqrt(height * height + groundDistance * groundDistance)
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+import kotlin.math.abs
+import kotlin.math.cos
+import kotlin.math.sqrt
+
+private const val EARTH_RADIUS_METERS = 6371000.0
+
+/**
+ * Largest latitude and longitude difference, in degrees, for which [fastDistance] uses the
+ * equirectangular approximation; about 11 km north-south.
+ */
+const val FAST_DISTANCE_MAX_DEGREES = 0.1
+
+/**
+ * Segments per fork-join task; shorter inputs are computed on the calling thread.
+ */
+internal const val PARALLEL_SEGMENTS = 1 shl 15
+
+/**
+ * Distance in meters between two coordinates given in degrees, on the same sphere as
+ * [haversineDistance].
+ *
+ * When both the latitude and the longitude differ by at most [FAST_DISTANCE_MAX_DEGREES], the
+ * points are projected onto a plane scaled by the cosine of their mean latitude, which costs one
+ * cosine and one square root. Within that bound the result differs from [haversineDistance] by
+ * less than 1e-6 relative, a few millimeters at most, at any latitude. Longer segments fall back
+ * to [haversineDistance].
+ */
+fun fastDistance(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+    val dLatitude = latitude2 - latitude1
+    var dLongitude = abs(longitude2 - longitude1)
+    if (dLongitude > 180.0) dLongitude = 360.0 - dLongitude
+    if (abs(dLatitude) > FAST_DISTANCE_MAX_DEGREES || dLongitude > FAST_DISTANCE_MAX_DEGREES) {
+        return haversineDistance(latitude1, longitude1, latitude2, longitude2)
+    }
+    val x = Math.toRadians(dLongitude) * cos(Math.toRadians((latitude1 + latitude2) / 2.0))
+    val y = Math.toRadians(dLatitude)
+    return EARTH_RADIUS_METERS * sqrt(x * x + y * y)
+}
+
+/**
+ * Writes the length of every segment of the path, from vertex `i` to `i + 1`, into `out[i]`
+ * using [fastDistance].
+ *
+ * Paths of more than [PARALLEL_SEGMENTS] segments are split across the common fork-join pool.
+ *
+ * @return [out], for chaining.
+ */
+fun segmentDistances(
+    latitudes: DoubleArray,
+    longitudes: DoubleArray,
+    out: DoubleArray = DoubleArray((latitudes.size - 1).coerceAtLeast(0)),
+): DoubleArray {
+    require(longitudes.size == latitudes.size) { "Coordinate arrays must have the same size" }
+    val segments = (latitudes.size - 1).coerceAtLeast(0)
+    require(out.size >= segments) { "out must hold $segments segments" }
+    if (segments <= PARALLEL_SEGMENTS) {
+        fillSegmentDistances(latitudes, longitudes, out, 0, segments)
+    } else {
+        ForkJoinPool.commonPool().invoke(SegmentDistancesTask(latitudes, longitudes, out, 0, segments))
+    }
+    return out
+}
+
+/**
+ * Cumulative distance in meters from the first vertex to every vertex, as used by
+ * [PackedPath.distanceAt] and `GeoMathUtils.getInterpolatedPoint`.
+ */
+fun cumulativeDistances(latitudes: DoubleArray, longitudes: DoubleArray): DoubleArray {
+    val distances = DoubleArray(latitudes.size)
+    if (latitudes.size < 2) {
+        require(longitudes.size == latitudes.size) { "Coordinate arrays must have the same size" }
+        return distances
+    }
+    // Only the segment lengths are worth splitting; the prefix sum is cheap next to them.
+    val segments = segmentDistances(latitudes, longitudes)
+    for (i in segments.indices) {
+        distances[i + 1] = distances[i] + segments[i]
+    }
+    return distances
+}
+
+private fun fillSegmentDistances(latitudes: DoubleArray, longitudes: DoubleArray, out: DoubleArray, from: Int, to: Int) {
+    for (i in from until to) {
+        out[i] = fastDistance(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1])
+    }
+}
+
+private class SegmentDistancesTask(
+    private val latitudes: DoubleArray,
+    private val longitudes: DoubleArray,
+    private val out: DoubleArray,
+    private val from: Int,
+    private val to: Int,
+) : RecursiveAction() {
+    override fun compute() {
+        if (to - from <= PARALLEL_SEGMENTS) {
+            fillSegmentDistances(latitudes, longitudes, out, from, to)
+        } else {
+            val middle = (from + to) ushr 1
+            invokeAll(
+                SegmentDistancesTask(latitudes, longitudes, out, from, middle),
+                SegmentDistancesTask(latitudes, longitudes, out, middle, to),
+            )
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.android.gms.maps3d.model.latLngAltitude
+
+/**
+ * A reusable, mutable coordinate that [PackedPath] writes its results into.
+ *
+ * Per-frame code keeps one instance per output and passes it to every call, so reading a point
+ * along a path does not allocate.
+ */
+class MutableGeoPoint(
+    var latitude: Double = 0.0,
+    var longitude: Double = 0.0,
+    var altitude: Double = 0.0,
+) {
+    /**
+     * Copies the coordinate into a new [LatLng].
+     */
+    fun toLatLng(): LatLng = LatLng(latitude, longitude)
+
+    /**
+     * Copies the coordinate into a new [LatLngAltitude].
+     */
+    fun toLatLngAltitude(): LatLngAltitude {
+        val source = this
+        return latLngAltitude {
+            latitude = source.latitude
+            longitude = source.longitude
+            altitude = source.altitude
+        }
+    }
+
+    override fun toString(): String = "MutableGeoPoint($latitude, $longitude, $altitude)"
+}
+
+/**
+ * An immutable path stored as parallel `DoubleArray`s of latitudes, longitudes and altitudes,
+ * plus the cumulative distance in meters at every vertex, from [cumulativeDistances].
+ *
+ * Building one costs a pass over the path; after that, [pointAt] and [headingAt] only read
+ * primitives and write into caller-provided [MutableGeoPoint]s, which is what allocation-free
+ * per-frame route code needs. Interpolation is linear in latitude and longitude between two
+ * vertices, like `GeoMathUtils.getInterpolatedPoint`.
+ *
+ * The arrays passed in are copied. Use [toPackedPath] to build one from a list.
+ *
+ * @param latitudes Latitude of each vertex in degrees.
+ * @param longitudes Longitude of each vertex in degrees.
+ * @param altitudes Altitude of each vertex in meters, or null for all zeros.
+ */
+class PackedPath private constructor(
+    private val latitudes: DoubleArray,
+    private val longitudes: DoubleArray,
+    private val altitudes: DoubleArray,
+    private val distances: DoubleArray,
+) {
+    constructor(
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        altitudes: DoubleArray? = null,
+    ) : this(
+        latitudes.copyOf(),
+        longitudes.copyOf(),
+        altitudes?.copyOf() ?: DoubleArray(latitudes.size),
+        cumulativeDistances(latitudes, longitudes),
+    )
+
+    init {
+        require(latitudes.isNotEmpty()) { "A path needs at least one point" }
+        require(
+            longitudes.size == latitudes.size &&
+                altitudes.size == latitudes.size &&
+                distances.size == latitudes.size,
+        ) {
+            "Coordinate arrays must have the same size"
+        }
+    }
+
+    /**
+     * Number of vertices.
+     */
+    val size: Int
+        get() = latitudes.size
+
+    /**
+     * Length of the path in meters.
+     */
+    val lengthMeters: Double
+        get() = distances[distances.size - 1]
+
+    /**
+     * Latitude of vertex [index].
+     */
+    fun latitude(index: Int): Double = latitudes[index]
+
+    /**
+     * Longitude of vertex [index].
+     */
+    fun longitude(index: Int): Double = longitudes[index]
+
+    /**
+     * Altitude of vertex [index].
+     */
+    fun altitude(index: Int): Double = altitudes[index]
+
+    /**
+     * Distance in meters from the start of the path to vertex [index].
+     */
+    fun distanceAt(index: Int): Double = distances[index]
+
+    /**
+     * Index of the segment containing [distance]: the last vertex `i` with
+     * `distanceAt(i) <= distance`, clamped to `0..size - 2`. Returns 0 for a single-point path.
+     */
+    fun segmentAt(distance: Double): Int {
+        if (size < 2) return 0
+        var index = distances.binarySearch(distance)
+        if (index < 0) index = -(index + 1) - 1
+        return index.coerceIn(0, size - 2)
+    }
+
+    /**
+     * Writes the point [distance] meters along the path into [out], clamped to the endpoints.
+     *
+     * @return [out], for chaining.
+     */
+    fun pointAt(distance: Double, out: MutableGeoPoint): MutableGeoPoint = pointAt(segmentAt(distance), distance, out)
+
+    /**
+     * Like [pointAt], for a caller that already knows the [segment] containing [distance].
+     */
+    fun pointAt(segment: Int, distance: Double, out: MutableGeoPoint): MutableGeoPoint {
+        if (size < 2 || distance <= 0.0) return vertex(0, out)
+        if (distance >= lengthMeters) return vertex(size - 1, out)
+        val start = distances[segment]
+        val length = distances[segment + 1] - start
+        if (length <= 0.0) return vertex(segment, out)
+        val fraction = ((distance - start) / length).coerceIn(0.0, 1.0)
+        out.latitude = latitudes[segment] + (latitudes[segment + 1] - latitudes[segment]) * fraction
+        out.longitude = longitudes[segment] + (longitudes[segment + 1] - longitudes[segment]) * fraction
+        out.altitude = altitudes[segment] + (altitudes[segment + 1] - altitudes[segment]) * fraction
+        return out
+    }
+
+    /**
+     * Writes vertex [index] into [out].
+     *
+     * @return [out], for chaining.
+     */
+    fun vertex(index: Int, out: MutableGeoPoint): MutableGeoPoint {
+        out.latitude = latitudes[index]
+        out.longitude = longitudes[index]
+        out.altitude = altitudes[index]
+        return out
+    }
+
+    /**
+     * Heading in degrees clockwise from north, from the point at [distance] towards the point
+     * [lookaheadMeters] further along; negative values look back. Where the two points meet, at
+     * an end of the path or with a zero look-ahead, the heading is taken over the last meter
+     * travelled instead.
+     *
+     * [scratch] receives intermediate points and is overwritten.
+     */
+    fun headingAt(distance: Double, lookaheadMeters: Double, scratch: MutableGeoPoint): Double {
+        if (size < 2) return 0.0
+        val length = lengthMeters
+        var from = distance.coerceIn(0.0, length)
+        val to = (from + lookaheadMeters).coerceIn(0.0, length)
+        if (to == from) {
+            from = if (lookaheadMeters >= 0.0) (to - 1.0).coerceAtLeast(0.0) else (to + 1.0).coerceAtMost(length)
+        }
+        pointAt(from, scratch)
+        val fromLatitude = scratch.latitude
+        val fromLongitude = scratch.longitude
+        pointAt(to, scratch)
+        return calculateHeading(fromLatitude, fromLongitude, scratch.latitude, scratch.longitude)
+    }
+
+    /**
+     * Copies the vertices into a new list.
+     */
+    fun toLatLngList(): List<LatLng> = List(size) { LatLng(latitudes[it], longitudes[it]) }
+
+    internal companion object {
+        /**
+         * Wraps arrays read back from a cache, including their precomputed distances, without
+         * copying them.
+         */
+        fun restore(
+            latitudes: DoubleArray,
+            longitudes: DoubleArray,
+            altitudes: DoubleArray,
+            distances: DoubleArray,
+        ): PackedPath = PackedPath(latitudes, longitudes, altitudes, distances)
+    }
+}
+
+/**
+ * Packs this list into a [PackedPath] with zero altitudes.
+ */
+fun List<LatLng>.toPackedPath(): PackedPath = PackedPath(
+    latitudes = DoubleArray(size) { this[it].latitude },
+    longitudes = DoubleArray(size) { this[it].longitude },
+)
+
+/**
+ * Packs this list into a [PackedPath], keeping altitudes.
+ */
+@JvmName("latLngAltitudesToPackedPath")
+fun List<LatLngAltitude>.toPackedPath(): PackedPath = PackedPath(
+    latitudes = DoubleArray(size) { this[it].latitude },
+    longitudes = DoubleArray(size) { this[it].longitude },
+    altitudes = DoubleArray(size) { this[it].altitude },
+)
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import kotlin.math.abs
+import kotlin.math.cos
+import kotlin.math.max
+import kotlin.math.sqrt
+
+private const val METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0
+
+/**
+ * Simplifies the path with Douglas–Peucker, keeping every vertex that deviates from the
+ * simplified path by more than [toleranceMeters].
+ *
+ * Unlike [simplifyPath], the tolerance is in meters and means the same thing at every latitude,
+ * and deviation is measured to the segment rather than the infinite line, so a vertex that
+ * overshoots the end of a segment is kept. The work is iterative and copies the points once, so
+ * multi-million point tracks are fine.
+ */
+fun List<LatLng>.simplifyPathMeters(toleranceMeters: Double): List<LatLng> =
+    if (size < 3) this else select(toPackedPath().douglasPeuckerMask(toleranceMeters))
+
+/**
+ * Simplifies the path with Visvalingam–Whyatt, dropping vertices in order of the area of the
+ * triangle they form with their neighbours until every remaining one spans at least
+ * [minAreaSquareMeters].
+ *
+ * Compared to [simplifyPathMeters], this removes small wiggles more evenly and tends to look
+ * smoother at the same vertex count, at the cost of a heap.
+ */
+fun List<LatLng>.simplifyPathByArea(minAreaSquareMeters: Double): List<LatLng> =
+    if (size < 3) this else select(toPackedPath().visvalingamWhyattMask(minAreaSquareMeters))
+
+/**
+ * Marks the vertices Douglas–Peucker keeps at [toleranceMeters]. The endpoints are always kept.
+ *
+ * Runs on an explicit stack in the local projection described at [vertexImportance], in
+ * O(n log n) time for typical tracks and O(n²) in the worst case.
+ */
+fun PackedPath.douglasPeuckerMask(toleranceMeters: Double): BooleanArray {
+    require(toleranceMeters >= 0.0) { "toleranceMeters must not be negative" }
+    val x = DoubleArray(size)
+    val y = DoubleArray(size)
+    project(size, { latitude(it) }, { longitude(it) }, x, y)
+    return douglasPeuckerMask(x, y, toleranceMeters)
+}
+
+/**
+ * Marks the vertices Visvalingam–Whyatt keeps at [minAreaSquareMeters]. The endpoints are always
+ * kept.
+ *
+ * Each removal can only grow the area of its neighbours, which is enforced so that removal order
+ * is monotone; with an indexed heap the whole pass is O(n log n).
+ */
+fun PackedPath.visvalingamWhyattMask(minAreaSquareMeters: Double): BooleanArray {
+    require(minAreaSquareMeters >= 0.0) { "minAreaSquareMeters must not be negative" }
+    val x = DoubleArray(size)
+    val y = DoubleArray(size)
+    project(size, { latitude(it) }, { longitude(it) }, x, y)
+    return visvalingamWhyattMask(x, y, minAreaSquareMeters)
+}
+
+/**
+ * Returns the elements whose entry in [keep] is true.
+ */
+internal fun <T> List<T>.select(keep: BooleanArray): List<T> {
+    val result = ArrayList<T>(keep.count { it })
+    for (i in indices) {
+        if (keep[i]) result += this[i]
+    }
+    return result
+}
+
+/**
+ * Ranks every vertex of the path by how much it matters to the path's shape, in meters.
+ *
+ * This runs Douglas–Peucker once with a zero tolerance and records, for each interior vertex, the
+ * deviation at which it was selected. The value is capped by the value of the enclosing split,
+ * so the ranking is monotone: simplifying with tolerance `t` is exactly "keep the vertices whose
+ * importance is greater than `t`", and every coarser level is a subset of the finer ones. The
+ * endpoints are always kept and get [Double.POSITIVE_INFINITY].
+ *
+ * Distances are measured in a local equirectangular projection around the mean latitude, which
+ * is accurate to well under a percent for paths spanning a few hundred kilometers. The recursion
+ * is replaced by an explicit stack, so long paths cannot overflow the call stack.
+ */
+internal fun List<LatLngAltitude>.vertexImportance(): DoubleArray {
+    val n = size
+    val importance = DoubleArray(n)
+    if (n == 0) return importance
+    importance[0] = Double.POSITIVE_INFINITY
+    importance[n - 1] = Double.POSITIVE_INFINITY
+    if (n < 3) return importance
+
+    val x = DoubleArray(n)
+    val y = DoubleArray(n)
+    project(n, { this[it].latitude }, { this[it].longitude }, x, y)
+
+    // Each pending segment is (start, end, importance of the split that produced it).
+    val starts = IntArray(n)
+    val ends = IntArray(n)
+    val caps = DoubleArray(n)
+    var top = 0
+    starts[0] = 0
+    ends[0] = n - 1
+    caps[0] = Double.POSITIVE_INFINITY
+    top++
+
+    while (top > 0) {
+        top--
+        val start = starts[top]
+        val end = ends[top]
+        val cap = caps[top]
+        if (end - start < 2) continue
+
+        var maxDistance = -1.0
+        var index = start + 1
+        for (i in start + 1 until end) {
+            val distance = segmentDistance(x[i], y[i], x[start], y[start], x[end], y[end])
+            if (distance > maxDistance) {
+                maxDistance = distance
+                index = i
+            }
+        }
+
+        val value = minOf(maxDistance, cap)
+        importance[index] = value
+        starts[top] = start
+        ends[top] = index
+        caps[top] = value
+        top++
+        starts[top] = index
+        ends[top] = end
+        caps[top] = value
+        top++
+    }
+    return importance
+}
+
+/**
+ * Douglas–Peucker over planar coordinates: marks the vertices whose distance from the segment
+ * between the enclosing kept vertices exceeds [tolerance].
+ *
+ * With [infiniteLines], distance is measured to the line through the enclosing vertices instead,
+ * as the degree-based [simplifyPath] always has, so a vertex past either end of the segment can
+ * still be dropped.
+ */
+internal fun douglasPeuckerMask(
+    x: DoubleArray,
+    y: DoubleArray,
+    tolerance: Double,
+    infiniteLines: Boolean = false,
+): BooleanArray {
+    val n = x.size
+    val keep = BooleanArray(n)
+    if (n == 0) return keep
+    keep[0] = true
+    keep[n - 1] = true
+    if (n < 3) return keep
+
+    // Pending segments have disjoint interiors, so there are never more than n of them.
+    val starts = IntArray(n)
+    val ends = IntArray(n)
+    var top = 0
+    starts[0] = 0
+    ends[0] = n - 1
+    top++
+
+    while (top > 0) {
+        top--
+        val start = starts[top]
+        val end = ends[top]
+        if (end - start < 2) continue
+
+        var maxDistance = -1.0
+        var index = start + 1
+        for (i in start + 1 until end) {
+            val distance = if (infiniteLines) {
+                lineDistance(x[i], y[i], x[start], y[start], x[end], y[end])
+            } else {
+                segmentDistance(x[i], y[i], x[start], y[start], x[end], y[end])
+            }
+            if (distance > maxDistance) {
+                maxDistance = distance
+                index = i
+            }
+        }
+        if (maxDistance <= tolerance) continue
+
+        keep[index] = true
+        starts[top] = start
+        ends[top] = index
+        top++
+        starts[top] = index
+        ends[top] = end
+        top++
+    }
+    return keep
+}
+
+/**
+ * Visvalingam–Whyatt over planar coordinates: repeatedly drops the vertex with the smallest
+ * effective area until every remaining vertex spans at least [minArea].
+ */
+internal fun visvalingamWhyattMask(x: DoubleArray, y: DoubleArray, minArea: Double): BooleanArray {
+    val n = x.size
+    val keep = BooleanArray(n) { true }
+    if (n < 3) return keep
+
+    // The remaining vertices form a doubly linked list.
+    val previous = IntArray(n) { it - 1 }
+    val next = IntArray(n) { it + 1 }
+    val heap = AreaHeap(n)
+    for (i in 1 until n - 1) {
+        heap.insert(i, triangleArea(x, y, i - 1, i, i + 1))
+    }
+
+    while (heap.size > 0) {
+        val index = heap.peek()
+        val area = heap.keyOf(index)
+        if (area >= minArea) break
+        heap.poll()
+        keep[index] = false
+
+        val before = previous[index]
+        val after = next[index]
+        next[before] = after
+        previous[after] = before
+        // A neighbour's area never drops below that of a vertex removed before it.
+        if (before > 0) {
+            heap.update(before, max(area, triangleArea(x, y, previous[before], before, after)))
+        }
+        if (after < n - 1) {
+            heap.update(after, max(area, triangleArea(x, y, before, after, next[after])))
+        }
+    }
+    return keep
+}
+
+/**
+ * Binary min-heap of vertex indices keyed by area, with an index so a vertex's key can change in
+ * place.
+ */
+private class AreaHeap(capacity: Int) {
+    private val heap = IntArray(capacity)
+    private val positions = IntArray(capacity) { -1 }
+    private val keys = DoubleArray(capacity)
+
+    var size = 0
+        private set
+
+    fun keyOf(index: Int): Double = keys[index]
+
+    fun peek(): Int = heap[0]
+
+    fun insert(index: Int, key: Double) {
+        keys[index] = key
+        heap[size] = index
+        positions[index] = size
+        size++
+        siftUp(size - 1)
+    }
+
+    fun poll(): Int {
+        val top = heap[0]
+        positions[top] = -1
+        size--
+        if (size > 0) {
+            heap[0] = heap[size]
+            positions[heap[0]] = 0
+            siftDown(0)
+        }
+        return top
+    }
+
+    fun update(index: Int, key: Double) {
+        val position = positions[index]
+        if (position < 0) return
+        keys[index] = key
+        siftUp(position)
+        siftDown(positions[index])
+    }
+
+    private fun siftUp(from: Int) {
+        var position = from
+        val index = heap[position]
+        while (position > 0) {
+            val parent = (position - 1) / 2
+            if (keys[heap[parent]] <= keys[index]) break
+            move(heap[parent], position)
+            position = parent
+        }
+        move(index, position)
+    }
+
+    private fun siftDown(from: Int) {
+        var position = from
+        val index = heap[position]
+        while (true) {
+            var child = 2 * position + 1
+            if (child >= size) break
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++
+            if (keys[heap[child]] >= keys[index]) break
+            move(heap[child], position)
+            position = child
+        }
+        move(index, position)
+    }
+
+    private fun move(index: Int, position: Int) {
+        heap[position] = index
+        positions[index] = position
+    }
+}
+
+/**
+ * Projects coordinates to meters on a plane tangent at their mean latitude.
+ */
+private inline fun project(
+    n: Int,
+    latitude: (Int) -> Double,
+    longitude: (Int) -> Double,
+    x: DoubleArray,
+    y: DoubleArray,
+) {
+    if (n == 0) return
+    var latitudeSum = 0.0
+    for (i in 0 until n) latitudeSum += latitude(i)
+    val metersPerDegreeLongitude = METERS_PER_DEGREE * cos(Math.toRadians(latitudeSum / n))
+    for (i in 0 until n) {
+        x[i] = longitude(i) * metersPerDegreeLongitude
+        y[i] = latitude(i) * METERS_PER_DEGREE
+    }
+}
+
+private fun triangleArea(x: DoubleArray, y: DoubleArray, a: Int, b: Int, c: Int): Double =
+    abs((x[b] - x[a]) * (y[c] - y[a]) - (x[c] - x[a]) * (y[b] - y[a])) / 2.0
+
+private fun segmentDistance(px: Double, py: Double, ax: Double, ay: Double, bx: Double, by: Double): Double {
+    val dx = bx - ax
+    val dy = by - ay
+    val lengthSquared = dx * dx + dy * dy
+    if (lengthSquared == 0.0) return distance(px - ax, py - ay)
+    val t = (((px - ax) * dx + (py - ay) * dy) / lengthSquared).coerceIn(0.0, 1.0)
+    return distance(px - (ax + t * dx), py - (ay + t * dy))
+}
+
+/**
+ * Distance from the point to the infinite line through `a` and `b`. NaN when `a` and `b`
+ * coincide, which never exceeds a tolerance, so such a span collapses to its endpoints.
+ */
+private fun lineDistance(px: Double, py: Double, ax: Double, ay: Double, bx: Double, by: Double): Double {
+    val area = abs((by - ay) * px - (bx - ax) * py + bx * ay - by * ax)
+    return area / distance(bx - ax, by - ay)
+}
+
+private fun distance(dx: Double, dy: Double): Double = sqrt(dx * dx + dy * dy)
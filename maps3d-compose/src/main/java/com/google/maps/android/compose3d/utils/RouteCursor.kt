@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+/**
+ * Reads points along a [PackedPath] for a distance that changes a little at a time, such as the
+ * playback position of a route.
+ *
+ * Each call starts from the segment the previous call ended on and walks to the one containing
+ * the new distance, so moving by less than a few segments per frame, in either direction, costs
+ * O(1) instead of the binary search in [PackedPath.pointAt]. A jump of more than [MAX_WALK]
+ * segments, such as a seek or a scrub, falls back to the binary search.
+ *
+ * Keep one cursor per independently moving distance, e.g. one for the target and one for the
+ * look-ahead point. Sharing a cursor between them would turn every call into a seek.
+ *
+ * Not thread-safe.
+ *
+ * @property path The path being read.
+ */
+class RouteCursor(val path: PackedPath) {
+    private var segment = 0
+
+    internal var walks = 0L
+        private set
+    internal var searches = 0L
+        private set
+
+    /**
+     * The segment the last [moveTo] landed on; see [PackedPath.segmentAt].
+     */
+    val segmentIndex: Int
+        get() = segment
+
+    /**
+     * Writes the point [distance] meters along the path into [out], clamped to the endpoints, and
+     * leaves the cursor on the segment containing it.
+     *
+     * @return [out], for chaining.
+     */
+    fun moveTo(distance: Double, out: MutableGeoPoint): MutableGeoPoint {
+        segment = locate(distance)
+        return path.pointAt(segment, distance, out)
+    }
+
+    /**
+     * Moves the cursor back to the start of the path.
+     */
+    fun reset() {
+        segment = 0
+    }
+
+    private fun locate(distance: Double): Int {
+        val last = path.size - 2
+        if (last <= 0) return 0
+        var index = segment
+        var steps = 0
+        while (index < last && path.distanceAt(index + 1) <= distance) {
+            if (++steps > MAX_WALK) return search(distance)
+            index++
+        }
+        while (index > 0 && path.distanceAt(index) > distance) {
+            if (++steps > MAX_WALK) return search(distance)
+            index--
+        }
+        walks++
+        return index
+    }
+
+    private fun search(distance: Double): Int {
+        searches++
+        return path.segmentAt(distance)
+    }
+
+    companion object {
+        /**
+         * Segments walked before a move is treated as a seek.
+         */
+        const val MAX_WALK = 16
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.utils
+
+import com.google.android.gms.maps.model.LatLng
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.IOException
+
+/**
+ * Per-route data that playback would otherwise recompute with trigonometry every frame,
+ * computed once up front.
+ *
+ * Next to the [path] and its cumulative distances, the profile holds three channels:
+ * - [bearingAt]: the great-circle bearing of every segment;
+ * - [curvatureAt]: the signed curvature at every vertex, in radians per meter, positive when the
+ *   route turns clockwise (right);
+ * - [smoothedHeadingAt]: at every vertex, the heading towards the point [lookaheadMeters] further
+ *   along, which is the direction a follow camera aims at.
+ *
+ * [headingAt] interpolates the last channel between two vertices, which costs a few arithmetic
+ * operations instead of the trigonometry of [PackedPath.headingAt]. Headings and curvature are
+ * stored as floats, which is precise to well under a thousandth of a degree.
+ *
+ * Build one off the main thread with [build], and cache it alongside the route with [writeTo]
+ * and [readFrom].
+ *
+ * @property path The route.
+ * @property lookaheadMeters The look-ahead the smoothed heading channel was computed with.
+ */
+class RouteProfile private constructor(
+    val path: PackedPath,
+    val lookaheadMeters: Double,
+    private val bearings: FloatArray,
+    private val curvatures: FloatArray,
+    private val headings: FloatArray,
+) {
+    /**
+     * Bearing of the segment from vertex [segment] to the next one, in degrees clockwise from
+     * north. Zero-length segments take the bearing of the segment before them.
+     */
+    fun bearingAt(segment: Int): Double = bearings[segment].toDouble()
+
+    /**
+     * Signed curvature at vertex [index] in radians per meter; 0 at the endpoints.
+     */
+    fun curvatureAt(index: Int): Double = curvatures[index].toDouble()
+
+    /**
+     * Heading at vertex [index] towards the point [lookaheadMeters] further along the route.
+     */
+    fun smoothedHeadingAt(index: Int): Double = headings[index].toDouble()
+
+    /**
+     * The smoothed heading at [distance], interpolated the short way round between the vertices
+     * of [segment], which must contain [distance], e.g. from a [RouteCursor].
+     */
+    fun headingAt(segment: Int, distance: Double): Double {
+        if (path.size < 2) return headings[0].toDouble()
+        val start = path.distanceAt(segment)
+        val length = path.distanceAt(segment + 1) - start
+        val fraction = if (length <= 0.0) 0.0 else ((distance - start) / length).coerceIn(0.0, 1.0)
+        val from = headings[segment].toDouble()
+        var delta = (headings[segment + 1] - from) % 360.0
+        if (delta > 180.0) delta -= 360.0
+        if (delta <= -180.0) delta += 360.0
+        val heading = (from + delta * fraction) % 360.0
+        return if (heading < 0.0) heading + 360.0 else heading
+    }
+
+    /**
+     * Like the other [headingAt], finding the segment with a binary search.
+     */
+    fun headingAt(distance: Double): Double = headingAt(path.segmentAt(distance), distance)
+
+    /**
+     * Writes the profile to [output] in a compact binary form that [readFrom] reads back.
+     */
+    fun writeTo(output: DataOutput) {
+        val size = path.size
+        output.writeInt(MAGIC)
+        output.writeInt(VERSION)
+        output.writeInt(size)
+        output.writeDouble(lookaheadMeters)
+        for (i in 0 until size) {
+            output.writeDouble(path.latitude(i))
+            output.writeDouble(path.longitude(i))
+            output.writeDouble(path.altitude(i))
+            output.writeDouble(path.distanceAt(i))
+        }
+        for (bearing in bearings) output.writeFloat(bearing)
+        for (curvature in curvatures) output.writeFloat(curvature)
+        for (heading in headings) output.writeFloat(heading)
+    }
+
+    companion object {
+        private const val MAGIC = 0x52505246 // "RPRF"
+        private const val VERSION = 1
+
+        /**
+         * Computes the profile of [path] on [Dispatchers.Default].
+         */
+        suspend fun build(path: List<LatLng>, lookaheadMeters: Double): RouteProfile =
+            withContext(Dispatchers.Default) { compute(path.toPackedPath(), lookaheadMeters) }
+
+        /**
+         * Computes the profile of [path] on the calling thread, in O(n).
+         */
+        fun compute(path: PackedPath, lookaheadMeters: Double): RouteProfile {
+            require(lookaheadMeters >= 0.0) { "lookaheadMeters must not be negative" }
+            val size = path.size
+            val bearings = bearings(path)
+            val curvatures = FloatArray(size)
+            for (i in 1 until size - 1) {
+                val span = (path.distanceAt(i + 1) - path.distanceAt(i - 1)) / 2.0
+                if (span <= 0.0) continue
+                var turn = (bearings[i] - bearings[i - 1]) % 360.0
+                if (turn > 180.0) turn -= 360.0
+                if (turn <= -180.0) turn += 360.0
+                curvatures[i] = (Math.toRadians(turn) / span).toFloat()
+            }
+
+            val headings = FloatArray(size)
+            if (size >= 2) {
+                // The look-ahead point only moves forward, so one cursor covers it in O(n).
+                val cursor = RouteCursor(path)
+                val ahead = MutableGeoPoint()
+                val length = path.lengthMeters
+                for (i in 0 until size) {
+                    val distance = path.distanceAt(i)
+                    val target = (distance + lookaheadMeters).coerceAtMost(length)
+                    headings[i] = if (target > distance) {
+                        cursor.moveTo(target, ahead)
+                        calculateHeading(path.latitude(i), path.longitude(i), ahead.latitude, ahead.longitude).toFloat()
+                    } else {
+                        // At the end, or with no look-ahead: the direction of the current segment.
+                        bearings[minOf(i, size - 2)]
+                    }
+                }
+            }
+            return RouteProfile(path, lookaheadMeters, bearings, curvatures, headings)
+        }
+
+        /**
+         * Reads a profile written by [writeTo].
+         *
+         * @throws IOException If the data is not a profile, or from an unsupported version.
+         */
+        fun readFrom(input: DataInput): RouteProfile {
+            if (input.readInt() != MAGIC) throw IOException("Not a route profile")
+            val version = input.readInt()
+            if (version != VERSION) throw IOException("Unsupported route profile version $version")
+            val size = input.readInt()
+            if (size < 1) throw IOException("Invalid route profile size $size")
+            val lookaheadMeters = input.readDouble()
+            val latitudes = DoubleArray(size)
+            val longitudes = DoubleArray(size)
+            val altitudes = DoubleArray(size)
+            val distances = DoubleArray(size)
+            for (i in 0 until size) {
+                latitudes[i] = input.readDouble()
+                longitudes[i] = input.readDouble()
+                altitudes[i] = input.readDouble()
+                distances[i] = input.readDouble()
+            }
+            val bearings = FloatArray(size - 1) { input.readFloat() }
+            val curvatures = FloatArray(size) { input.readFloat() }
+            val headings = FloatArray(size) { input.readFloat() }
+            val path = PackedPath.restore(latitudes, longitudes, altitudes, distances)
+            return RouteProfile(path, lookaheadMeters, bearings, curvatures, headings)
+        }
+
+        private fun bearings(path: PackedPath): FloatArray {
+            val bearings = FloatArray(path.size - 1)
+            var firstDefined = -1
+            for (s in bearings.indices) {
+                if (path.distanceAt(s + 1) > path.distanceAt(s)) {
+                    bearings[s] = calculateHeading(
+                        path.latitude(s),
+                        path.longitude(s),
+                        path.latitude(s + 1),
+                        path.longitude(s + 1),
+                    ).toFloat()
+                    if (firstDefined < 0) firstDefined = s
+                } else if (firstDefined >= 0) {
+                    bearings[s] = bearings[s - 1]
+                }
+            }
+            // Leading zero-length segments take the first real bearing.
+            for (s in 0 until firstDefined) bearings[s] = bearings[firstDefined]
+            return bearings
+        }
+    }
+}
@@ -28,7 +28,6 @@ import com.google.android.gms.maps3d.model.flyAroundOptions
 import com.google.android.gms.maps3d.model.flyToOptions
 import com.google.android.gms.maps3d.model.latLngAltitude
 import java.util.Locale
-import kotlin.math.abs
 import kotlin.math.atan2
 import kotlin.math.cos
 import kotlin.math.floor
@@ -456,11 +455,19 @@ fun List<LatLng>.smoothPath(iterations: Int = 1): List<LatLng> {
  *
  * @return The heading in degrees clockwise from North.
  */
-fun calculateHeading(from: LatLng, to: LatLng): Double {
-    val lat1 = Math.toRadians(from.latitude)
-    val lon1 = Math.toRadians(from.longitude)
-    val lat2 = Math.toRadians(to.latitude)
-    val lon2 = Math.toRadians(to.longitude)
+fun calculateHeading(from: LatLng, to: LatLng): Double =
+    calculateHeading(from.latitude, from.longitude, to.latitude, to.longitude)
+
+/**
+ * Calculates the heading (bearing) between two coordinates given in degrees, without allocating.
+ *
+ * @return The heading in degrees clockwise from North.
+ */
+fun calculateHeading(fromLatitude: Double, fromLongitude: Double, toLatitude: Double, toLongitude: Double): Double {
+    val lat1 = Math.toRadians(fromLatitude)
+    val lon1 = Math.toRadians(fromLongitude)
+    val lat2 = Math.toRadians(toLatitude)
+    val lon2 = Math.toRadians(toLongitude)
 
     val dLon = lon2 - lon1
     val y = sin(dLon) * cos(lat2)
@@ -479,59 +486,33 @@ fun calculateHeading(from: LatLng, to: LatLng): Double {
  *
  * @param epsilon The maximum distance between the original path and the
  *                simplified path. Higher values result in more simplification.
- *                Value is in degrees (very rough approximation).
+ *                Value is in degrees (very rough approximation); prefer
+ *                [simplifyPathMeters], whose tolerance does not depend on latitude.
  * @return A new list of simplified [LatLng] points.
  */
 fun List<LatLng>.simplifyPath(epsilon: Double = 0.001): List<LatLng> {
     if (size < 3) return this
-
-    var maxDistance = 0.0
-    var index = 0
-    val first = first()
-    val last = last()
-
-    for (i in 1 until size - 1) {
-        val distance = perpendicularDistance(this[i], first, last)
-        if (distance > maxDistance) {
-            index = i
-            maxDistance = distance
-        }
-    }
-
-    return if (maxDistance > epsilon) {
-        val left = subList(0, index + 1).simplifyPath(epsilon)
-        val right = subList(index, size).simplifyPath(epsilon)
-        left.dropLast(1) + right
-    } else {
-        listOf(first, last)
-    }
+    val x = DoubleArray(size) { this[it].longitude }
+    val y = DoubleArray(size) { this[it].latitude }
+    return select(douglasPeuckerMask(x, y, epsilon, infiniteLines = true))
 }
 
 /**
- * Calculates the perpendicular distance from a point to a line segment.
+ * Calculates the distance in meters between two [LatLng] points using the Haversine formula.
  */
-private fun perpendicularDistance(point: LatLng, start: LatLng, end: LatLng): Double {
-    val x = point.longitude
-    val y = point.latitude
-    val x1 = start.longitude
-    val y1 = start.latitude
-    val x2 = end.longitude
-    val y2 = end.latitude
-
-    val area = abs((y2 - y1) * x - (x2 - x1) * y + x2 * y1 - y2 * x1)
-    val bottom = sqrt((y2 - y1).pow(2.0) + (x2 - x1).pow(2.0))
-    return area / bottom
-}
+fun haversineDistance(p1: LatLng, p2: LatLng): Double =
+    haversineDistance(p1.latitude, p1.longitude, p2.latitude, p2.longitude)
 
 /**
- * Calculates the distance in meters between two [LatLng] points using the Haversine formula.
+ * Calculates the Haversine distance in meters between two coordinates given in degrees, without
+ * allocating.
  */
-fun haversineDistance(p1: LatLng, p2: LatLng): Double {
+fun haversineDistance(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
     val r = 6371000.0 // Earth radius in meters
-    val lat1 = Math.toRadians(p1.latitude)
-    val lon1 = Math.toRadians(p1.longitude)
-    val lat2 = Math.toRadians(p2.latitude)
-    val lon2 = Math.toRadians(p2.longitude)
+    val lat1 = Math.toRadians(latitude1)
+    val lon1 = Math.toRadians(longitude1)
+    val lat2 = Math.toRadians(latitude2)
+    val lon2 = Math.toRadians(longitude2)
 
     val dLat = lat2 - lat1
     val dLon = lon2 - lon1
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import android.view.Choreographer
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.Map3DMode
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class AddSchedulerTest {
+
+    private class FakeFrameScheduler : FrameScheduler {
+        private val callbacks = mutableListOf<Choreographer.FrameCallback>()
+        private var frameTime = 0L
+
+        val pending: Int
+            get() = callbacks.size
+
+        override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks += callback
+        }
+
+        override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks -= callback
+        }
+
+        fun frame() {
+            frameTime += 16_666_667L
+            val pending = callbacks.toList()
+            callbacks.clear()
+            pending.forEach { it.doFrame(frameTime) }
+        }
+    }
+
+    private val removedMarker = mockk<Marker>(relaxed = true)
+    private val map = mockk<GoogleMap3D>(relaxed = true).also {
+        every { it.addMarker(any()) } answers { mockk<Marker>(relaxed = true) }
+    }
+    private val context = mockk<Context>(relaxed = true)
+    private val scheduler = FakeFrameScheduler()
+    private val state = Map3DState()
+    private val dispatcher = Map3DUpdateDispatcher(state, scheduler)
+
+    private fun cameraAt(latitude: Double): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            longitude = 0.0
+            altitude = 0.0
+        }
+        heading = 0.0
+        tilt = 45.0
+        range = 1000.0
+    }
+
+    // Listed farthest first, so a nearest-first order is visible.
+    private fun markers(count: Int): List<MarkerConfig> = List(count) { i ->
+        val distance = count - 1 - i
+        MarkerConfig(key = "m$distance", position = cameraAt(distance * 0.01).center)
+    }
+
+    private fun submit(camera: Camera, markers: List<MarkerConfig>) {
+        dispatcher.submit(
+            map = map,
+            context = context,
+            camera = camera,
+            cameraRestriction = null,
+            mapMode = Map3DMode.SATELLITE,
+            markers = markers,
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+    }
+
+    @Test
+    fun testAddsAreNearestFirstAndReportProgress() {
+        state.addScheduler.budget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 2)
+        state.addScheduler.beginFrame(cameraAt(0.0).center)
+
+        val changes = state.syncMarkers(map, markers(5))
+
+        assertEquals(listOf("m0", "m1"), changes.added)
+        assertTrue(state.addScheduler.endFrame())
+        assertEquals(LoadProgress(pending = 3, added = 2), state.loadProgress.value)
+        assertEquals(0.4f, state.loadProgress.value.fraction, 1e-6f)
+    }
+
+    @Test
+    fun testBacklogDrainsOverFramesWithoutNewInputs() {
+        dispatcher.addBudget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 3)
+        submit(cameraAt(0.0), markers(10))
+
+        var frames = 0
+        while (scheduler.pending > 0) {
+            scheduler.frame()
+            frames++
+        }
+
+        assertEquals(4, frames)
+        verify(exactly = 10) { map.addMarker(any()) }
+        assertEquals(LoadProgress(pending = 0, added = 10), state.loadProgress.value)
+        assertFalse(state.loadProgress.value.isLoading)
+        // Once everything is on the map, an idle list is skipped as usual.
+        submit(cameraAt(0.0), markers(10))
+        scheduler.frame()
+        assertEquals(1L, state.markerStats.skippedByFingerprint)
+    }
+
+    @Test
+    fun testRemovalsAndCameraDoNotWaitForAdds() {
+        var added = 0
+        every { map.addMarker(any()) } answers {
+            if (added++ == 0) removedMarker else mockk<Marker>(relaxed = true)
+        }
+        val doomed = MarkerConfig(key = "doomed", position = cameraAt(0.0).center)
+        submit(cameraAt(0.0), listOf(doomed))
+        scheduler.frame()
+
+        dispatcher.addBudget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 1)
+        submit(cameraAt(0.0), listOf(doomed) + markers(100))
+        scheduler.frame()
+        assertTrue(state.loadProgress.value.isLoading)
+
+        // Deep in the backlog, a removal and a camera move still land in the next frame.
+        submit(cameraAt(1.0), markers(100))
+        scheduler.frame()
+
+        verify(exactly = 1) { removedMarker.remove() }
+        verify(exactly = 2) { map.setCamera(any()) }
+        assertEquals(98, state.loadProgress.value.pending)
+    }
+
+    @Test
+    fun testStreamedAddsAreRequeued() {
+        dispatcher.streamMarkers = true
+        dispatcher.addBudget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 4)
+        submit(cameraAt(0.0), emptyList())
+        dispatcher.offerMarkerDeltas(markers(10).map { it.asUpsert() })
+
+        while (scheduler.pending > 0) scheduler.frame()
+
+        verify(exactly = 10) { map.addMarker(any()) }
+        assertFalse(state.loadProgress.value.isLoading)
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.os.Looper
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import java.time.Duration
+
+@RunWith(RobolectricTestRunner::class)
+class CameraStateHolderTest {
+
+    private val initial = cameraAt(0.0)
+    private val holder = CameraStateHolder(
+        initial,
+        CameraFilter(minIntervalMillis = 100, settleAfterMillis = 300),
+    )
+
+    private fun cameraAt(latitude: Double, heading: Double = 0.0): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            longitude = 0.0
+            altitude = 0.0
+        }
+        this.heading = heading
+        tilt = 45.0
+        range = 1000.0
+    }
+
+    private fun advance(millis: Long) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis))
+    }
+
+    @Test
+    fun testChangesWithinEpsilonAreNotEmitted() {
+        advance(200)
+        holder.onCameraChanged(cameraAt(1e-8, heading = 0.05))
+
+        assertSame(initial, holder.camera.value)
+        assertEquals(0L, holder.emissions)
+        assertFalse(holder.isSettled.value)
+    }
+
+    @Test
+    fun testEmissionRateIsCappedAndLatestCameraIsKept() {
+        advance(200)
+        for (i in 1..10) {
+            holder.onCameraChanged(cameraAt(i.toDouble()))
+            advance(5)
+        }
+        // The first change goes out immediately, the rest wait for the interval.
+        assertEquals(1L, holder.emissions)
+        assertEquals(1.0, holder.camera.value.center.latitude, 0.0)
+
+        advance(100)
+        assertEquals(2L, holder.emissions)
+        assertEquals(10.0, holder.camera.value.center.latitude, 0.0)
+        assertEquals(10L, holder.received)
+    }
+
+    @Test
+    fun testSettlesWithExactRestingCamera() {
+        advance(200)
+        holder.onCameraChanged(cameraAt(1.0))
+        val resting = cameraAt(1.0, heading = 0.05) // within epsilon of the emitted camera
+        advance(150)
+        holder.onCameraChanged(resting)
+        assertFalse(holder.isSettled.value)
+
+        advance(299)
+        assertFalse(holder.isSettled.value)
+        advance(1)
+        assertTrue(holder.isSettled.value)
+        assertSame(resting, holder.camera.value)
+    }
+
+    @Test
+    fun testDisposeCancelsDeferredWork() {
+        advance(200)
+        holder.onCameraChanged(cameraAt(1.0))
+        holder.onCameraChanged(cameraAt(2.0))
+        holder.dispose()
+        advance(1000)
+
+        assertEquals(1L, holder.emissions)
+        assertFalse(holder.isSettled.value)
+    }
+}
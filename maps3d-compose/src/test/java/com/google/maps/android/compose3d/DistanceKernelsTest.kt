@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.maps.android.compose3d.utils.FAST_DISTANCE_MAX_DEGREES
+import com.google.maps.android.compose3d.utils.PARALLEL_SEGMENTS
+import com.google.maps.android.compose3d.utils.cumulativeDistances
+import com.google.maps.android.compose3d.utils.fastDistance
+import com.google.maps.android.compose3d.utils.haversineDistance
+import com.google.maps.android.compose3d.utils.segmentDistances
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.abs
+import kotlin.random.Random
+
+@RunWith(RobolectricTestRunner::class)
+class DistanceKernelsTest {
+
+    @Test
+    fun testShortSegmentsStayWithinTheErrorBound() {
+        val random = Random(7)
+        var worst = 0.0
+        repeat(200_000) {
+            val latitude = random.nextDouble(-89.8, 89.8)
+            val longitude = random.nextDouble(-180.0, 180.0)
+            val latitude2 = latitude + random.nextDouble(-FAST_DISTANCE_MAX_DEGREES, FAST_DISTANCE_MAX_DEGREES)
+            val longitude2 = longitude + random.nextDouble(-FAST_DISTANCE_MAX_DEGREES, FAST_DISTANCE_MAX_DEGREES)
+            val exact = haversineDistance(latitude, longitude, latitude2, longitude2)
+            if (exact < 1.0) return@repeat
+            val error = abs(fastDistance(latitude, longitude, latitude2, longitude2) - exact) / exact
+            if (error > worst) worst = error
+        }
+        assertTrue("worst relative error $worst", worst < 1e-6)
+    }
+
+    @Test
+    fun testLongSegmentsAndTheAntimeridianUseTheExactFormula() {
+        assertEquals(
+            haversineDistance(10.0, 20.0, 12.0, 25.0),
+            fastDistance(10.0, 20.0, 12.0, 25.0),
+            0.0,
+        )
+        // 0.02 degrees across the antimeridian is a short segment, not one around the world.
+        val across = fastDistance(0.0, 179.99, 0.0, -179.99)
+        assertEquals(haversineDistance(0.0, 179.99, 0.0, -179.99), across, across * 1e-6)
+        assertTrue(across < 3_000.0)
+    }
+
+    @Test
+    fun testParallelCumulativeDistancesMatchSerialSum() {
+        val size = PARALLEL_SEGMENTS * 4 + 17
+        val random = Random(11)
+        val latitudes = DoubleArray(size)
+        val longitudes = DoubleArray(size)
+        for (i in 1 until size) {
+            latitudes[i] = latitudes[i - 1] + random.nextDouble(-1e-3, 1e-3)
+            longitudes[i] = longitudes[i - 1] + random.nextDouble(-1e-3, 1e-3)
+        }
+        // An occasional long jump exercises the fallback inside the parallel tasks.
+        latitudes[size / 2] += 1.0
+
+        val distances = cumulativeDistances(latitudes, longitudes)
+        val segments = segmentDistances(latitudes, longitudes)
+
+        var sum = 0.0
+        var exact = 0.0
+        for (i in 1 until size) {
+            sum += fastDistance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i])
+            exact += haversineDistance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i])
+            assertEquals(distances[i] - distances[i - 1], segments[i - 1], 1e-6)
+        }
+        assertEquals(sum, distances[size - 1], 1e-6)
+        assertEquals(exact, distances[size - 1], exact * 1e-6)
+    }
+
+    @Test
+    fun testDegeneratePaths() {
+        assertEquals(0, cumulativeDistances(DoubleArray(0), DoubleArray(0)).size)
+        assertEquals(0.0, cumulativeDistances(doubleArrayOf(1.0), doubleArrayOf(2.0))[0], 0.0)
+        assertEquals(0, segmentDistances(doubleArrayOf(1.0), doubleArrayOf(2.0)).size)
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.view.Choreographer
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.utils.RouteProfile
+import com.google.maps.android.compose3d.utils.toPackedPath
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class FollowCameraControllerTest {
+
+    private class FakeFrameScheduler : FrameScheduler {
+        private val callbacks = mutableListOf<Choreographer.FrameCallback>()
+        private var frameTime = 0L
+
+        val pending: Int
+            get() = callbacks.size
+
+        override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks += callback
+        }
+
+        override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks -= callback
+        }
+
+        fun frames(count: Int) {
+            repeat(count) {
+                frameTime += 16_666_667L
+                val pending = callbacks.toList()
+                callbacks.clear()
+                pending.forEach { it.doFrame(frameTime) }
+            }
+        }
+    }
+
+    private val cameras = mutableListOf<Camera>()
+    private val map = mockk<GoogleMap3D>(relaxed = true).also {
+        every { it.setCamera(any()) } answers { cameras += firstArg<Camera>() }
+        every { it.addMarker(any()) } answers { mockk<Marker>(relaxed = true) }
+    }
+    private val state = Map3DState()
+    private val scheduler = FakeFrameScheduler()
+
+    // Roughly 1112 m due north.
+    private val route = FollowTarget.Route(listOf(LatLng(0.0, 0.0), LatLng(0.01, 0.0)), speedMetersPerSecond = 600.0)
+
+    private fun controller(options: FollowCameraOptions = FollowCameraOptions()) =
+        FollowCameraController(options, scheduler).also { it.attach(map, state) }
+
+    @Test
+    fun testRouteProgressIsPublishedAtThrottledRate() {
+        val controller = controller(FollowCameraOptions(progressIntervalMillis = 250))
+        controller.target = route
+        controller.play()
+
+        val published = mutableListOf<FollowProgress>()
+        repeat(60) {
+            scheduler.frames(1)
+            if (published.lastOrNull() != controller.progress.value) published += controller.progress.value
+        }
+
+        assertEquals(60, cameras.size)
+        assertTrue("published ${published.size} times", published.size in 3..5)
+        // The first frame only establishes the clock, so 59 frame intervals have elapsed.
+        assertEquals(590.0, controller.distanceMeters, 1.0)
+        assertTrue(controller.progress.value.distanceMeters < controller.distanceMeters)
+    }
+
+    @Test
+    fun testReachingTheEndStopsAndPublishesImmediately() {
+        val controller = controller()
+        controller.target = route
+        controller.play()
+
+        scheduler.frames(600)
+
+        assertFalse(controller.isPlaying)
+        assertFalse(controller.progress.value.isPlaying)
+        assertEquals(route.lengthMeters, controller.progress.value.distanceMeters, 0.0)
+        assertEquals(1.0, controller.progress.value.fraction, 0.0)
+        // Once the camera has caught up with the end of the route, frames stop.
+        assertEquals(0, scheduler.pending)
+    }
+
+    @Test
+    fun testTracksMapObjectAndItsDirectionOfTravel() {
+        val controller = controller(FollowCameraOptions(positionSmoothing = 1.0, headingSmoothing = 1.0))
+        fun markerAt(longitude: Double) = MarkerConfig(
+            key = "car",
+            position = latLngAltitude { latitude = 0.0; this.longitude = longitude; altitude = 0.0 },
+        )
+        controller.target = FollowTarget.MapObject("car")
+        scheduler.frames(3)
+        assertTrue(cameras.isEmpty())
+
+        state.syncMarkers(map, listOf(markerAt(0.0)))
+        scheduler.frames(1)
+        state.syncMarkers(map, listOf(markerAt(0.001)))
+        scheduler.frames(1)
+
+        val last = cameras.last()
+        assertEquals(0.001, last.center.longitude, 1e-9)
+        assertEquals(90.0, last.heading!!, 0.01)
+        assertEquals(1, scheduler.pending)
+
+        controller.target = null
+        assertEquals(0, scheduler.pending)
+    }
+
+    @Test
+    fun testStillObjectStopsFramesUntilItMoves() {
+        val controller = controller(FollowCameraOptions(positionSmoothing = 1.0, headingSmoothing = 1.0))
+        fun markerAt(longitude: Double) = MarkerConfig(
+            key = "car",
+            position = latLngAltitude { latitude = 0.0; this.longitude = longitude; altitude = 0.0 },
+        )
+        controller.target = FollowTarget.MapObject("car")
+
+        // Not on the map: no polling.
+        scheduler.frames(1)
+        assertEquals(0, scheduler.pending)
+
+        state.syncMarkers(map, listOf(markerAt(0.0)))
+        scheduler.frames(5)
+        assertEquals(0, scheduler.pending)
+        val settledCameras = cameras.size
+
+        // Another object changing does not wake the controller.
+        state.syncMarkers(map, listOf(markerAt(0.0), MarkerConfig(key = "other", position = markerAt(1.0).position)))
+        assertEquals(0, scheduler.pending)
+
+        state.syncMarkers(map, listOf(markerAt(0.001), MarkerConfig(key = "other", position = markerAt(1.0).position)))
+        assertEquals(1, scheduler.pending)
+        scheduler.frames(5)
+        assertEquals(0, scheduler.pending)
+        assertTrue(cameras.size > settledCameras)
+        assertEquals(0.001, cameras.last().center.longitude, 1e-9)
+    }
+
+    @Test
+    fun testRouteWithProfileInterpolatesHeading() {
+        // East, then north.
+        val path = listOf(LatLng(0.0, 0.0), LatLng(0.0, 0.01), LatLng(0.01, 0.01))
+        val profile = RouteProfile.compute(path.toPackedPath(), lookaheadMeters = 200.0)
+        val controller = controller(FollowCameraOptions(positionSmoothing = 1.0, headingSmoothing = 1.0))
+        controller.target = FollowTarget.Route(profile, speedMetersPerSecond = 600.0)
+        controller.play()
+
+        scheduler.frames(61)
+
+        val heading = cameras.last().heading!!
+        assertEquals(profile.headingAt(controller.distanceMeters), heading, 0.01)
+        assertTrue("heading $heading", heading > 0.0 && heading < 90.0)
+    }
+
+    @Test
+    fun testDispatcherLeavesCameraToActiveFollower() {
+        val controller = controller()
+        val dispatcher = Map3DUpdateDispatcher(state, scheduler)
+        dispatcher.followCamera = controller
+        controller.target = route
+
+        dispatcher.submit(
+            map = map,
+            context = mockk(relaxed = true),
+            camera = Camera.DEFAULT_CAMERA,
+            cameraRestriction = null,
+            mapMode = 0,
+            markers = emptyList(),
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+        scheduler.frames(1)
+
+        // Only the follower's camera reached the map.
+        verify(exactly = 1) { map.setCamera(any()) }
+        assertEquals(0.0, cameras.single().center.latitude, 1e-9)
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.os.Looper
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.latLngAltitude
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import kotlin.random.Random
+
+@RunWith(RobolectricTestRunner::class)
+class Map3DStateConcurrencyTest {
+
+    private fun markerConfig(key: String, latitude: Double) = MarkerConfig(
+        key = key,
+        position = latLngAltitude { this.latitude = latitude; longitude = 0.0; altitude = 0.0 },
+    )
+
+    private fun runThreads(count: Int, body: (index: Int) -> Unit): List<Thread> {
+        val start = CountDownLatch(1)
+        val threads = List(count) { index ->
+            Thread {
+                start.await()
+                body(index)
+            }.also(Thread::start)
+        }
+        start.countDown()
+        return threads
+    }
+
+    @Test
+    fun testConcurrentClicksAreDeliveredExactlyOnce() {
+        val posted = ConcurrentLinkedQueue<Runnable>()
+        val queue = ClickQueue(post = { posted.add(it) })
+        val registry = ClickHandlerRegistry<String>()
+        val received = IntArray(PRODUCERS)
+        repeat(PRODUCERS) { i -> registry.bind("k$i", "t$i") { received[i]++ } }
+
+        val threads = runThreads(PRODUCERS) { i ->
+            repeat(CLICKS_PER_PRODUCER) { queue.enqueue(registry, "k$i", "t$i") }
+        }
+        // Drain on this thread while producers are still enqueuing.
+        while (threads.any(Thread::isAlive)) {
+            posted.poll()?.run()
+        }
+        threads.forEach(Thread::join)
+        while (true) posted.poll()?.run() ?: break
+
+        assertEquals((PRODUCERS * CLICKS_PER_PRODUCER).toLong(), queue.enqueued)
+        assertEquals((PRODUCERS * CLICKS_PER_PRODUCER).toLong(), queue.dispatched)
+        assertEquals(0L, queue.stale)
+        received.forEach { assertEquals(CLICKS_PER_PRODUCER, it) }
+    }
+
+    @Test
+    fun testClickOnReplacedObjectIsDropped() {
+        val posted = ConcurrentLinkedQueue<Runnable>()
+        val queue = ClickQueue(post = { posted.add(it) })
+        val registry = ClickHandlerRegistry<String>()
+        val received = mutableListOf<String>()
+        registry.bind("a", "old") { received += it }
+
+        queue.enqueue(registry, "a", "old")
+        queue.enqueue(registry, "a", "old")
+        // Only one drain is posted for the burst.
+        assertEquals(1, posted.size)
+
+        // The object is replaced before the drain runs.
+        registry.detach("a")
+        registry.bind("a", "new") { received += it }
+        queue.enqueue(registry, "a", "new")
+        posted.poll()!!.run()
+
+        assertEquals(listOf("new"), received)
+        assertEquals(2L, queue.stale)
+    }
+
+    @Test
+    fun testConcurrentDeltaProducersLoseAndDuplicateNothing() {
+        val live = HashSet<Marker>()
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        every { map.addMarker(any()) } answers {
+            val marker = mockk<Marker>(relaxed = true)
+            every { marker.remove() } answers { assertTrue(live.remove(marker)) }
+            assertTrue(live.add(marker))
+            marker
+        }
+        val state = Map3DState()
+        val buffer = DeltaBuffer<MarkerConfig>()
+        // Each producer owns its keys, so its last write per key is the expected outcome.
+        val expected = Array(PRODUCERS) { HashMap<String, Boolean>() }
+
+        val threads = runThreads(PRODUCERS) { i ->
+            val random = Random(i)
+            repeat(BATCHES_PER_PRODUCER) {
+                val batch = List(8) {
+                    val key = "p${i}_${random.nextInt(KEYS_PER_PRODUCER)}"
+                    val present = random.nextInt(4) != 0
+                    expected[i][key] = present
+                    if (present) markerConfig(key, random.nextDouble()).asUpsert() else MapObjectDelta.Remove(key)
+                }
+                buffer.offer(batch)
+            }
+        }
+        var added = 0
+        var removed = 0
+        fun applyPending() {
+            val changes = state.applyMarkerDeltas(map, buffer.drain())
+            added += changes.added.size
+            removed += changes.removed.size
+        }
+        while (threads.any(Thread::isAlive)) applyPending()
+        threads.forEach(Thread::join)
+        applyPending()
+
+        val expectedLive = expected.sumOf { keys -> keys.values.count { it } }
+        assertEquals(expectedLive, live.size)
+        assertEquals(expectedLive, added - removed)
+        // Removing everything must find exactly the live markers.
+        state.clear()
+        assertTrue(live.isEmpty())
+    }
+
+    @Test
+    fun testBackgroundClicksRunHandlerOnMainThread() {
+        val queue = ClickQueue()
+        val registry = ClickHandlerRegistry<String>()
+        val handlerThreads = mutableListOf<Thread>()
+        registry.bind("a", "x") { handlerThreads += Thread.currentThread() }
+
+        runThreads(PRODUCERS) {
+            repeat(10) { queue.enqueue(registry, "a", "x") }
+        }.forEach(Thread::join)
+        assertTrue(handlerThreads.isEmpty())
+
+        shadowOf(Looper.getMainLooper()).idle()
+        assertEquals(PRODUCERS * 10, handlerThreads.size)
+        assertTrue(handlerThreads.all { it === Looper.getMainLooper().thread })
+    }
+
+    @Test
+    fun testSyncOffMainThreadThrows() {
+        val state = Map3DState()
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        var error: Throwable? = null
+        runThreads(1) {
+            error = runCatching { state.syncMarkers(map, listOf(markerConfig("a", 0.0))) }.exceptionOrNull()
+        }.forEach(Thread::join)
+
+        assertTrue(error is IllegalStateException)
+    }
+
+    private companion object {
+        const val PRODUCERS = 8
+        const val CLICKS_PER_PRODUCER = 10_000
+        const val BATCHES_PER_PRODUCER = 500
+        const val KEYS_PER_PRODUCER = 50
+    }
+}
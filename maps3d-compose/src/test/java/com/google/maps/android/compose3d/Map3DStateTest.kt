@@ -17,14 +17,20 @@
 package com.google.maps.android.compose3d
 
 import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.Popover
+import com.google.android.gms.maps3d.model.Marker
 import com.google.android.gms.maps3d.model.Model
 import com.google.android.gms.maps3d.model.latLngAltitude
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
 
 @RunWith(RobolectricTestRunner::class)
 class Map3DStateTest {
@@ -58,7 +64,277 @@ class Map3DStateTest {
         
         // Verify that model.remove() was NOT called!
         verify(exactly = 0) { model.remove() }
-        // And verify that map.addModel was called twice (once for add, once for update!)
+        // A position-only change is applied in place rather than by adding the model again
+        verify(exactly = 1) { map.addModel(any()) }
+        verify(exactly = 1) { model.position = any() }
+        assertEquals(1L, state.modelStats.updatedInPlace)
+        assertEquals(1.0, state.modelStats.inPlaceRate, 0.0)
+    }
+
+    @Test
+    fun testModelUrlChangeIsReAdded() {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        val model = mockk<Model>(relaxed = true)
+        every { map.addModel(any()) } returns model
+        val state = Map3DState()
+        val config = ModelConfig(
+            key = "test",
+            url = "url1",
+            position = latLngAltitude { latitude = 0.0; longitude = 0.0; altitude = 0.0 },
+        )
+
+        state.syncModels(map, listOf(config))
+        state.syncModels(map, listOf(config.copy(heading = 90.0, scale = ModelScale.Uniform(2f))))
+        state.syncModels(map, listOf(config.copy(url = "url2")))
+
+        verify(exactly = 2) { map.addModel(any()) }
+        verify(exactly = 1) { model.orientation = any() }
+        verify(exactly = 1) { model.scale = any() }
+        assertEquals(2L, state.modelStats.changed)
+        assertEquals(0.5, state.modelStats.inPlaceRate, 0.0)
+    }
+
+    @Test
+    fun testMarkerPositionChangeMovesInPlace() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        state.syncMarkers(map, listOf(markerConfig("a")))
+
+        state.syncMarkers(map, listOf(markerConfig("a", latitude = 1.0)))
+        state.syncMarkers(map, listOf(markerConfig("a", latitude = 1.0).copy(label = "renamed")))
+
+        verify(exactly = 2) { map.addMarker(any()) }
+        assertEquals(1L, state.markerStats.updatedInPlace)
+    }
+
+    private fun markerConfig(key: String, latitude: Double = 0.0) = MarkerConfig(
+        key = key,
+        position = latLngAltitude { this.latitude = latitude; longitude = 0.0; altitude = 0.0 },
+    )
+
+    private fun relaxedMap(): GoogleMap3D {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        every { map.addMarker(any()) } answers { mockk<Marker>(relaxed = true) }
+        return map
+    }
+
+    @Test
+    fun testSyncMarkersReportsChangeSet() {
+        val map = relaxedMap()
+        val state = Map3DState()
+
+        val first = state.syncMarkers(map, listOf(markerConfig("a"), markerConfig("b")))
+        assertEquals(listOf("a", "b"), first.added)
+
+        val second = state.syncMarkers(map, listOf(markerConfig("a", latitude = 1.0), markerConfig("c")))
+        assertEquals(listOf("c"), second.added)
+        assertEquals(listOf("a"), second.changed)
+        assertEquals(listOf("b"), second.removed)
+
+        verify(exactly = 4) { map.addMarker(any()) }
+    }
+
+    @Test
+    fun testIdleSyncMakesNoMapCalls() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        val configs = (0 until 1000).map { markerConfig("m$it", latitude = it / 100.0) }
+
+        state.syncMarkers(map, configs)
+        val afterFirst = state.markerStats
+
+        // Same instance: skipped before any per-object work.
+        assertTrue(state.syncMarkers(map, configs).isEmpty)
+        // Equal content in a new list: skipped by fingerprint, still no per-object comparisons.
+        assertTrue(state.syncMarkers(map, configs.toList()).isEmpty)
+
+        val afterIdle = state.markerStats
+        assertEquals(1L, afterIdle.skippedByIdentity)
+        assertEquals(1L, afterIdle.skippedByFingerprint)
+        assertEquals(afterFirst.comparisons, afterIdle.comparisons)
+        verify(exactly = 1000) { map.addMarker(any()) }
+    }
+
+    @Test
+    fun testFreshClickLambdasDoNotReAddMarkers() {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        val marker = mockk<Marker>(relaxed = true)
+        every { map.addMarker(any()) } returns marker
+        val state = Map3DState()
+
+        // Simulate three recompositions, each producing a new list and a new inline lambda.
+        repeat(3) { pass ->
+            state.syncMarkers(map, listOf(markerConfig("a").copy(onClick = { println("click $pass") })))
+        }
+
+        verify(exactly = 1) { map.addMarker(any()) }
+        verify(exactly = 1) { marker.setClickListener(any()) }
+        verify(exactly = 0) { marker.remove() }
+    }
+
+    @Test
+    fun testClickRegistryDispatchesNewestHandler() {
+        val registry = ClickHandlerRegistry<String>()
+        val received = mutableListOf<String>()
+
+        assertTrue(registry.bind("a", "x") { received += "first:$it" })
+        // Rebinding the same key replaces the handler without asking for another native listener.
+        assertEquals(false, registry.bind("a", "x") { received += "second:$it" })
+        registry.dispatch("a", "x")
+
+        // A replaced SDK object needs its listener attached again.
+        registry.detach("a")
+        assertTrue(registry.bind("a", "y") { received += "third:$it" })
+        registry.dispatch("a", "y")
+        // A late click on the replaced object is dropped.
+        assertFalse(registry.dispatch("a", "x"))
+
+        assertEquals(listOf("second:x", "third:y"), received)
+    }
+
+    @Test
+    fun testRecreatedPopoverReusesItsView() {
+        val map = relaxedMap()
+        every { map.addPopover(any()) } answers { mockk<Popover>(relaxed = true) }
+        val context = RuntimeEnvironment.getApplication()
+        val state = Map3DState()
+        val anchors = listOf(markerConfig("anchor"))
+        state.syncMarkers(map, anchors)
+
+        val popover = PopoverConfig(key = "info", positionAnchorKey = "anchor", content = {}, contentType = "card")
+        state.syncPopovers(context, map, listOf(popover))
+        state.syncPopovers(context, map, listOf(popover.copy(autoPanEnabled = false)))
+
+        verify(exactly = 2) { map.addPopover(any()) }
+        assertEquals(1L, state.popoverPoolStats.created)
+        assertEquals(1L, state.popoverPoolStats.reused)
+    }
+
+    @Test
+    fun testMarkerDeltasTouchOnlyTheirKeys() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        state.syncMarkers(map, listOf(markerConfig("a"), markerConfig("b")))
+        val comparisonsBefore = state.markerStats.comparisons
+
+        val changes = state.applyMarkerDeltas(
+            map,
+            mapOf("a" to markerConfig("a", latitude = 1.0), "b" to null, "c" to markerConfig("c")),
+        )
+
+        assertEquals(listOf("c"), changes.added)
+        assertEquals(listOf("a"), changes.changed)
+        assertEquals(listOf("b"), changes.removed)
+        assertEquals(comparisonsBefore + 1, state.markerStats.comparisons)
+
+        // A later snapshot falls back to a full diff against what the deltas left behind.
+        val snapshot = state.syncMarkers(map, listOf(markerConfig("c")))
+        assertEquals(listOf("a"), snapshot.removed)
+    }
+
+    @Test
+    fun testRetainedStateReattachedToSameMapIssuesNothing() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        state.attach(map)
+        state.syncMarkers(map, listOf(markerConfig("a"), markerConfig("b")))
+
+        // A recreated composition passes a new list with the same content to the same map.
+        assertFalse(state.attach(map))
+        val changes = state.syncMarkers(map, listOf(markerConfig("a"), markerConfig("b")))
+
+        assertTrue(changes.isEmpty)
+        verify(exactly = 2) { map.addMarker(any()) }
+    }
+
+    @Test
+    fun testDestroyedMapObjectsAreReAddedWithoutRemoval() {
+        val oldMarker = mockk<Marker>(relaxed = true)
+        val oldMap = mockk<GoogleMap3D>(relaxed = true)
+        every { oldMap.addMarker(any()) } returns oldMarker
+        val newMap = relaxedMap()
+        val state = Map3DState()
+        val markers = listOf(markerConfig("a"), markerConfig("b"))
+        state.attach(oldMap)
+        state.syncMarkers(oldMap, markers)
+
+        state.onMapDestroyed()
+        assertFalse(state.attach(newMap))
+        val changes = state.syncMarkers(newMap, markers)
+
+        assertEquals(listOf("a", "b"), changes.added)
+        verify(exactly = 2) { newMap.addMarker(any()) }
+        verify(exactly = 0) { oldMarker.remove() }
+    }
+
+    @Test
+    fun testAttachingToAnotherLiveMapMovesObjects() {
+        val oldMarker = mockk<Marker>(relaxed = true)
+        val oldMap = mockk<GoogleMap3D>(relaxed = true)
+        every { oldMap.addMarker(any()) } returns oldMarker
+        val newMap = relaxedMap()
+        val state = Map3DState()
+        val markers = listOf(markerConfig("a"))
+        state.attach(oldMap)
+        state.syncMarkers(oldMap, markers)
+
+        assertTrue(state.attach(newMap))
+        state.syncMarkers(newMap, markers)
+
+        verify(exactly = 1) { oldMarker.remove() }
+        verify(exactly = 1) { newMap.addMarker(any()) }
+    }
+
+    @Test
+    fun testRetiredMarkersAreReusedForNewKeys() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        state.handlePoolCapacity = 8
+        state.syncMarkers(map, listOf(markerConfig("a"), markerConfig("b")))
+
+        // Both keys leave and two new ones arrive in the same pass; one of them has another style.
+        val changes = state.syncMarkers(
+            map,
+            listOf(markerConfig("c", latitude = 1.0), markerConfig("d", latitude = 2.0).copy(label = "bus")),
+        )
+
+        assertEquals(listOf("c", "d"), changes.added)
+        assertEquals(listOf("a", "b"), changes.removed)
+        verify(exactly = 3) { map.addMarker(any()) }
+        assertEquals(HandlePoolStats(retired = 2, reused = 1, removed = 1), state.markerPoolStats)
+    }
+
+    @Test
+    fun testRetiredModelIsReusedOnlyForSameUrl() {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        val first = mockk<Model>(relaxed = true)
+        val second = mockk<Model>(relaxed = true)
+        every { map.addModel(any()) } returnsMany listOf(first, second)
+        val state = Map3DState()
+        state.handlePoolCapacity = 8
+        val origin = latLngAltitude { latitude = 0.0; longitude = 0.0; altitude = 0.0 }
+        state.syncModels(map, listOf(ModelConfig(key = "bus-1", position = origin, url = "bus.glb")))
+
+        state.syncModels(map, listOf(ModelConfig(key = "bus-2", position = origin, url = "bus.glb", heading = 90.0)))
+        verify(exactly = 1) { map.addModel(any()) }
+        verify(exactly = 1) { first.orientation = any() }
+
+        state.syncModels(map, listOf(ModelConfig(key = "car-1", position = origin, url = "car.glb")))
         verify(exactly = 2) { map.addModel(any()) }
+        verify(exactly = 1) { first.remove() }
+        assertEquals(1L, state.modelPoolStats.reused)
+    }
+
+    @Test
+    fun testPoolIsBoundedPerPass() {
+        val map = relaxedMap()
+        val state = Map3DState()
+        state.handlePoolCapacity = 1
+        state.syncMarkers(map, (0 until 4).map { markerConfig("old$it") })
+
+        state.syncMarkers(map, (0 until 4).map { markerConfig("new$it", latitude = 1.0) })
+
+        verify(exactly = 7) { map.addMarker(any()) }
+        assertEquals(HandlePoolStats(retired = 1, reused = 1, removed = 0), state.markerPoolStats)
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import android.view.Choreographer
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.Map3DMode
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class Map3DUpdateDispatcherTest {
+
+    private class FakeFrameScheduler : FrameScheduler {
+        private val callbacks = mutableListOf<Choreographer.FrameCallback>()
+        private var frameTime = 0L
+
+        override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks += callback
+        }
+
+        override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks -= callback
+        }
+
+        fun frame() {
+            frameTime += 16_666_667L
+            val pending = callbacks.toList()
+            callbacks.clear()
+            pending.forEach { it.doFrame(frameTime) }
+        }
+    }
+
+    private val map = mockk<GoogleMap3D>(relaxed = true).also {
+        every { it.addMarker(any()) } answers { mockk<Marker>(relaxed = true) }
+    }
+    private val context = mockk<Context>(relaxed = true)
+    private val scheduler = FakeFrameScheduler()
+    private val dispatcher = Map3DUpdateDispatcher(Map3DState(), scheduler)
+
+    private fun cameraAt(latitude: Double, heading: Double = 0.0): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            longitude = 0.0
+            altitude = 0.0
+        }
+        this.heading = heading
+        tilt = 45.0
+        range = 1000.0
+    }
+
+    private fun submit(camera: Camera, markers: List<MarkerConfig> = emptyList()) {
+        dispatcher.submit(
+            map = map,
+            context = context,
+            camera = camera,
+            cameraRestriction = null,
+            mapMode = Map3DMode.SATELLITE,
+            markers = markers,
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+    }
+
+    @Test
+    fun testUpdatesAreCoalescedPerFrame() {
+        val markers = listOf(MarkerConfig(key = "a", position = cameraAt(0.0).center))
+        repeat(5) { submit(cameraAt(it.toDouble()), markers) }
+
+        verify(exactly = 0) { map.setCamera(any()) }
+        scheduler.frame()
+
+        verify(exactly = 1) { map.setCamera(any()) }
+        verify(exactly = 1) { map.addMarker(any()) }
+        assertEquals(5, dispatcher.lastFrameStats.coalescedUpdates)
+    }
+
+    @Test
+    fun testUnchangedInputsAreSuppressed() {
+        submit(cameraAt(10.0))
+        scheduler.frame()
+
+        // Sub-epsilon jitter and a heading that only differs by wrapping around 360.
+        submit(cameraAt(10.0 + 1e-9, heading = 360.0))
+        scheduler.frame()
+
+        verify(exactly = 1) { map.setCamera(any()) }
+        verify(exactly = 1) { map.setCameraRestriction(any()) }
+        verify(exactly = 1) { map.setMapMode(any()) }
+        assertEquals(0, dispatcher.lastFrameStats.issued)
+        // Camera, restriction, mode and the five object syncs.
+        assertEquals(8, dispatcher.lastFrameStats.suppressed)
+
+        submit(cameraAt(11.0))
+        scheduler.frame()
+        verify(exactly = 2) { map.setCamera(any()) }
+    }
+
+    @Test
+    fun testCancelDropsPendingFrame() {
+        submit(cameraAt(10.0))
+        dispatcher.cancel()
+        scheduler.frame()
+
+        verify(exactly = 0) { map.setCamera(any()) }
+    }
+
+    @Test
+    fun testStreamedDeltasAreConflatedPerKey() {
+        val state = Map3DState()
+        val streaming = Map3DUpdateDispatcher(state, scheduler)
+        streaming.streamMarkers = true
+        streaming.submit(
+            map = map,
+            context = context,
+            camera = cameraAt(0.0),
+            cameraRestriction = null,
+            mapMode = Map3DMode.SATELLITE,
+            markers = emptyList(),
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+        fun vehicle(key: String, latitude: Double) = MarkerConfig(key = key, position = cameraAt(latitude).center)
+
+        streaming.offerMarkerDeltas(listOf(vehicle("v1", 1.0).asUpsert(), vehicle("v2", 1.0).asUpsert()))
+        streaming.offerMarkerDeltas(listOf(vehicle("v1", 2.0).asUpsert()))
+        streaming.offerMarkerDeltas(listOf(vehicle("v1", 3.0).asUpsert(), MapObjectDelta.Remove("v2")))
+        scheduler.frame()
+
+        verify(exactly = 1) { map.addMarker(any()) }
+        assertEquals(3L, streaming.conflatedDeltas)
+        assertEquals(1L, state.markerStats.added)
+
+        streaming.offerMarkerDeltas(listOf(MapObjectDelta.Remove("v1")))
+        scheduler.frame()
+        assertEquals(1L, state.markerStats.removed)
+    }
+
+    @Test
+    fun testFailedStreamedAddIsRetriedWithoutNewDeltas() {
+        val flaky = mockk<GoogleMap3D>(relaxed = true)
+        every { flaky.addMarker(any()) } returnsMany listOf(null, mockk<Marker>(relaxed = true))
+        val state = Map3DState()
+        val streaming = Map3DUpdateDispatcher(state, scheduler)
+        streaming.streamMarkers = true
+        streaming.submit(
+            map = flaky,
+            context = context,
+            camera = cameraAt(0.0),
+            cameraRestriction = null,
+            mapMode = Map3DMode.SATELLITE,
+            markers = emptyList(),
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+
+        streaming.offerMarkerDeltas(listOf(MarkerConfig(key = "v1", position = cameraAt(1.0).center).asUpsert()))
+        scheduler.frame()
+        assertEquals(0L, state.markerStats.added)
+
+        // The re-queued upsert schedules its own frame; no producer batch is needed.
+        scheduler.frame()
+        verify(exactly = 2) { flaky.addMarker(any()) }
+        assertEquals(1L, state.markerStats.added)
+    }
+
+    @Test
+    fun testMetricsReportCountsPerFrame() {
+        val frames = mutableListOf<FrameMetrics>()
+        dispatcher.metricsListener = Map3DMetricsListener { frames += it }
+        fun marker(key: String, latitude: Double, label: String = "") =
+            MarkerConfig(key = key, position = cameraAt(latitude).center, label = label)
+
+        submit(cameraAt(0.0), listOf(marker("a", 0.0), marker("b", 0.0), marker("c", 0.0)))
+        scheduler.frame()
+        // a moves, b gets a new label, c is dropped and d is new.
+        submit(cameraAt(0.0), listOf(marker("a", 1.0), marker("b", 0.0, label = "b"), marker("d", 0.0)))
+        scheduler.frame()
+
+        assertEquals(2, frames.size)
+        assertEquals(1, frames[0].cameraSets)
+        assertEquals(3, frames[0].markers.added)
+        assertEquals(0, frames[1].cameraSets)
+        val markers = frames[1].markers
+        assertEquals(1, markers.added)
+        assertEquals(1, markers.updatedInPlace)
+        assertEquals(1, markers.reAdded)
+        assertEquals(1, markers.removed)
+        assertEquals(0, markers.skipped)
+        assertEquals(SyncMetrics(), frames[1].polylines.copy(durationNanos = 0))
+        assertTrue(frames[1].durationNanos >= markers.durationNanos)
+    }
+}
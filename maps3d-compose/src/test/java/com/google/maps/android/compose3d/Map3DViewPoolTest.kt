@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.Map3DOptions
+import com.google.android.gms.maps3d.Map3DView
+import com.google.android.gms.maps3d.OnMap3DViewReadyCallback
+import io.mockk.every
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.runs
+import io.mockk.slot
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class Map3DViewPoolTest {
+
+    private val context: Context = RuntimeEnvironment.getApplication()
+    private val callbacks = mutableListOf<OnMap3DViewReadyCallback>()
+    private val views = mutableListOf<Map3DView>()
+
+    private fun pool(maxIdle: Int = 1) = Map3DViewPool(context, Map3DOptions(), maxIdle) { _, _ ->
+        val view = mockk<Map3DView>(relaxed = true)
+        val callback = slot<OnMap3DViewReadyCallback>()
+        every { view.getMap3DViewAsync(capture(callback)) } answers { callbacks.add(callback.captured) }
+        views.add(view)
+        view
+    }
+
+    private fun loadedMap(index: Int): GoogleMap3D {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        callbacks[index].onMap3DViewReady(map)
+        return map
+    }
+
+    @Before
+    fun resetRegistry() {
+        Map3DRegistry.isMapReady = false
+    }
+
+    @Test
+    fun testReadinessIsTrackedPerInstance() {
+        val first = mockk<GoogleMap3D>(relaxed = true)
+        val second = mockk<GoogleMap3D>(relaxed = true)
+        var ranFirst = 0
+        var ranSecond = 0
+
+        Map3DRegistry.whenReady(first, "a") { ranFirst++ }
+        Map3DRegistry.whenReady(first, "a") { ranFirst += 10 } // replaces the previous action
+        Map3DRegistry.whenReady(second, "b") { ranSecond++ }
+        Map3DRegistry.markReady(first)
+
+        assertEquals(10, ranFirst)
+        assertTrue(Map3DRegistry.isReady(first))
+        assertFalse(Map3DRegistry.isReady(second))
+        assertEquals(0, ranSecond)
+        verify(exactly = 1) { first.setOnMapReadyListener(any()) }
+    }
+
+    @Test
+    fun testFreshMapWaitsForItsOwnListenerAfterAnotherWasReady() {
+        val first = mockk<GoogleMap3D>(relaxed = true)
+        val fresh = mockk<GoogleMap3D>(relaxed = true)
+        Map3DRegistry.markReady(first)
+        var ran = 0
+
+        Map3DRegistry.whenReady(fresh, "a") { ran++ }
+
+        assertEquals(0, ran)
+        assertFalse(Map3DRegistry.isReady(fresh))
+        verify(exactly = 1) { fresh.setOnMapReadyListener(any()) }
+
+        Map3DRegistry.markReady(fresh)
+        assertEquals(1, ran)
+    }
+
+    @Test
+    fun testLoadingViewIsNotTreatedAsWarm() {
+        val pool = pool(maxIdle = 2)
+        pool.prewarm()
+        val loading = loadedMap(0)
+        Map3DRegistry.markReady(loadedMap(1))
+
+        // The first view's map has not fired its listener, so the second one is preferred.
+        assertSame(views[1], pool.acquire(context))
+        assertSame(views[0], pool.acquire(context))
+        assertFalse(Map3DRegistry.isReady(loading))
+    }
+
+    @Test
+    fun testPrewarmedReadyViewIsHandedOff() {
+        val pool = pool()
+        pool.prewarm()
+        val map = loadedMap(0)
+        Map3DRegistry.markReady(map)
+
+        val view = pool.acquire(context)
+
+        assertSame(views[0], view)
+        assertEquals(0, pool.idleCount)
+        assertEquals(1L, pool.stats.handedOff)
+        assertNotNull(pool.stats.lastCreateToReadyNanos)
+        assertNotNull(pool.stats.lastHandoffNanos)
+    }
+
+    @Test
+    fun testHandoffOfLoadingViewIsTimedWhenReady() {
+        val pool = pool()
+        pool.prewarm()
+        val map = loadedMap(0)
+
+        pool.acquire(context)
+        assertNull(pool.stats.lastHandoffNanos)
+
+        Map3DRegistry.markReady(map)
+        assertNotNull(pool.stats.lastHandoffNanos)
+    }
+
+    @Test
+    fun testReusedViewCarriesNoListenersFromThePreviousScreen() {
+        val pool = pool()
+        pool.prewarm()
+        val map = loadedMap(0)
+        Map3DRegistry.markReady(map)
+
+        val view = pool.acquire(context)!!
+        map.setCameraChangedListener { }
+        map.setOnMapSteadyListener { }
+        map.setMap3DClickListener { _, _ -> }
+        assertTrue(pool.recycle(view))
+
+        verify { map.setCameraChangedListener(null) }
+        verify { map.setOnMapSteadyListener(null) }
+        verify { map.setMap3DClickListener(null) }
+        assertSame(view, pool.acquire(context))
+    }
+
+    @Test
+    fun testCancelledWaiterDoesNotRun() {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        var ran = 0
+
+        Map3DRegistry.whenReady(map, "screen") { ran++ }
+        Map3DRegistry.cancel(map, "screen")
+        Map3DRegistry.markReady(map)
+
+        assertEquals(0, ran)
+    }
+
+    @Test
+    fun testEmptyPoolMissesAndRecycleKeepsView() {
+        val pool = pool()
+        assertNull(pool.acquire(context))
+        assertEquals(1L, pool.stats.missed)
+
+        pool.prewarm()
+        val view = pool.acquire(context)!!
+        assertTrue(pool.recycle(view))
+        assertEquals(1, pool.idleCount)
+        assertFalse(pool.recycle(mockk(relaxed = true)))
+
+        every { views[0].onDestroy() } just runs
+        pool.clear()
+        verify { views[0].onDestroy() }
+        assertEquals(0, pool.idleCount)
+    }
+}
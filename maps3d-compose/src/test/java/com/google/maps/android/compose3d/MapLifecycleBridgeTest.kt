@@ -0,0 +1,201 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.view.Choreographer
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.LifecycleRegistry
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.Map3DView
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.mockk.verifyOrder
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class MapLifecycleBridgeTest {
+
+    private class FakeFrameScheduler : FrameScheduler {
+        private val callbacks = mutableListOf<Choreographer.FrameCallback>()
+        private var frameTime = 0L
+
+        val pending: Int
+            get() = callbacks.size
+
+        override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks += callback
+        }
+
+        override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+            callbacks -= callback
+        }
+
+        fun frame() {
+            frameTime += 16_666_667L
+            val pending = callbacks.toList()
+            callbacks.clear()
+            pending.forEach { it.doFrame(frameTime) }
+        }
+    }
+
+    private class FakeLifecycleOwner : LifecycleOwner {
+        val registry = LifecycleRegistry.createUnsafe(this)
+        override val lifecycle: Lifecycle
+            get() = registry
+    }
+
+    private val application = RuntimeEnvironment.getApplication()
+    private val owner = FakeLifecycleOwner()
+    private val scheduler = FakeFrameScheduler()
+    private val map = mockk<GoogleMap3D>(relaxed = true).also {
+        every { it.addMarker(any()) } answers { mockk<Marker>(relaxed = true) }
+    }
+    private val view = mockk<Map3DView>(relaxed = true).also {
+        every { it.context } returns application
+    }
+    private val dispatcher = Map3DUpdateDispatcher(Map3DState(), scheduler)
+    private val bridge = MapLifecycleBridge(dispatcher)
+
+    private fun cameraAt(latitude: Double): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            longitude = 0.0
+            altitude = 0.0
+        }
+        heading = 0.0
+        tilt = 45.0
+        range = 1000.0
+    }
+
+    private fun submit(latitude: Double, markers: List<MarkerConfig> = emptyList()) {
+        dispatcher.submit(
+            map = map,
+            context = application,
+            camera = cameraAt(latitude),
+            cameraRestriction = null,
+            mapMode = 0,
+            markers = markers,
+            polylines = emptyList(),
+            polygons = emptyList(),
+            models = emptyList(),
+            popovers = emptyList(),
+        )
+    }
+
+    @Test
+    fun testNoSdkCallsWhileStopped() {
+        owner.registry.addObserver(bridge)
+        bridge.attachView(view)
+        owner.registry.currentState = Lifecycle.State.RESUMED
+        submit(1.0)
+        scheduler.frame()
+        verify(exactly = 1) { map.setCamera(any()) }
+
+        owner.registry.currentState = Lifecycle.State.CREATED
+        assertFalse(bridge.isStarted)
+        submit(2.0)
+        submit(3.0)
+        submit(4.0, markers = listOf(MarkerConfig(key = "a", position = cameraAt(4.0).center)))
+        dispatcher.onCameraChanged(cameraAt(5.0))
+        repeat(5) { scheduler.frame() }
+
+        assertEquals(0, scheduler.pending)
+        verify(exactly = 1) { map.setCamera(any()) }
+        verify(exactly = 0) { map.addMarker(any()) }
+
+        // Starting again applies only the latest inputs, in a single frame.
+        owner.registry.currentState = Lifecycle.State.RESUMED
+        assertEquals(1, scheduler.pending)
+        scheduler.frame()
+        verify(exactly = 2) { map.setCamera(any()) }
+        verify(exactly = 1) { map.addMarker(any()) }
+        assertEquals(3, dispatcher.lastFrameStats.coalescedUpdates)
+
+        verifyOrder {
+            view.onStart()
+            view.onResume()
+            view.onPause()
+            view.onStop()
+            view.onStart()
+            view.onResume()
+        }
+    }
+
+    @Test
+    fun testLateViewCatchesUpAndIsStoppedOnDetach() {
+        owner.registry.currentState = Lifecycle.State.RESUMED
+        owner.registry.addObserver(bridge)
+        assertTrue(bridge.isStarted)
+
+        bridge.attachView(view)
+        verifyOrder {
+            view.onStart()
+            view.onResume()
+        }
+
+        bridge.detachView(view)
+        verifyOrder {
+            view.onPause()
+            view.onStop()
+        }
+        verify(exactly = 0) { view.onDestroy() }
+    }
+
+    @Test
+    fun testLowMemoryAndFollowCameraAreForwarded() {
+        val follow = FollowCameraController(scheduler = scheduler)
+        bridge.followCamera = follow
+        assertTrue(follow.isPaused)
+
+        owner.registry.addObserver(bridge)
+        bridge.attachView(view)
+        owner.registry.currentState = Lifecycle.State.STARTED
+        assertFalse(follow.isPaused)
+
+        application.onLowMemory()
+        verify(exactly = 1) { view.onLowMemory() }
+
+        bridge.detachView(view)
+        application.onLowMemory()
+        verify(exactly = 1) { view.onLowMemory() }
+    }
+
+    @Test
+    fun testReplacementDispatcherTakesOverThePauseState() {
+        owner.registry.addObserver(bridge)
+        owner.registry.currentState = Lifecycle.State.STARTED
+        val replacement = Map3DUpdateDispatcher(Map3DState(), scheduler)
+        bridge.dispatcher = replacement
+        assertFalse(replacement.isPaused)
+
+        owner.registry.currentState = Lifecycle.State.CREATED
+        assertTrue(replacement.isPaused)
+        assertFalse(dispatcher.isPaused)
+    }
+}
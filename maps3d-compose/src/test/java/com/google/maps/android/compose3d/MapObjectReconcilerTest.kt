@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.latLngAltitude
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class MapObjectReconcilerTest {
+
+    /** Every instance hashes alike, so any two lists of the same size share a fingerprint. */
+    private data class Colliding(val key: String, val value: Int) {
+        override fun hashCode(): Int = 0
+    }
+
+    private val reconciler = MapObjectReconciler<Colliding, String>(
+        keyOf = { it.key },
+        remove = { _, _ -> },
+    )
+
+    private fun sync(configs: List<Colliding>) =
+        reconciler.sync(configs, create = { config, _ -> "${config.key}=${config.value}" })
+
+    @Test
+    fun testFingerprintCollisionDoesNotHideAChange() {
+        sync(listOf(Colliding("a", 1), Colliding("b", 2)))
+
+        val changes = sync(listOf(Colliding("a", 1), Colliding("b", 3)))
+
+        assertEquals(listOf("b"), changes.changed)
+        assertEquals("b=3", reconciler["b"])
+        assertEquals(0L, reconciler.stats.skippedByFingerprint)
+    }
+
+    @Test
+    fun testFingerprintCollisionDoesNotHideARepeatedKey() {
+        sync(listOf(Colliding("a", 1), Colliding("b", 2)))
+
+        val changes = sync(listOf(Colliding("a", 1), Colliding("a", 1)))
+
+        assertEquals(listOf("b"), changes.removed)
+        assertEquals(1, reconciler.size)
+    }
+
+    @Test
+    fun testEqualContentIsStillSkipped() {
+        sync(listOf(Colliding("a", 1), Colliding("b", 2)))
+
+        val changes = sync(listOf(Colliding("a", 1), Colliding("b", 2)))
+
+        assertEquals(ChangeSet.EMPTY, changes)
+        assertEquals(1L, reconciler.stats.skippedByFingerprint)
+    }
+
+    @Test
+    fun testBacklogDrainsNearestFirstWithoutRediffingOrResorting() {
+        val scheduler = AddScheduler(clock = { 0L }).apply { budget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 1) }
+        var positionLookups = 0
+        val budgeted = MapObjectReconciler<Colliding, String>(
+            keyOf = { it.key },
+            remove = { _, _ -> },
+            addScheduler = scheduler,
+            positionOf = { config ->
+                positionLookups++
+                latLngAltitude {
+                    latitude = config.value.toDouble()
+                    longitude = 0.0
+                    altitude = 0.0
+                }
+            },
+        )
+        // Farthest first, so the nearest-first order is visible.
+        val configs = List(5) { Colliding("k${4 - it}", 4 - it) }
+        val order = mutableListOf<String>()
+
+        repeat(5) {
+            scheduler.beginFrame(latLngAltitude { latitude = 0.0; longitude = 0.0; altitude = 0.0 })
+            order += budgeted.sync(configs, create = { config, _ -> config.key }).added
+        }
+
+        assertEquals(listOf("k0", "k1", "k2", "k3", "k4"), order)
+        assertEquals(5, positionLookups)
+        assertEquals(0L, budgeted.stats.comparisons)
+        assertEquals(4L, budgeted.stats.skippedByIdentity)
+    }
+
+    @Test
+    fun testQueuedKeysThatLeaveTheListAreDropped() {
+        val scheduler = AddScheduler(clock = { 0L }).apply { budget = AddBudget(frameBudgetMillis = 0.0, minAddsPerFrame = 1) }
+        val budgeted = MapObjectReconciler<Colliding, String>(
+            keyOf = { it.key },
+            remove = { _, _ -> },
+            addScheduler = scheduler,
+        )
+        val create = { config: Colliding, _: String? -> config.key }
+
+        scheduler.beginFrame(null)
+        budgeted.sync(listOf(Colliding("a", 1), Colliding("b", 2), Colliding("c", 3)), create)
+        scheduler.beginFrame(null)
+        val changes = budgeted.sync(listOf(Colliding("a", 1), Colliding("c", 3)), create)
+
+        assertEquals(listOf("c"), changes.added)
+        assertEquals(null, budgeted["b"])
+        scheduler.beginFrame(null)
+        assertEquals(ChangeSet.EMPTY, budgeted.sync(listOf(Colliding("a", 1), Colliding("c", 3)), create))
+    }
+}
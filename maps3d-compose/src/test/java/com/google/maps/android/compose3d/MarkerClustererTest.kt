@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class MarkerClustererTest {
+
+    // 10k markers on a 100 x 100 grid with 0.01 degree spacing.
+    private val markers = List(10_000) { i ->
+        MarkerConfig(
+            key = "poi_$i",
+            position = latLngAltitude {
+                latitude = 37.0 + (i / 100) * 0.01
+                longitude = -122.0 + (i % 100) * 0.01
+                altitude = 0.0
+            },
+        )
+    }
+
+    private fun cameraAt(latitude: Double, longitude: Double, range: Double): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            this.longitude = longitude
+            altitude = 0.0
+        }
+        heading = 0.0
+        tilt = 0.0
+        this.range = range
+    }
+
+    private fun countOf(marker: MarkerConfig): Int =
+        if (marker.key.startsWith("cluster:")) marker.label.toInt() else 1
+
+    @Test
+    fun testFarCameraClustersEveryPoint() {
+        val clusterer = MarkerClusterer(markers)
+
+        val result = clusterer.cluster(cameraAt(37.5, -121.5, range = 200_000.0))
+
+        assertTrue("expected few clusters, got ${result.size}", result.size < 200)
+        assertTrue(result.any { it.key.startsWith("cluster:") })
+        assertEquals(markers.size, result.sumOf { countOf(it) })
+    }
+
+    @Test
+    fun testCloseCameraShowsOriginalMarkers() {
+        val clusterer = MarkerClusterer(markers)
+
+        val close = clusterer.cluster(cameraAt(37.5, -121.5, range = 500.0))
+        val closest = clusterer.cluster(cameraAt(37.5, -121.5, range = 100.0))
+
+        assertTrue(close.isNotEmpty())
+        assertTrue(close.all { it.key.startsWith("poi_") })
+        assertTrue(closest.all { it.key.startsWith("poi_") })
+        assertEquals(-1, clusterer.levelFor(100.0))
+    }
+
+    @Test
+    fun testLevelsGetFinerAsRangeShrinks() {
+        val clusterer = MarkerClusterer(markers)
+
+        val far = clusterer.levelFor(1_000_000.0)
+        val mid = clusterer.levelFor(50_000.0)
+        val near = clusterer.levelFor(2_000.0)
+
+        assertTrue(far < mid)
+        assertTrue(mid < near)
+        assertTrue(near < clusterer.levelsBuilt)
+    }
+
+    @Test
+    fun testUnchangedCellsReuseResultAndClusterInstances() {
+        val clusterer = MarkerClusterer(markers)
+        val a = cameraAt(37.5, -121.5, range = 50_000.0)
+        val b = cameraAt(37.2, -121.8, range = 50_000.0)
+
+        val first = clusterer.cluster(a)
+        assertSame(first, clusterer.cluster(a))
+
+        clusterer.cluster(b)
+        val back = clusterer.cluster(a)
+
+        val firstByKey = first.associateBy { it.key }
+        for (marker in back) {
+            assertSame(firstByKey[marker.key], marker)
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.utils.groundFootprint
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class MarkerVirtualizerTest {
+
+    // 10k markers on a 100 x 100 grid with 0.01 degree spacing.
+    private val markers = List(10_000) { i ->
+        MarkerConfig(
+            key = "poi_$i",
+            position = latLngAltitude {
+                latitude = 37.0 + (i / 100) * 0.01
+                longitude = -122.0 + (i % 100) * 0.01
+                altitude = 0.0
+            },
+        )
+    }
+
+    private fun cameraAt(latitude: Double, longitude: Double, tilt: Double = 0.0): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            this.longitude = longitude
+            altitude = 0.0
+        }
+        heading = 0.0
+        this.tilt = tilt
+        range = 2000.0
+    }
+
+    @Test
+    fun testOnlyMarkersNearTheFootprintAreMaterialized() {
+        val virtualizer = MarkerVirtualizer(MarkerVirtualization())
+        val camera = cameraAt(37.5, -121.5)
+
+        val visible = virtualizer.select(markers, camera)
+
+        assertTrue(visible.isNotEmpty())
+        assertTrue("expected a small subset, got ${visible.size}", visible.size < 100)
+        val keep = camera.groundFootprint().expandedBy(0.5)
+        assertTrue(visible.all { keep.contains(it.position.latitude, it.position.longitude) })
+    }
+
+    @Test
+    fun testSmallMovesReuseTheSameList() {
+        val virtualizer = MarkerVirtualizer(MarkerVirtualization())
+        val first = virtualizer.select(markers, cameraAt(37.5, -121.5))
+
+        // A few meters of drift stays within the hysteresis band.
+        val second = virtualizer.select(markers, cameraAt(37.50001, -121.50001))
+
+        assertSame(first, second)
+    }
+
+    @Test
+    fun testLargeMovesSwapTheMaterializedSet() {
+        val virtualizer = MarkerVirtualizer(MarkerVirtualization())
+        val first = virtualizer.select(markers, cameraAt(37.2, -121.8))
+        val second = virtualizer.select(markers, cameraAt(37.8, -121.2))
+
+        assertNotSame(first, second)
+        assertTrue(first.none { it in second })
+    }
+
+    @Test
+    fun testNewListWithSamePositionsKeepsTheMaterializedSet() {
+        val virtualizer = MarkerVirtualizer(MarkerVirtualization())
+        val camera = cameraAt(37.5, -121.5)
+        val first = virtualizer.select(markers, camera)
+
+        val relabeled = markers.map { it.copy(label = "updated") }
+        val second = virtualizer.select(relabeled, camera)
+
+        assertEquals(first.map { it.key }, second.map { it.key })
+        assertTrue(second.all { it.label == "updated" })
+        // The next call with the same list is back to returning the same instance.
+        assertSame(second, virtualizer.select(relabeled, camera))
+    }
+
+    @Test
+    fun testMovedMarkersRebuildTheIndex() {
+        val virtualizer = MarkerVirtualizer(MarkerVirtualization())
+        val camera = cameraAt(37.5, -121.5)
+        virtualizer.select(markers, camera)
+
+        val far = latLngAltitude {
+            latitude = 10.0
+            longitude = 10.0
+            altitude = 0.0
+        }
+        val moved = markers.map { it.copy(position = far) }
+
+        assertTrue(virtualizer.select(moved, camera).isEmpty())
+    }
+
+    @Test
+    fun testWideViewportMaterializesMarkersAtTheSides() {
+        val camera = cameraAt(37.5, -121.5)
+        val square = MarkerVirtualizer(MarkerVirtualization()).select(markers, camera, aspectRatio = 1.0)
+        val wide = MarkerVirtualizer(MarkerVirtualization()).select(markers, camera, aspectRatio = 2.0)
+        val unknown = MarkerVirtualizer(MarkerVirtualization()).select(markers, camera)
+
+        assertTrue(wide.size > square.size)
+        assertTrue(wide.any { it.position.longitude > square.maxOf { m -> m.position.longitude } })
+        // Without a known size, the footprint is at least as wide as a landscape phone's.
+        assertTrue(unknown.containsAll(wide))
+    }
+
+    @Test
+    fun testTiltedFootprintReachesFurtherAhead() {
+        val flat = cameraAt(37.5, -121.5).groundFootprint()
+        val tilted = cameraAt(37.5, -121.5, tilt = 60.0).groundFootprint()
+
+        assertTrue(tilted.north - 37.5 > flat.north - 37.5)
+    }
+}
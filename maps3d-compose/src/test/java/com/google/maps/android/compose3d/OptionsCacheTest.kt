@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.graphics.Color
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Polyline
+import com.google.android.gms.maps3d.model.latLngAltitude
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class OptionsCacheTest {
+
+    private fun polyline(key: String, size: Int = 1_000) = PolylineConfig(
+        key = key,
+        points = List(size) { i ->
+            latLngAltitude {
+                latitude = 40.0 + i * 1e-4
+                longitude = -105.0
+                altitude = 0.0
+            }
+        },
+        color = Color.RED,
+        width = 4f,
+    )
+
+    private fun polygon(key: String) = PolygonConfig(
+        key = key,
+        path = listOf(
+            latLngAltitude { latitude = 0.0; longitude = 0.0; altitude = 0.0 },
+            latLngAltitude { latitude = 0.0; longitude = 1.0; altitude = 0.0 },
+            latLngAltitude { latitude = 1.0; longitude = 1.0; altitude = 0.0 },
+        ),
+        fillColor = Color.YELLOW,
+        strokeColor = Color.GREEN,
+        strokeWidth = 3f,
+    )
+
+    @Test
+    fun testPreparedOptionsAreHits() {
+        val cache = OptionsCache()
+        val line = polyline("line")
+        val area = polygon("area")
+
+        runBlocking { cache.prepare(listOf(line), listOf(area)) }
+        val first = cache.polylineOptions(line, "line")
+        val again = cache.polylineOptions(line.copy(points = line.points.toList()), "line")
+        cache.polygonOptions(area, "area")
+
+        assertSame(first, again)
+        assertEquals(OptionsCacheStats(prepared = 2, hits = 3, misses = 0), cache.stats)
+    }
+
+    @Test
+    fun testUnpreparedOptionsAreBuiltOnDemand() {
+        val cache = OptionsCache()
+
+        val options = cache.polylineOptions(polyline("line"), "override")
+
+        assertEquals("override", options.id)
+        assertEquals(1L, cache.stats.misses)
+    }
+
+    @Test
+    fun testLeastRecentlyUsedEntryIsEvicted() {
+        val cache = OptionsCache(extraEntries = 1)
+        val a = polyline("a")
+        val b = polyline("b")
+
+        val first = cache.polylineOptions(a, "a")
+        cache.polylineOptions(b, "b")
+
+        assertNotSame(first, cache.polylineOptions(a, "a"))
+        assertEquals(3L, cache.stats.misses)
+    }
+
+    @Test
+    fun testPreparedSetLargerThanTheExtraEntriesIsKept() {
+        val cache = OptionsCache(extraEntries = 2)
+        val lines = List(10) { polyline("line$it", size = 10) }
+
+        runBlocking { cache.preparePolylines(lines) }
+        lines.forEach { cache.polylineOptions(it, it.key) }
+
+        assertEquals(OptionsCacheStats(prepared = 10, hits = 10, misses = 0), cache.stats)
+    }
+
+    @Test
+    fun testStateAddsPreparedPolylines() {
+        val map = mockk<GoogleMap3D>(relaxed = true)
+        every { map.addPolyline(any()) } answers { mockk<Polyline>(relaxed = true) }
+        val state = Map3DState()
+        val line = polyline("line", size = 10_000)
+
+        runBlocking { state.optionsCache.prepare(listOf(line), emptyList()) }
+        state.syncPolylines(map, listOf(line))
+
+        assertEquals(1L, state.optionsCacheStats.hits)
+        assertEquals(0L, state.optionsCacheStats.misses)
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.compose3d.utils.GeoMathUtils
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.calculateHeading
+import com.google.maps.android.compose3d.utils.haversineDistance
+import com.google.maps.android.compose3d.utils.toPackedPath
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.lang.management.ManagementFactory
+
+@RunWith(RobolectricTestRunner::class)
+class PackedPathTest {
+
+    private val path = listOf(
+        LatLng(37.7749, -122.4194),
+        LatLng(37.7760, -122.4180),
+        LatLng(37.7760, -122.4180),
+        LatLng(37.7790, -122.4150),
+        LatLng(37.7800, -122.4200),
+    )
+    private val packed = path.toPackedPath()
+
+    @Test
+    fun testDistancesMatchHaversine() {
+        // Short segments use the equirectangular kernel, within its documented bound.
+        var expected = 0.0
+        for (i in 1 until path.size) {
+            expected += haversineDistance(path[i - 1], path[i])
+            assertEquals(expected, packed.distanceAt(i), expected * 1e-6)
+        }
+        assertEquals(expected, packed.lengthMeters, expected * 1e-6)
+    }
+
+    @Test
+    fun testPointAtMatchesListInterpolation() {
+        val distances = DoubleArray(path.size) { packed.distanceAt(it) }
+        val out = MutableGeoPoint()
+        var distance = -10.0
+        while (distance <= packed.lengthMeters + 10.0) {
+            val expected = GeoMathUtils.getInterpolatedPoint(distance, path, distances)
+            packed.pointAt(distance, out)
+            assertEquals(expected.latitude, out.latitude, 1e-9)
+            assertEquals(expected.longitude, out.longitude, 1e-9)
+            distance += 7.5
+        }
+    }
+
+    @Test
+    fun testSegmentAtClampsToThePath() {
+        assertEquals(0, packed.segmentAt(-1.0))
+        assertEquals(0, packed.segmentAt(packed.distanceAt(1) / 2))
+        assertEquals(3, packed.segmentAt(packed.distanceAt(3) + 1.0))
+        assertEquals(path.size - 2, packed.segmentAt(packed.lengthMeters + 1.0))
+    }
+
+    @Test
+    fun testHeadingAtLooksAheadAndFallsBackAtTheEnd() {
+        val scratch = MutableGeoPoint()
+        val along = packed.headingAt(packed.distanceAt(3) + 1.0, 20.0, scratch)
+        val expected = calculateHeading(path[3], path[4])
+        assertEquals(expected, along, 0.5)
+
+        // Past the end, the heading of the last meter is kept instead of collapsing to north.
+        assertEquals(expected, packed.headingAt(packed.lengthMeters, 20.0, scratch), 0.5)
+        // Looking back from the start reports the reverse direction.
+        val back = packed.headingAt(0.0, -20.0, scratch)
+        assertEquals((calculateHeading(path[0], path[1]) + 180.0) % 360.0, back, 0.5)
+    }
+
+    @Test
+    fun testRouteSamplingDoesNotAllocate() {
+        // Covers the route sampling a follow frame does, not the Camera it hands to the SDK.
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported)
+        threads!!.isThreadAllocatedMemoryEnabled = true
+        val threadId = Thread.currentThread().id
+        val route = List(10_000) { LatLng(37.0 + it * 1e-4, -122.0 + (it % 7) * 1e-4) }.toPackedPath()
+        val target = MutableGeoPoint()
+        val scratch = MutableGeoPoint()
+        var sink = 0.0
+
+        fun step(i: Int) {
+            val distance = (i * 3.7) % route.lengthMeters
+            route.pointAt(distance, target)
+            sink += route.headingAt(distance, 50.0, scratch) + target.latitude
+            sink += haversineDistance(target.latitude, target.longitude, scratch.latitude, scratch.longitude)
+        }
+
+        repeat(20_000) { step(it) }
+        val before = threads.getThreadAllocatedBytes(threadId)
+        for (i in 0 until 100_000) step(i)
+        val allocated = threads.getThreadAllocatedBytes(threadId) - before
+
+        assertTrue(sink.isFinite())
+        // A single boxed value per step would already be well over a megabyte.
+        assertTrue("allocated $allocated bytes", allocated < 16 * 1024)
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.utils.douglasPeuckerMask
+import com.google.maps.android.compose3d.utils.simplifyPath
+import com.google.maps.android.compose3d.utils.simplifyPathByArea
+import com.google.maps.android.compose3d.utils.simplifyPathMeters
+import com.google.maps.android.compose3d.utils.toPackedPath
+import com.google.maps.android.compose3d.utils.vertexImportance
+import com.google.maps.android.compose3d.utils.visvalingamWhyattMask
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.cos
+import kotlin.math.sin
+
+@RunWith(RobolectricTestRunner::class)
+class PathSimplificationTest {
+
+    private fun wavyTrack(size: Int, latitude: Double = 40.0): List<LatLng> {
+        // Same shape in meters at any latitude: longitude offsets are scaled by 1/cos(latitude).
+        val scale = 1.0 / cos(Math.toRadians(latitude))
+        return List(size) { i ->
+            LatLng(
+                latitude + i * 1e-5,
+                -105.0 + scale * (0.001 * sin(i / 50.0) + 0.00002 * sin(i * 1.7)),
+            )
+        }
+    }
+
+    @Test
+    fun testDouglasPeuckerMatchesVertexImportance() {
+        val track = wavyTrack(5_000)
+        val importance = track.map {
+            latLngAltitude {
+                latitude = it.latitude
+                longitude = it.longitude
+                altitude = 0.0
+            }
+        }.vertexImportance()
+        val packed = track.toPackedPath()
+
+        for (tolerance in listOf(0.5, 2.0, 10.0, 50.0)) {
+            val keep = packed.douglasPeuckerMask(tolerance)
+            for (i in track.indices) {
+                assertEquals("vertex $i at $tolerance m", importance[i] > tolerance, keep[i])
+            }
+        }
+    }
+
+    @Test
+    fun testToleranceIsIndependentOfLatitude() {
+        val equator = wavyTrack(2_000, latitude = 0.0).simplifyPathMeters(5.0)
+        val north = wavyTrack(2_000, latitude = 60.0).simplifyPathMeters(5.0)
+
+        assertTrue(equator.size in 3 until 2_000)
+        // The projection is taken at the mean latitude, so allow for the track's own extent.
+        assertEquals(equator.size.toDouble(), north.size.toDouble(), equator.size * 0.05)
+    }
+
+    @Test
+    fun testLongTracksDoNotOverflowTheStack() {
+        // A sawtooth whose amplitude shrinks along the track splits off one vertex at a time,
+        // which is as deep as the recursion can go.
+        val track = List(20_000) { i -> LatLng(i * 1e-5, if (i % 2 == 0) 0.0 else 1e-3 / (i + 1)) }
+
+        val simplified = track.simplifyPathMeters(0.01)
+
+        assertEquals(track.first(), simplified.first())
+        assertEquals(track.last(), simplified.last())
+        assertTrue(track.simplifyPath(1e-9).size > 2)
+    }
+
+    @Test
+    fun testDegreeToleranceMeasuresToTheLineAndMeterToleranceToTheSegment() {
+        // The middle vertex overshoots the end of the track and doubles back along the same line.
+        val track = listOf(LatLng(0.0, 0.0), LatLng(0.0, 2e-3), LatLng(0.0, 1e-3))
+
+        assertEquals(listOf(track[0], track[2]), track.simplifyPath(1e-4))
+        assertEquals(track, track.simplifyPathMeters(1.0))
+    }
+
+    @Test
+    fun testVisvalingamDropsCollinearPointsAndKeepsSpikes() {
+        val track = List(11) { i -> LatLng(0.0, i * 1e-3) }.toMutableList()
+        track[5] = LatLng(1e-3, 5e-3)
+
+        val simplified = track.simplifyPathByArea(1.0)
+
+        assertEquals(listOf(track[0], track[4], track[5], track[6], track[10]), simplified)
+    }
+
+    @Test
+    fun testVisvalingamLevelsAreNested() {
+        val packed = wavyTrack(5_000).toPackedPath()
+        val fine = packed.visvalingamWhyattMask(10.0)
+        val coarse = packed.visvalingamWhyattMask(1_000.0)
+
+        assertTrue(fine[0] && fine[fine.size - 1] && coarse[0] && coarse[coarse.size - 1])
+        assertTrue(coarse.count { it } < fine.count { it })
+        for (i in fine.indices) {
+            assertFalse("vertex $i", coarse[i] && !fine[i])
+        }
+    }
+}
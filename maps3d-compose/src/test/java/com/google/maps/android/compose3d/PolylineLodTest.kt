@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.graphics.Color
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.cos
+import kotlin.math.sin
+import kotlin.math.sqrt
+
+@RunWith(RobolectricTestRunner::class)
+class PolylineLodTest {
+
+    private fun wavyTrack(size: Int): List<LatLngAltitude> = List(size) { i ->
+        latLngAltitude {
+            latitude = 40.0 + i * 1e-5
+            longitude = -105.0 + 0.001 * sin(i / 50.0) + 0.00002 * sin(i * 1.7)
+            altitude = 0.0
+        }
+    }
+
+    private fun cameraWithRange(range: Double): Camera = camera {
+        center = latLngAltitude {
+            latitude = 40.0
+            longitude = -105.0
+            altitude = 0.0
+        }
+        heading = 0.0
+        tilt = 45.0
+        this.range = range
+    }
+
+    @Test
+    fun testLevelsShrinkAndRespectTheVertexCap() {
+        val points = wavyTrack(100_000)
+        val pyramid = PolylineLodPyramid(points, PolylineLod(maxVertices = 5_000))
+
+        var previous = Int.MAX_VALUE
+        for (level in 0 until pyramid.levelCount) {
+            val simplified = pyramid.pointsAt(level)
+            assertTrue("level $level has ${simplified.size} vertices", simplified.size <= 5_000)
+            assertTrue(simplified.size <= previous)
+            assertSame(points.first(), simplified.first())
+            assertSame(points.last(), simplified.last())
+            previous = simplified.size
+        }
+        assertSame(pyramid.pointsAt(3), pyramid.pointsAt(3))
+    }
+
+    @Test
+    fun testLevelZeroIsTheOriginalPathWhenUnderTheCap() {
+        val points = wavyTrack(1_000)
+        val pyramid = PolylineLodPyramid(points)
+
+        assertSame(points, pyramid.pointsAt(0))
+    }
+
+    @Test
+    fun testDroppedVerticesStayWithinTolerance() {
+        val points = wavyTrack(2_000)
+        val pyramid = PolylineLodPyramid(points)
+        val level = 5
+        val tolerance = pyramid.toleranceOf(level)
+        val kept = pyramid.pointsAt(level).toSet()
+        assertTrue(kept.size < points.size)
+
+        var start = 0
+        for (end in 1 until points.size) {
+            if (points[end] !in kept) continue
+            for (i in start + 1 until end) {
+                val deviation = distanceToSegment(points[i], points[start], points[end])
+                assertTrue("vertex $i deviates $deviation m", deviation <= tolerance + 0.01)
+            }
+            start = end
+        }
+    }
+
+    @Test
+    fun testHysteresisHoldsLevelNearBoundary() {
+        val pyramid = PolylineLodPyramid(wavyTrack(1_000))
+        // Level 4 covers targets of 4 m up to 8 m; the default ratio is 1 m per km of range.
+        val level = pyramid.levelFor(6_000.0)
+        assertEquals(4, level)
+
+        assertEquals(4, pyramid.levelFor(8_500.0, current = level))
+        assertEquals(5, pyramid.levelFor(8_500.0))
+        assertEquals(4, pyramid.levelFor(3_500.0, current = level))
+        assertNotEquals(4, pyramid.levelFor(12_000.0, current = level))
+    }
+
+    @Test
+    fun testResolverReusesOutputUntilTheLevelChanges() {
+        val resolver = PolylineLodResolver()
+        val config = PolylineConfig(
+            key = "track",
+            points = wavyTrack(20_000),
+            color = Color.RED,
+            width = 4f,
+            lod = PolylineLod(),
+        )
+        val configs = listOf(config)
+
+        val far = resolver.resolve(configs, cameraWithRange(50_000.0))
+        assertTrue(far.single().points.size < config.points.size)
+        assertSame(far, resolver.resolve(configs, cameraWithRange(51_000.0)))
+
+        val near = resolver.resolve(configs, cameraWithRange(200.0))
+        assertNotEquals(far.single().points.size, near.single().points.size)
+        assertEquals(0, resolver.levelOf("track"))
+    }
+
+    @Test
+    fun testResolverUsesPyramidsPreparedInTheBackground() {
+        val cache = OptionsCache()
+        val config = PolylineConfig(
+            key = "track",
+            points = wavyTrack(20_000),
+            color = Color.RED,
+            width = 4f,
+            lod = PolylineLod(),
+        )
+        runBlocking { cache.preparePolylines(listOf(config)) }
+        val resolver = PolylineLodResolver(cache::lodPyramid)
+
+        // An equal path in a new list still finds the prepared pyramid.
+        val rebuilt = config.copy(points = config.points.toList())
+        val pyramid = cache.lodPyramid(rebuilt)
+        val resolved = resolver.resolve(listOf(rebuilt), cameraWithRange(50_000.0))
+
+        assertNotNull(pyramid)
+        assertSame(pyramid!!.pointsAt(pyramid.levelFor(50_000.0)), resolved.single().points)
+    }
+
+    private fun distanceToSegment(p: LatLngAltitude, a: LatLngAltitude, b: LatLngAltitude): Double {
+        val metersPerDegree = 6371000.0 * Math.PI / 180.0
+        val lngScale = metersPerDegree * cos(Math.toRadians(a.latitude))
+        val px = (p.longitude - a.longitude) * lngScale
+        val py = (p.latitude - a.latitude) * metersPerDegree
+        val bx = (b.longitude - a.longitude) * lngScale
+        val by = (b.latitude - a.latitude) * metersPerDegree
+        val lengthSquared = bx * bx + by * by
+        val t = if (lengthSquared == 0.0) 0.0 else ((px * bx + py * by) / lengthSquared).coerceIn(0.0, 1.0)
+        val dx = px - t * bx
+        val dy = py - t * by
+        return sqrt(dx * dx + dy * dy)
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import android.content.Context
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class PopoverViewPoolTest {
+
+    private val context: Context = RuntimeEnvironment.getApplication()
+
+    @Test
+    fun testReleasedHostIsReusedForSameContentType() {
+        val pool = PopoverViewPool()
+
+        val first = pool.acquire(context, "card") {}
+        pool.release(first)
+        val second = pool.acquire(context, "card") {}
+
+        assertSame(first, second)
+        assertEquals(PopoverPoolStats(created = 1, reused = 1, evicted = 0, idle = 0), pool.stats)
+    }
+
+    @Test
+    fun testDifferentContentTypeCreatesNewHost() {
+        val pool = PopoverViewPool()
+
+        val card = pool.acquire(context, "card") {}
+        pool.release(card)
+        val badge = pool.acquire(context, "badge") {}
+
+        assertNotSame(card.view, badge.view)
+        assertEquals(2L, pool.stats.created)
+        assertEquals(0L, pool.stats.reused)
+        assertEquals(1, pool.stats.idle)
+    }
+
+    @Test
+    fun testPoolEvictsLeastRecentlyReleased() {
+        val pool = PopoverViewPool(maxIdle = 2)
+        val hosts = List(3) { pool.acquire(context, "card") {} }
+
+        hosts.forEach(pool::release)
+
+        assertEquals(1L, pool.stats.evicted)
+        assertEquals(2, pool.stats.idle)
+        // The most recently released host comes back first.
+        assertSame(hosts[2], pool.acquire(context, "card") {})
+    }
+}
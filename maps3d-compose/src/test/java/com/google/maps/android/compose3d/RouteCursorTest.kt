@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.RouteCursor
+import com.google.maps.android.compose3d.utils.toPackedPath
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.sin
+import kotlin.random.Random
+
+@RunWith(RobolectricTestRunner::class)
+class RouteCursorTest {
+
+    private val path = List(2_000) { i ->
+        // Every tenth point repeats, so zero-length segments are covered too.
+        val j = i - i / 10
+        LatLng(37.0 + j * 1e-4, -122.0 + 1e-4 * sin(j / 20.0))
+    }.toPackedPath()
+
+    private fun assertSamePoint(distance: Double, cursor: RouteCursor) {
+        val expected = path.pointAt(distance, MutableGeoPoint())
+        val actual = cursor.moveTo(distance, MutableGeoPoint())
+        assertEquals("latitude at $distance", expected.latitude, actual.latitude, 1e-12)
+        assertEquals("longitude at $distance", expected.longitude, actual.longitude, 1e-12)
+    }
+
+    @Test
+    fun testSequentialPlaybackWalksWithoutSearching() {
+        val cursor = RouteCursor(path)
+        var distance = -5.0
+        while (distance < path.lengthMeters + 5.0) {
+            assertSamePoint(distance, cursor)
+            distance += 3.3
+        }
+        // And back again.
+        while (distance > -5.0) {
+            assertSamePoint(distance, cursor)
+            distance -= 7.1
+        }
+
+        assertEquals(0L, cursor.searches)
+    }
+
+    @Test
+    fun testSeeksFallBackToBinarySearch() {
+        val cursor = RouteCursor(path)
+        val random = Random(42)
+        repeat(500) {
+            assertSamePoint(random.nextDouble(-10.0, path.lengthMeters + 10.0), cursor)
+        }
+
+        assertTrue(cursor.searches > 0)
+        cursor.moveTo(path.lengthMeters, MutableGeoPoint())
+        assertEquals(path.size - 2, cursor.segmentIndex)
+        cursor.reset()
+        assertEquals(0, cursor.segmentIndex)
+    }
+}
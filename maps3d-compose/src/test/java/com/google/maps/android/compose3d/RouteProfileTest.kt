@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.RouteProfile
+import com.google.maps.android.compose3d.utils.toPackedPath
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import kotlin.math.sin
+
+@RunWith(RobolectricTestRunner::class)
+class RouteProfileTest {
+
+    // North, a repeated point, then a right turn to the east and a left turn back north.
+    private val corner = listOf(
+        LatLng(0.0, 0.0),
+        LatLng(0.01, 0.0),
+        LatLng(0.01, 0.0),
+        LatLng(0.01, 0.01),
+        LatLng(0.02, 0.01),
+    )
+
+    @Test
+    fun testBearingsAndCurvature() {
+        val profile = RouteProfile.compute(corner.toPackedPath(), lookaheadMeters = 0.0)
+
+        assertEquals(0.0, profile.bearingAt(0), 1e-6)
+        // The zero-length segment keeps the bearing before it.
+        assertEquals(0.0, profile.bearingAt(1), 1e-6)
+        assertEquals(90.0, profile.bearingAt(2), 0.01)
+        assertEquals(0.0, profile.bearingAt(3), 0.01)
+
+        val path = profile.path
+        val span = (path.distanceAt(3) - path.distanceAt(1)) / 2.0
+        assertEquals(Math.PI / 2 / span, profile.curvatureAt(2), 1e-7)
+        assertTrue(profile.curvatureAt(3) < 0.0)
+        assertEquals(0.0, profile.curvatureAt(0), 0.0)
+        assertEquals(0.0, profile.curvatureAt(4), 0.0)
+    }
+
+    @Test
+    fun testSmoothedHeadingLooksAhead() {
+        val path = List(500) { i -> LatLng(37.0 + i * 1e-4, -122.0 + 1e-3 * sin(i / 30.0)) }.toPackedPath()
+        val profile = RouteProfile.compute(path, lookaheadMeters = 300.0)
+        val scratch = MutableGeoPoint()
+
+        for (i in 0 until path.size - 1) {
+            val expected = path.headingAt(path.distanceAt(i), 300.0, scratch)
+            assertEquals("vertex $i", expected, profile.smoothedHeadingAt(i), 1e-3)
+        }
+    }
+
+    @Test
+    fun testHeadingInterpolatesTheShortWayRound() {
+        // North-west, then north-east: halfway through the first segment the heading crosses north.
+        val path = listOf(LatLng(0.0, 0.0), LatLng(0.01, -0.01), LatLng(0.02, 0.0))
+        val profile = RouteProfile.compute(path.toPackedPath(), lookaheadMeters = 0.0)
+        val halfway = profile.path.distanceAt(1) / 2.0
+
+        val heading = profile.headingAt(halfway)
+
+        assertTrue("heading $heading", heading < 1.0 || heading > 359.0)
+    }
+
+    @Test
+    fun testRoundTripsThroughStreams() {
+        val profile = runBlocking { RouteProfile.build(corner, lookaheadMeters = 500.0) }
+        val bytes = ByteArrayOutputStream().also { profile.writeTo(DataOutputStream(it)) }.toByteArray()
+
+        val restored = RouteProfile.readFrom(DataInputStream(ByteArrayInputStream(bytes)))
+
+        assertEquals(profile.lookaheadMeters, restored.lookaheadMeters, 0.0)
+        assertEquals(profile.path.size, restored.path.size)
+        for (i in 0 until profile.path.size) {
+            assertEquals(profile.path.latitude(i), restored.path.latitude(i), 0.0)
+            assertEquals(profile.path.longitude(i), restored.path.longitude(i), 0.0)
+            assertEquals(profile.path.distanceAt(i), restored.path.distanceAt(i), 0.0)
+            assertEquals(profile.curvatureAt(i), restored.curvatureAt(i), 0.0)
+            assertEquals(profile.smoothedHeadingAt(i), restored.smoothedHeadingAt(i), 0.0)
+        }
+        for (s in 0 until profile.path.size - 1) {
+            assertEquals(profile.bearingAt(s), restored.bearingAt(s), 0.0)
+        }
+    }
+
+    @Test(expected = IOException::class)
+    fun testRejectsForeignData() {
+        RouteProfile.readFrom(DataInputStream(ByteArrayInputStream(ByteArray(64))))
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import java.util.Locale
+
+/**
+ * Minimal JVM micro-benchmark harness for the unit-test source set.
+ *
+ * These are not a substitute for Jetpack Microbenchmark on a device, but they are good enough to
+ * compare two implementations of the same algorithm on the host JVM. They are excluded from the
+ * regular unit test run and only run, on their own, with
+ * `./gradlew :maps3d-compose:testDebugUnitTest -Pbenchmarks`. Results are printed, never
+ * asserted, so timing noise cannot fail a build.
+ */
+internal object Benchmarks {
+
+    /**
+     * Runs [block] [warmup] times, then [iterations] times, and returns the mean nanoseconds per
+     * call. The return value of [block] is folded into a sink so the JIT cannot drop the work.
+     */
+    inline fun nanosPerOp(warmup: Int = 5, iterations: Int = 20, block: () -> Any?): Double {
+        var sink = 0
+        repeat(warmup) { sink += block().hashCode() }
+        val start = System.nanoTime()
+        repeat(iterations) { sink += block().hashCode() }
+        val elapsed = System.nanoTime() - start
+        if (sink == Int.MIN_VALUE) println("")
+        return elapsed.toDouble() / iterations
+    }
+
+    /**
+     * Prints one benchmark result line in a format that is easy to grep from Gradle output.
+     */
+    fun report(suite: String, case: String, nanosPerOp: Double, opsPerCall: Int = 1) {
+        val perItem = if (opsPerCall > 1) String.format(Locale.US, " (%.2f ns/item)", nanosPerOp / opsPerCall) else ""
+        note(suite, String.format(Locale.US, "%s: %.1f us/op%s", case, nanosPerOp / 1000.0, perItem))
+    }
+
+    /**
+     * Prints a free-form result line, such as a count or a throughput, in the same format as
+     * [report].
+     */
+    fun note(suite: String, message: String) {
+        println("BENCHMARK $suite/$message")
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.android.gms.maps3d.model.Camera
+import com.google.android.gms.maps3d.model.camera
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.MarkerClusterer
+import com.google.maps.android.compose3d.MarkerConfig
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.util.Random
+
+/**
+ * Pyramid build and per-camera reclustering cost for 100k scattered points.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ClusteringBenchmark {
+
+    private val markers: List<MarkerConfig> = Random(42).let { random ->
+        List(POINTS) { i ->
+            MarkerConfig(
+                key = "poi_$i",
+                position = latLngAltitude {
+                    latitude = 35.0 + random.nextDouble() * 5.0
+                    longitude = -123.0 + random.nextDouble() * 5.0
+                    altitude = 0.0
+                },
+            )
+        }
+    }
+
+    private fun cameraAt(latitude: Double, range: Double): Camera = camera {
+        center = latLngAltitude {
+            this.latitude = latitude
+            longitude = -120.5
+            altitude = 0.0
+        }
+        heading = 0.0
+        tilt = 45.0
+        this.range = range
+    }
+
+    @Test
+    fun benchmarkBuild() {
+        val build = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) { MarkerClusterer(markers) }
+        Benchmarks.report("Clustering", "build/100k", build, opsPerCall = POINTS)
+    }
+
+    @Test
+    fun benchmarkRecluster() {
+        val clusterer = MarkerClusterer(markers)
+        val cameras = listOf(
+            cameraAt(37.0, 300_000.0),
+            cameraAt(37.5, 100_000.0),
+            cameraAt(37.6, 20_000.0),
+            cameraAt(37.4, 5_000.0),
+        )
+        var next = 0
+
+        // Alternate cameras so the unchanged-cells shortcut never applies.
+        val recluster = Benchmarks.nanosPerOp(warmup = 20, iterations = 200) {
+            clusterer.cluster(cameras[next++ % cameras.size])
+        }
+
+        assertTrue(clusterer.cluster(cameras[0]).isNotEmpty())
+        Benchmarks.report("Clustering", "recluster/100k", recluster)
+    }
+
+    private companion object {
+        const val POINTS = 100_000
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.maps.android.compose3d.utils.cumulativeDistances
+import com.google.maps.android.compose3d.utils.fastDistance
+import com.google.maps.android.compose3d.utils.haversineDistance
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.util.Locale
+import kotlin.math.sin
+
+/**
+ * Cumulative distance throughput over a 1M-point GPS trace: serial haversine, serial
+ * [fastDistance], and the fork-join [cumulativeDistances] kernel.
+ */
+@RunWith(RobolectricTestRunner::class)
+class DistanceKernelsBenchmark {
+
+    private val latitudes = DoubleArray(POINTS) { 40.0 + it * 1e-5 }
+    private val longitudes = DoubleArray(POINTS) { -105.0 + 0.001 * sin(it / 50.0) }
+
+    @Test
+    fun benchmarkCumulativeDistances() {
+        val haversine = Benchmarks.nanosPerOp(warmup = 3, iterations = 10) {
+            serial { i -> haversineDistance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]) }
+        }
+        report("haversine/1M", haversine)
+
+        val fast = Benchmarks.nanosPerOp(warmup = 3, iterations = 10) {
+            serial { i -> fastDistance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]) }
+        }
+        report("fastSerial/1M", fast)
+
+        val parallel = Benchmarks.nanosPerOp(warmup = 3, iterations = 10) {
+            cumulativeDistances(latitudes, longitudes)[POINTS - 1]
+        }
+        report("cumulativeDistances/1M", parallel)
+    }
+
+    private inline fun serial(distance: (Int) -> Double): Double {
+        val distances = DoubleArray(POINTS)
+        for (i in 1 until POINTS) distances[i] = distances[i - 1] + distance(i)
+        return distances[POINTS - 1]
+    }
+
+    private fun report(case: String, nanos: Double) {
+        Benchmarks.report("DistanceKernels", case, nanos, opsPerCall = POINTS)
+        Benchmarks.note("DistanceKernels", String.format(Locale.US, "%s: %.1f M segments/s", case, POINTS / nanos * 1e3))
+    }
+
+    private companion object {
+        const val POINTS = 1_000_000
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import android.graphics.Color
+import com.google.android.gms.maps3d.model.LatLngAltitude
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.PolylineConfig
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Compares change detection on a 50k-vertex polyline: plain `List` equality (what the data class
+ * `equals` used to do) against [PolylineConfig.equals].
+ *
+ * Every timed block builds fresh configs, as a recomposition does, so the cost of computing a
+ * fingerprint is included wherever one is computed. The "cached" case is the one place where
+ * fingerprints are already known, such as configs that have been used as hash keys.
+ */
+@RunWith(RobolectricTestRunner::class)
+class PathEqualityBenchmark {
+
+    private fun track(size: Int, lastLatitude: Double): List<LatLngAltitude> = List(size) { i ->
+        latLngAltitude {
+            latitude = if (i == size - 1) lastLatitude else 40.0 + i * 1e-5
+            longitude = -105.0 + i * 1e-5
+            altitude = 1600.0
+        }
+    }
+
+    private fun config(points: List<LatLngAltitude>) =
+        PolylineConfig(key = "track", points = points, color = Color.RED, width = 4f)
+
+    @Test
+    fun benchmarkUnchangedPath() {
+        val before = track(VERTICES, lastLatitude = 41.0)
+        val rebuilt = before.toList()
+
+        val listEquality = Benchmarks.nanosPerOp { before == rebuilt }
+        val configEquality = Benchmarks.nanosPerOp { config(before) == config(rebuilt) }
+
+        assertTrue(config(before) == config(rebuilt))
+        Benchmarks.report("PathEquality", "unchanged/listEquals", listEquality)
+        Benchmarks.report("PathEquality", "unchanged/configEquals", configEquality)
+    }
+
+    @Test
+    fun benchmarkChangedPath() {
+        val before = track(VERTICES, lastLatitude = 41.0)
+        val after = track(VERTICES, lastLatitude = 41.5) // only the final vertex moved
+
+        val listEquality = Benchmarks.nanosPerOp { before == after }
+        val configEquality = Benchmarks.nanosPerOp { config(before) == config(after) }
+        val cachedBefore = config(before).also { it.hashCode() }
+        val cachedAfter = config(after).also { it.hashCode() }
+        val cachedEquality = Benchmarks.nanosPerOp { cachedBefore == cachedAfter }
+
+        assertFalse(config(before) == config(after))
+        assertFalse(cachedBefore == cachedAfter)
+        Benchmarks.report("PathEquality", "changed/listEquals", listEquality)
+        Benchmarks.report("PathEquality", "changed/configEquals", configEquality)
+        Benchmarks.report("PathEquality", "changed/configEqualsCached", cachedEquality)
+    }
+
+    @Test
+    fun benchmarkUnchangedPathHash() {
+        val points = track(VERTICES, lastLatitude = 41.0)
+
+        val listHash = Benchmarks.nanosPerOp { points.hashCode() }
+        val configHash = Benchmarks.nanosPerOp { config(points).hashCode() }
+
+        assertEquals(config(points).hashCode(), config(points.toList()).hashCode())
+        Benchmarks.report("PathEquality", "unchanged/listHashCode", listHash)
+        Benchmarks.report("PathEquality", "unchanged/configHashCode", configHash)
+    }
+
+    private companion object {
+        const val VERTICES = 50_000
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.compose3d.utils.douglasPeuckerMask
+import com.google.maps.android.compose3d.utils.simplifyPath
+import com.google.maps.android.compose3d.utils.simplifyPathMeters
+import com.google.maps.android.compose3d.utils.toPackedPath
+import com.google.maps.android.compose3d.utils.visvalingamWhyattMask
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.sin
+
+/**
+ * Douglas–Peucker and Visvalingam–Whyatt on GPS-like traces of 1k, 100k and 1M points.
+ */
+@RunWith(RobolectricTestRunner::class)
+class PathSimplificationBenchmark {
+
+    private fun trace(size: Int): List<LatLng> = List(size) { i ->
+        LatLng(40.0 + i * 1e-5, -105.0 + 0.001 * sin(i / 50.0) + 0.00002 * sin(i * 1.7))
+    }
+
+    @Test
+    fun benchmarkSimplification() {
+        for (size in SIZES) {
+            val points = trace(size)
+            val packed = points.toPackedPath()
+            val iterations = if (size >= 1_000_000) 2 else 5
+            val case = if (size >= 1_000_000) "${size / 1_000_000}M" else "${size / 1_000}k"
+
+            val degrees = Benchmarks.nanosPerOp(warmup = 1, iterations = iterations) { points.simplifyPath(1e-5).size }
+            Benchmarks.report("PathSimplification", "simplifyPath/$case", degrees, opsPerCall = size)
+
+            val meters = Benchmarks.nanosPerOp(warmup = 1, iterations = iterations) { points.simplifyPathMeters(1.0).size }
+            Benchmarks.report("PathSimplification", "simplifyPathMeters/$case", meters, opsPerCall = size)
+
+            val douglasPeucker = Benchmarks.nanosPerOp(warmup = 1, iterations = iterations) {
+                packed.douglasPeuckerMask(1.0)
+            }
+            Benchmarks.report("PathSimplification", "douglasPeuckerMask/$case", douglasPeucker, opsPerCall = size)
+
+            val visvalingam = Benchmarks.nanosPerOp(warmup = 1, iterations = iterations) {
+                packed.visvalingamWhyattMask(1.0)
+            }
+            Benchmarks.report("PathSimplification", "visvalingamWhyattMask/$case", visvalingam, opsPerCall = size)
+
+            val keptDouglasPeucker = packed.douglasPeuckerMask(1.0).count { it }
+            val keptVisvalingam = packed.visvalingamWhyattMask(1.0).count { it }
+            Benchmarks.note("PathSimplification", "kept/$case: DP $keptDouglasPeucker, VW $keptVisvalingam of $size")
+        }
+    }
+
+    private companion object {
+        val SIZES = intArrayOf(1_000, 100_000, 1_000_000)
+    }
+}
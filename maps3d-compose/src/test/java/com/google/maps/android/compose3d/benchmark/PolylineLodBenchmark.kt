@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.PolylineLodPyramid
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.sin
+
+/**
+ * Pyramid build cost and per-level vertex counts for a 100k-point GPS trace.
+ */
+@RunWith(RobolectricTestRunner::class)
+class PolylineLodBenchmark {
+
+    private val trace = List(POINTS) { i ->
+        latLngAltitude {
+            latitude = 40.0 + i * 1e-5
+            longitude = -105.0 + 0.001 * sin(i / 50.0) + 0.00002 * sin(i * 1.7)
+            altitude = 0.0
+        }
+    }
+
+    @Test
+    fun benchmarkBuild() {
+        val build = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) { PolylineLodPyramid(trace) }
+        Benchmarks.report("PolylineLod", "build/100k", build, opsPerCall = POINTS)
+
+        val pyramid = PolylineLodPyramid(trace)
+        for (range in listOf(500.0, 5_000.0, 50_000.0)) {
+            val level = pyramid.levelFor(range)
+            val vertices = pyramid.pointsAt(level).size
+            Benchmarks.note("PolylineLod", "range=${range.toInt()}: level $level, $vertices vertices")
+            assertTrue(vertices <= pyramid.options.maxVertices)
+        }
+    }
+
+    private companion object {
+        const val POINTS = 100_000
+    }
+}
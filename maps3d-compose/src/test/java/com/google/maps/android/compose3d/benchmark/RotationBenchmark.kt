@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.android.gms.maps3d.GoogleMap3D
+import com.google.android.gms.maps3d.model.Marker
+import com.google.android.gms.maps3d.model.latLngAltitude
+import com.google.maps.android.compose3d.Map3DState
+import com.google.maps.android.compose3d.MarkerConfig
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * What a configuration change costs the object layer with 5k markers.
+ *
+ * - `clear`: the old behavior, every marker is removed from the old map and added to the new one.
+ * - `retained/destroyed-view`: a retained state forgets the dead map's markers and only adds.
+ * - `retained/pooled-view`: a retained state comes back to the same map and issues nothing.
+ *
+ * Native calls are counted on fake objects, so the timings only show the library's own share;
+ * on a device each call also crosses into the SDK.
+ */
+@RunWith(RobolectricTestRunner::class)
+class RotationBenchmark {
+
+    private var nativeCalls = 0
+    private val marker = mockk<Marker>(relaxed = true).also {
+        every { it.remove() } answers { nativeCalls++ }
+    }
+
+    private fun fakeMap(): GoogleMap3D = mockk<GoogleMap3D>(relaxed = true).also {
+        every { it.addMarker(any()) } answers {
+            nativeCalls++
+            marker
+        }
+    }
+
+    private fun markers(): List<MarkerConfig> = List(MARKERS) { i ->
+        MarkerConfig(
+            key = "poi_$i",
+            position = latLngAltitude {
+                latitude = 37.0 + (i % 100) * 0.001
+                longitude = -122.0 + (i / 100) * 0.001
+                altitude = 0.0
+            },
+        )
+    }
+
+    private fun run(case: String, rotate: (state: Map3DState, oldMap: GoogleMap3D) -> Unit) {
+        val oldMap = fakeMap()
+        val state = Map3DState()
+        state.syncMarkers(oldMap, markers())
+        nativeCalls = 0
+        var calls = 0
+
+        val nanos = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) {
+            nativeCalls = 0
+            rotate(state, oldMap)
+            calls = nativeCalls
+        }
+
+        Benchmarks.report("Rotation", "$case/5k", nanos, opsPerCall = MARKERS)
+        Benchmarks.note("Rotation", "$case/5k: $calls native calls")
+    }
+
+    @Test
+    fun benchmarkClearAndReAdd() {
+        val newMap = fakeMap()
+        var rotations = 0
+        run("clear") { state, oldMap ->
+            state.clear()
+            // Alternate maps so every iteration is a full rotation.
+            state.syncMarkers(if (rotations++ % 2 == 0) newMap else oldMap, markers())
+        }
+    }
+
+    @Test
+    fun benchmarkRetainedDestroyedView() {
+        val newMap = fakeMap()
+        run("retained/destroyed-view") { state, _ ->
+            state.onMapDestroyed()
+            state.attach(newMap)
+            state.syncMarkers(newMap, markers())
+        }
+    }
+
+    @Test
+    fun benchmarkRetainedPooledView() {
+        run("retained/pooled-view") { state, oldMap ->
+            state.attach(oldMap)
+            state.syncMarkers(oldMap, markers())
+        }
+    }
+
+    private companion object {
+        const val MARKERS = 5_000
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.maps.android.compose3d.benchmark
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.compose3d.utils.GeoMathUtils
+import com.google.maps.android.compose3d.utils.MutableGeoPoint
+import com.google.maps.android.compose3d.utils.RouteCursor
+import com.google.maps.android.compose3d.utils.calculateHeading
+import com.google.maps.android.compose3d.utils.toPackedPath
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.math.sin
+
+/**
+ * Per-frame cost of reading the target and look-ahead points during playback of a 200k-point
+ * route: binary search on every call versus one cursor per point.
+ */
+@RunWith(RobolectricTestRunner::class)
+class RouteCursorBenchmark {
+
+    private val route = List(POINTS) { i -> LatLng(37.0 + i * 1e-5, -122.0 + 1e-4 * sin(i / 100.0)) }
+    private val packed = route.toPackedPath()
+    private val distances = DoubleArray(POINTS) { packed.distanceAt(it) }
+
+    @Test
+    fun benchmarkPlayback() {
+        val step = packed.lengthMeters / FRAMES
+
+        val lists = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) {
+            var heading = 0.0
+            for (frame in 0 until FRAMES) {
+                val distance = frame * step
+                val target = GeoMathUtils.getInterpolatedPoint(distance, route, distances)
+                val ahead = GeoMathUtils.getInterpolatedPoint(distance + LOOKAHEAD, route, distances)
+                heading += calculateHeading(target, ahead)
+            }
+            heading
+        }
+        Benchmarks.report("RouteCursor", "getInterpolatedPoint/200k", lists, opsPerCall = FRAMES)
+
+        val target = MutableGeoPoint()
+        val ahead = MutableGeoPoint()
+        val searched = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) {
+            var heading = 0.0
+            for (frame in 0 until FRAMES) {
+                val distance = frame * step
+                packed.pointAt(distance, target)
+                packed.pointAt(distance + LOOKAHEAD, ahead)
+                heading += calculateHeading(target.latitude, target.longitude, ahead.latitude, ahead.longitude)
+            }
+            heading
+        }
+        Benchmarks.report("RouteCursor", "packedBinarySearch/200k", searched, opsPerCall = FRAMES)
+
+        val cursors = Benchmarks.nanosPerOp(warmup = 2, iterations = 5) {
+            val targetCursor = RouteCursor(packed)
+            val aheadCursor = RouteCursor(packed)
+            var heading = 0.0
+            for (frame in 0 until FRAMES) {
+                val distance = frame * step
+                targetCursor.moveTo(distance, target)
+                aheadCursor.moveTo(distance + LOOKAHEAD, ahead)
+                heading += calculateHeading(target.latitude, target.longitude, ahead.latitude, ahead.longitude)
+            }
+            heading
+        }
+        Benchmarks.report("RouteCursor", "cursors/200k", cursors, opsPerCall = FRAMES)
+    }
+
+    private companion object {
+        const val POINTS = 200_000
+        const val FRAMES = 400_000
+        const val LOOKAHEAD = 500.0
+    }
+}